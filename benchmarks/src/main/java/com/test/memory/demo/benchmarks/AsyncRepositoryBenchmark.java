@@ -0,0 +1,163 @@
+package com.test.memory.demo.benchmarks;
+
+import com.test.memory.demo.async.AsyncQueryExecutor;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load test of a request handler: every JMH thread is a client sending one request at a
+ * time. A request reads an order's item count and spends {@code otherWorkMillis} in other blocking
+ * I/O (e.g. a downstream HTTP call). Every connection checkout waits {@code roundTripMillis}, standing
+ * in for the PostgreSQL round trip that H2 does not have.
+ * <ul>
+ *     <li>{@code blocking}: requests run on {@code requestThreads} platform threads (Tomcat's default
+ *     maximum), which call the repository and then do the other work;</li>
+ *     <li>{@code async}: requests run on virtual threads, start the query through
+ *     {@link AsyncQueryExecutor}, do the other work meanwhile and then join. Needs Java 21.</li>
+ * </ul>
+ * Throughput is requests per second, the sample mode gives the latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AsyncRepositoryBenchmark {
+
+    static final int USERS = 1_000;
+
+    @Param({"blocking", "async"})
+    public String path;
+
+    @Param("200")
+    public int requestThreads;
+
+    @Param("20")
+    public int poolSize;
+
+    @Param("2")
+    public int roundTripMillis;
+
+    @Param("50")
+    public int otherWorkMillis;
+
+    private ConfigurableApplicationContext context;
+    private OrderItemRepository orderItemRepository;
+    private AsyncQueryExecutor async;
+    private Executor requestExecutor;
+    private int orders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of(
+                        "spring.datasource.hikari.maximum-pool-size", String.valueOf(poolSize),
+                        "demo.eligibility.enabled", "false",
+                        "demo.rollup.enabled", "false"),
+                ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof DataSource dataSource ? new RoundTripDataSource(dataSource) : bean;
+                    }
+                }));
+        BenchmarkContext.seed(context, USERS);
+        orders = USERS * BenchmarkContext.ORDERS_PER_USER;
+        orderItemRepository = context.getBean(OrderItemRepository.class);
+        async = context.getBean(AsyncQueryExecutor.class);
+        if (path.equals("blocking")) {
+            requestExecutor = Executors.newFixedThreadPool(requestThreads);
+        } else if (JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            requestExecutor = new VirtualThreadTaskExecutor("request-");
+        } else {
+            throw new IllegalStateException("The async path runs requests on virtual threads, run on Java 21");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (requestExecutor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public Long request() throws ExecutionException, InterruptedException {
+        long orderId = ThreadLocalRandom.current().nextLong(orders) + 1;
+        return CompletableFuture.supplyAsync(() -> path.equals("blocking") ? blocking(orderId) : async(orderId),
+                requestExecutor).get();
+    }
+
+    private Long blocking(long orderId) {
+        Long count = orderItemRepository.countByOrderId(orderId);
+        otherWork();
+        return count;
+    }
+
+    private Long async(long orderId) {
+        CompletableFuture<Long> count = async.supply(() -> orderItemRepository.countByOrderId(orderId));
+        otherWork();
+        return count.join();
+    }
+
+    private void otherWork() {
+        sleep(otherWorkMillis);
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Holds every checked out connection for a round trip before handing it out.
+     */
+    private final class RoundTripDataSource extends DelegatingDataSource {
+
+        RoundTripDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            sleep(roundTripMillis);
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.test.memory.demo.benchmarks;
+
+import com.test.memory.demo.dataloader.EntityLoaders;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.repositories.AppUserRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving {@code lookups} random users by id, one {@code findById} at a time against
+ * {@link EntityLoaders}, which loads them with one {@code IN} query. Every prepared statement
+ * waits {@code roundTripMillis} first (0 is H2 as is).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BatchLookupBenchmark {
+
+    static final int USERS = 10_000;
+
+    @Param("300")
+    public int lookups;
+
+    @Param({"0", "1"})
+    public int roundTripMillis;
+
+    private ConfigurableApplicationContext context;
+    private AppUserRepository appUsers;
+    private EntityManager entityManager;
+    private PlatformTransactionManager transactionManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of(
+                        "demo.eligibility.enabled", "false",
+                        "demo.rollup.enabled", "false"),
+                BenchmarkContext.statementRoundTrip(roundTripMillis));
+        BenchmarkContext.seed(context, USERS);
+        appUsers = context.getBean(AppUserRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionManager = context.getBean(PlatformTransactionManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object findById() {
+        return randomIds().stream().map(appUsers::findById).toList();
+    }
+
+    @Benchmark
+    public Object entityLoaders() {
+        EntityLoaders loaders = new EntityLoaders(entityManager, transactionManager, 500);
+        List<CompletableFuture<AppUser>> users = randomIds().stream().map(loaders.users()::load).toList();
+        loaders.dispatch();
+        return users.stream().map(CompletableFuture::join).toList();
+    }
+
+    private List<Long> randomIds() {
+        return ThreadLocalRandom.current().longs(lookups, 1, USERS + 1).boxed().toList();
+    }
+}
@@ -0,0 +1,179 @@
+package com.test.memory.demo.benchmarks;
+
+import com.test.memory.demo.DemoApplication;
+import com.test.memory.demo.search.SearchIndexInitializer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Boots the demo application against an in-memory H2 database in PostgreSQL mode and seeds it.
+ */
+final class BenchmarkContext {
+
+    static final int PRODUCTS = 200;
+    static final int ORDERS_PER_USER = 3;
+    static final int ITEMS_PER_ORDER = 3;
+    static final List<String> CATEGORIES = List.of("Electronics", "Books", "Garden", "Toys", "Clothing");
+    static final List<String> PAYMENT_STATUSES = List.of("PAID", "PENDING", "FAILED");
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final Pattern PLAIN_INDEX =
+            Pattern.compile("CREATE INDEX CONCURRENTLY IF NOT EXISTS \\w+ ON \\w+ \\(\\w+(, \\w+)*\\);");
+
+    private BenchmarkContext() {
+    }
+
+    @SafeVarargs
+    static ConfigurableApplicationContext start(Map<String, String> properties,
+            ApplicationContextInitializer<ConfigurableApplicationContext>... initializers) {
+        Stream<String> defaults = Stream.of(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN");
+        String[] args = Stream.concat(defaults, properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue()))
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(initializers)
+                .run(args);
+    }
+
+    /**
+     * Makes every statement prepared on the data source wait {@code millis} first, standing in for
+     * the PostgreSQL round trip that H2 does not have.
+     */
+    static ApplicationContextInitializer<ConfigurableApplicationContext> statementRoundTrip(int millis) {
+        return context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && millis > 0
+                        ? new StatementRoundTripDataSource(dataSource, millis) : bean;
+            }
+        });
+    }
+
+    /**
+     * Inserts {@code users} users with {@value #ORDERS_PER_USER} paid orders of
+     * {@value #ITEMS_PER_ORDER} items each, over {@value #PRODUCTS} products.
+     */
+    static void seed(ConfigurableApplicationContext context, int users) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES.size(); i++) {
+            rows.add(new Object[]{i + 1, CATEGORIES.get(i)});
+        }
+        insert(jdbc, "INSERT INTO category (id, name) VALUES (?, ?)", rows);
+        for (int i = 1; i <= PRODUCTS; i++) {
+            rows.add(new Object[]{i, "product " + i, (double) (i % 100) + 0.99, i % CATEGORIES.size() + 1});
+        }
+        insert(jdbc, "INSERT INTO product (id, name, price, category_id) VALUES (?, ?, ?, ?)", rows);
+        for (int i = 1; i <= users; i++) {
+            rows.add(new Object[]{i, "user " + i});
+        }
+        insert(jdbc, "INSERT INTO app_user (id, name) VALUES (?, ?)", rows);
+
+        int orders = users * ORDERS_PER_USER;
+        for (int i = 1; i <= orders; i++) {
+            rows.add(new Object[]{i, (i - 1) / ORDERS_PER_USER + 1});
+        }
+        insert(jdbc, "INSERT INTO customer_order (id, user_id) VALUES (?, ?)", rows);
+        for (int i = 1; i <= orders * ITEMS_PER_ORDER; i++) {
+            rows.add(new Object[]{i, (i - 1) / ITEMS_PER_ORDER + 1, i % PRODUCTS + 1, i % 5 + 1});
+        }
+        insert(jdbc, "INSERT INTO order_item (id, order_id, product_id, quantity) VALUES (?, ?, ?, ?)", rows);
+        for (int i = 1; i <= orders; i++) {
+            rows.add(new Object[]{i, PAYMENT_STATUSES.get(i % PAYMENT_STATUSES.size()), i});
+        }
+        insert(jdbc, "INSERT INTO payment (id, status, order_id) VALUES (?, ?, ?)", rows);
+        alignSequence(jdbc, "customer_order", orders);
+        alignSequence(jdbc, "order_item", orders * ITEMS_PER_ORDER);
+        alignSequence(jdbc, "payment", orders);
+        createIndexes(jdbc);
+    }
+
+    /**
+     * Builds the plain B-tree indexes of {@value SearchIndexInitializer#SCRIPT}, which the
+     * application applies on PostgreSQL only; H2 has neither {@code CONCURRENTLY} nor the GIN,
+     * pattern and expression indexes.
+     */
+    private static void createIndexes(JdbcTemplate jdbc) {
+        String script;
+        try {
+            script = new ClassPathResource(SearchIndexInitializer.SCRIPT).getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        script.lines()
+                .filter(PLAIN_INDEX.asMatchPredicate())
+                .map(statement -> statement.replace(" CONCURRENTLY", ""))
+                .forEach(jdbc::execute);
+    }
+
+    /**
+     * Moves the pooled id sequence of {@code table} past the seeded ids: the first value read is
+     * the upper end of the first block of {@value #ID_ALLOCATION_SIZE} ids.
+     */
+    private static void alignSequence(JdbcTemplate jdbc, String table, int maxId) {
+        jdbc.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + (maxId + ID_ALLOCATION_SIZE));
+    }
+
+    private static void insert(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        rows.clear();
+    }
+
+    private static final class StatementRoundTripDataSource extends DelegatingDataSource {
+
+        private final int millis;
+
+        StatementRoundTripDataSource(DataSource target, int millis) {
+            super(target);
+            this.millis = millis;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare")) {
+                            Thread.sleep(millis);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
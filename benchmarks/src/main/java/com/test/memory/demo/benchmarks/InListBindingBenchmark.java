@@ -0,0 +1,128 @@
+package com.test.memory.demo.benchmarks;
+
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.PaymentRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The list-valued repository methods called with random list lengths of 1 to {@code maxListSize},
+ * with and without IN list padding ({@code hibernate.query.in_clause_parameter_padding}). Besides
+ * the time and allocation per call, the tear down prints the distinct SQL strings sent: each is a
+ * SQL translation Hibernate cannot reuse and a PostgreSQL prepared statement per connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InListBindingBenchmark {
+
+    static final int USERS = 1_000;
+
+    @Param({"false", "true"})
+    public boolean padding;
+
+    @Param("100")
+    public int maxListSize;
+
+    private ConfigurableApplicationContext context;
+    private PaymentRepository payments;
+    private OrderItemRepository orderItems;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of(
+                "spring.jpa.properties.hibernate.query.in_clause_parameter_padding", String.valueOf(padding),
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector", SqlRecorder.class.getName(),
+                "demo.eligibility.enabled", "false",
+                "demo.rollup.enabled", "false"));
+        BenchmarkContext.seed(context, USERS);
+        payments = context.getBean(PaymentRepository.class);
+        orderItems = context.getBean(OrderItemRepository.class);
+        SqlRecorder.SQL.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%npadding=%s: %d distinct SQL strings%n", padding, SqlRecorder.SQL.size());
+        context.close();
+    }
+
+    @Benchmark
+    public Object paymentFindPaymentsByStatusesNative() {
+        return payments.findPaymentsByStatusesNative(randomStatuses());
+    }
+
+    @Benchmark
+    public Object paymentFindPaymentsExcludingStatusesNative() {
+        return payments.findPaymentsExcludingStatusesNative(randomStatuses());
+    }
+
+    @Benchmark
+    public Object paymentFindPaymentsByIdListNative() {
+        return payments.findPaymentsByIdListNative(randomIds(USERS * BenchmarkContext.ORDERS_PER_USER));
+    }
+
+    @Benchmark
+    public Object orderItemFindByProductIds() {
+        return orderItems.findByProductIds(randomIds(BenchmarkContext.PRODUCTS));
+    }
+
+    @Benchmark
+    public Object orderItemFindByOrderIds() {
+        return orderItems.findByOrderIds(randomIds(USERS * BenchmarkContext.ORDERS_PER_USER));
+    }
+
+    // Unknown statuses past the seeded ones, so the list can be as long as the others
+    private List<String> randomStatuses() {
+        return IntStream.range(0, randomSize())
+                .mapToObj(i -> i < BenchmarkContext.PAYMENT_STATUSES.size() ? BenchmarkContext.PAYMENT_STATUSES.get(i) : "S" + i)
+                .toList();
+    }
+
+    private List<Long> randomIds(int bound) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.longs(randomSize(), 1, bound + 1).boxed().toList();
+    }
+
+    private int randomSize() {
+        return ThreadLocalRandom.current().nextInt(maxListSize) + 1;
+    }
+
+    /**
+     * Records every SQL string prepared.
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final Set<String> SQL = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.test.memory.demo.benchmarks;
+
+import com.test.memory.demo.ingestion.OrderImport;
+import com.test.memory.demo.ingestion.OrderIngestionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to ingest a chunk of {@code orders} orders (each with {@value BenchmarkContext#ITEMS_PER_ORDER}
+ * items, a payment and a shipment) through {@link OrderIngestionService}, one transaction per chunk.
+ * {@code batchSize=1} sends one INSERT per row as identity ids did, {@code batchSize=50} is the
+ * configured JDBC batching. The in-memory database has no network round trip, so the gap is a lower
+ * bound of the one against PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OrderIngestionBenchmark {
+
+    static final int USERS = 1_000;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    @Param("10000")
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderIngestionService ingestionService;
+    private JdbcTemplate jdbc;
+    private List<OrderImport> chunk;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Eligibility maintenance is left out, a bulk load is followed by UserEligibilityMaintainer.rebuild()
+        context = BenchmarkContext.start(Map.of(
+                "spring.jpa.properties.hibernate.jdbc.batch_size", String.valueOf(batchSize),
+                "demo.eligibility.enabled", "false"));
+        BenchmarkContext.seed(context, USERS);
+        ingestionService = context.getBean(OrderIngestionService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        chunk = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            List<OrderImport.Item> items = new ArrayList<>();
+            for (int j = 0; j < BenchmarkContext.ITEMS_PER_ORDER; j++) {
+                items.add(new OrderImport.Item((i + j) % BenchmarkContext.PRODUCTS + 1, j + 1));
+            }
+            chunk.add(new OrderImport(i % USERS + 1, items,
+                    BenchmarkContext.PAYMENT_STATUSES.get(i % BenchmarkContext.PAYMENT_STATUSES.size()), "T" + i));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteIngested() {
+        // Keeps the tables at their seeded size, the seeded ids are below the sequences
+        int seededOrders = USERS * BenchmarkContext.ORDERS_PER_USER;
+        jdbc.update("DELETE FROM shipment");
+        jdbc.update("DELETE FROM payment WHERE id > ?", seededOrders);
+        jdbc.update("DELETE FROM order_item WHERE id > ?", seededOrders * BenchmarkContext.ITEMS_PER_ORDER);
+        jdbc.update("DELETE FROM customer_order WHERE id > ?", seededOrders);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int ingest() {
+        return ingestionService.ingest(chunk);
+    }
+}
@@ -0,0 +1,131 @@
+package com.test.memory.demo.benchmarks;
+
+import com.test.memory.demo.query.QueryLookupStrategyDecorator;
+import com.test.memory.demo.query.aot.OfflineSessionFactory;
+import com.test.memory.demo.query.aot.QueryPlanCompiler;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.core.support.PropertiesBasedNamedQueries;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a repository {@code @Query} into something executable, per method:
+ * <ul>
+ *     <li>{@link #resolveRepositoryQuery}: what happens for every query method at startup, Spring
+ *     Data's query resolution including Hibernate parsing and validating the JPQL (the Hibernate
+ *     query plan cache is disabled so every invocation parses);</li>
+ *     <li>{@link #translateToSql}: full Hibernate compilation, HQL to SQM to SQL, as done on first
+ *     execution.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class QueryPlanCompilationBenchmark {
+
+    @Param({
+            "AppUserRepository.findComplexAppUserByUserId",
+            "AppUserRepository.findUsersWithReviewsAndOrders",
+            "AddressRepository.findAddressesByCity",
+            "CustomerOrderRepository.findByUserId",
+            "OrderItemRepository.findByProductNameLike",
+            "ProductRepository.findByPriceRange"
+    })
+    public String method;
+
+    private ConfigurableApplicationContext context;
+    private SessionFactoryImplementor offlineSessionFactory;
+    private QueryLookupStrategy lookupStrategy;
+    private QueryPlanCompiler compiler;
+    private Class<?> repository;
+    private Method queryMethod;
+    private RepositoryMetadata metadata;
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    private final PropertiesBasedNamedQueries namedQueries = new PropertiesBasedNamedQueries(new Properties());
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StockLookupStrategy stock = new StockLookupStrategy();
+        context = BenchmarkContext.start(Map.of("spring.jpa.properties.hibernate.query.plan_cache_enabled", "false"),
+                ctx -> ctx.getBeanFactory().registerSingleton("stockLookupStrategy", stock));
+        lookupStrategy = stock.strategy;
+        offlineSessionFactory = OfflineSessionFactory.build("org.hibernate.dialect.PostgreSQLDialect");
+        compiler = new QueryPlanCompiler(offlineSessionFactory);
+
+        String[] parts = method.split("\\.");
+        repository = ClassUtils.resolveClassName(QueryPlanCompiler.REPOSITORY_PACKAGE + "." + parts[0], null);
+        queryMethod = Arrays.stream(ReflectionUtils.getDeclaredMethods(repository))
+                .filter(candidate -> candidate.getName().equals(parts[1]))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No such repository method " + method));
+        metadata = new DefaultRepositoryMetadata(repository);
+        if (compiler.compile(repository, queryMethod).isEmpty()) {
+            throw new IllegalArgumentException(method + " cannot be compiled ahead of time");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        offlineSessionFactory.close();
+        context.close();
+    }
+
+    @Benchmark
+    public RepositoryQuery resolveRepositoryQuery() {
+        return lookupStrategy.resolveQuery(queryMethod, metadata, projectionFactory, namedQueries);
+    }
+
+    @Benchmark
+    public Object translateToSql() {
+        return compiler.compile(repository, queryMethod);
+    }
+
+    /**
+     * Innermost decorator, captures Spring Data's own lookup strategy.
+     */
+    static class StockLookupStrategy implements QueryLookupStrategyDecorator, Ordered {
+
+        private volatile QueryLookupStrategy strategy;
+
+        @Override
+        public QueryLookupStrategy decorate(QueryLookupStrategy delegate, EntityManager entityManager) {
+            this.strategy = delegate;
+            return delegate;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
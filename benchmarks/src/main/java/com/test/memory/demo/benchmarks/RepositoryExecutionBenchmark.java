@@ -0,0 +1,118 @@
+package com.test.memory.demo.benchmarks;
+
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.CustomerOrderRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.PaymentRepository;
+import com.test.memory.demo.repositories.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution latency of representative repository methods against a seeded database, query plans
+ * already cached. The data volume is set with {@code -p users=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RepositoryExecutionBenchmark {
+
+    @Param("1000")
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private AppUserRepository appUsers;
+    private CustomerOrderRepository customerOrders;
+    private OrderItemRepository orderItems;
+    private ProductRepository products;
+    private PaymentRepository payments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        BenchmarkContext.seed(context, users);
+        appUsers = context.getBean(AppUserRepository.class);
+        customerOrders = context.getBean(CustomerOrderRepository.class);
+        orderItems = context.getBean(OrderItemRepository.class);
+        products = context.getBean(ProductRepository.class);
+        payments = context.getBean(PaymentRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object appUserFindComplexAppUserByUserId() {
+        return appUsers.findComplexAppUserByUserId(randomUserId());
+    }
+
+    @Benchmark
+    public Object appUserFindByNameContains() {
+        return appUsers.findByNameContains("user " + randomUserId());
+    }
+
+    @Benchmark
+    public Object customerOrderFindByUserId() {
+        return customerOrders.findByUserId(randomUserId());
+    }
+
+    @Benchmark
+    public Object orderItemCountByOrderId() {
+        return orderItems.countByOrderId(randomOrderId());
+    }
+
+    @Benchmark
+    public Object orderItemFindByProductNameLike() {
+        return orderItems.findByProductNameLike("product " + random(BenchmarkContext.PRODUCTS));
+    }
+
+    @Benchmark
+    public Object productFindByPriceRange() {
+        double min = random(90);
+        return products.findByPriceRange(min, min + 10);
+    }
+
+    @Benchmark
+    public Object paymentFindPaymentByIdNative() {
+        return payments.findPaymentByIdNative(randomOrderId());
+    }
+
+    @Benchmark
+    public Object paymentFindPaymentsByStatusNative() {
+        return payments.findPaymentsByStatusNative(
+                BenchmarkContext.PAYMENT_STATUSES.get(random(BenchmarkContext.PAYMENT_STATUSES.size()) - 1));
+    }
+
+    private long randomUserId() {
+        return random(users);
+    }
+
+    private long randomOrderId() {
+        return random(users * BenchmarkContext.ORDERS_PER_USER);
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound) + 1;
+    }
+}
@@ -0,0 +1,101 @@
+package com.test.memory.demo.benchmarks;
+
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.profile.UserProfileService;
+import com.test.memory.demo.repositories.AddressRepository;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.CustomerOrderRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.ReviewRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserProfileService#findProfile} issuing its five queries at once, against the same
+ * queries run one after another in one read-only transaction. Every prepared statement waits
+ * {@code roundTripMillis} first (0 is H2 as is).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserProfileBenchmark {
+
+    static final int USERS = 1_000;
+
+    @Param({"0", "1"})
+    public int roundTripMillis;
+
+    private ConfigurableApplicationContext context;
+    private UserProfileService profiles;
+    private AppUserRepository appUsers;
+    private AddressRepository addresses;
+    private CustomerOrderRepository customerOrders;
+    private OrderItemRepository orderItems;
+    private ReviewRepository reviews;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of(
+                        "demo.eligibility.enabled", "false",
+                        "demo.rollup.enabled", "false"),
+                BenchmarkContext.statementRoundTrip(roundTripMillis));
+        BenchmarkContext.seed(context, USERS);
+        profiles = context.getBean(UserProfileService.class);
+        appUsers = context.getBean(AppUserRepository.class);
+        addresses = context.getBean(AddressRepository.class);
+        customerOrders = context.getBean(CustomerOrderRepository.class);
+        orderItems = context.getBean(OrderItemRepository.class);
+        reviews = context.getBean(ReviewRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object concurrent() {
+        return profiles.findProfile(randomUserId());
+    }
+
+    @Benchmark
+    public Object sequential() {
+        long userId = randomUserId();
+        return readOnly.execute(status -> List.of(
+                appUsers.findById(userId).map(AppUser::getName),
+                addresses.findAddressesByUserId(userId),
+                customerOrders.findByUserId(userId).stream().map(CustomerOrder::getId).toList(),
+                orderItems.findByCustomerOrderUserId(userId),
+                reviews.findByUserId(userId)));
+    }
+
+    private static long randomUserId() {
+        return ThreadLocalRandom.current().nextInt(USERS) + 1;
+    }
+}
@@ -0,0 +1,25 @@
+#!/bin/sh
+# Runs the startup regression check for every version profile, e.g.
+#   ./run-matrix.sh
+#   ./run-matrix.sh boot-3.4.4 "boot-3.4.4 -Dhibernate.version=6.5.3.Final"
+# Install the application first: mvn install -DskipTests (from the project root).
+cd "$(dirname "$0")" || exit 1
+[ $# -eq 0 ] && set -- boot-3.3.5 boot-3.4.4
+
+failed=""
+for entry in "$@"; do
+    profile=${entry%% *}
+    extra=""
+    [ "$profile" != "$entry" ] && extra=${entry#* }
+    echo "=== $entry"
+    # shellcheck disable=SC2086
+    if ! ${MVN:-mvn} -B -q verify -P"$profile" $extra; then
+        failed="$failed\n  $entry"
+    fi
+    cp target/startup-metrics.properties "target/startup-metrics-$profile.properties" 2>/dev/null
+done
+
+if [ -n "$failed" ]; then
+    printf "Startup regressions in:%b\n" "$failed"
+    exit 1
+fi
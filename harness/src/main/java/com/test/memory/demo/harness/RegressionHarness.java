@@ -0,0 +1,163 @@
+package com.test.memory.demo.harness;
+
+import com.test.memory.demo.DemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Boots {@link DemoApplication} on in-memory H2 in PostgreSQL mode, captures {@link StartupMetrics}
+ * and compares them with the baseline file. Exits with status 1 when a metric grew by more than the
+ * relative {@code threshold.<metric>} configured in the baseline, which fails the Maven build.
+ * <p>
+ * Startup time is taken when the application is ready, the other metrics once the threads started by
+ * its ready listeners finished (such as the first build of a derived table), so that their work does
+ * not land in the retained heap by chance.
+ * <p>
+ * System properties: {@code harness.baseline}, {@code harness.output}, {@code harness.record}
+ * (write the baseline instead of comparing) and {@code harness.versions} (label stored with the
+ * results).
+ */
+public final class RegressionHarness {
+
+    private static final String THRESHOLD_PREFIX = "threshold.";
+    private static final double DEFAULT_THRESHOLD = 0.20;
+    private static final Duration READY_TASKS_TIMEOUT = Duration.ofMinutes(1);
+
+    private RegressionHarness() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path baselineFile = Path.of(System.getProperty("harness.baseline", "baseline.properties"));
+        Path outputFile = Path.of(System.getProperty("harness.output", "target/startup-metrics.properties"));
+        boolean record = Boolean.getBoolean("harness.record");
+        String versions = System.getProperty("harness.versions", "unknown");
+
+        StartupMetrics metrics;
+        ReadyTasks readyTasks = new ReadyTasks();
+        try (ConfigurableApplicationContext ignored = boot(args, readyTasks)) {
+            long startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            readyTasks.await(READY_TASKS_TIMEOUT);
+            metrics = StartupMetrics.capture(startupMillis);
+        }
+
+        Properties baseline = load(baselineFile);
+        Properties results = new Properties();
+        results.setProperty("versions", versions);
+        metrics.asMap().forEach((name, value) -> results.setProperty(name, Long.toString(value)));
+        store(outputFile, results, "Startup metrics");
+        if (record) {
+            baseline.putAll(results);
+            store(baselineFile, baseline, "Startup baseline, compared by the harness with relative thresholds");
+            System.out.println("Recorded baseline " + versions + " " + metrics.asMap());
+            return;
+        }
+
+        List<String> regressions = compare(metrics, baseline);
+        System.out.printf("%s vs baseline %s%n", versions, baseline.getProperty("versions"));
+        if (!regressions.isEmpty()) {
+            regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+            System.exit(1);
+        }
+        System.out.println("No startup regression");
+    }
+
+    static List<String> compare(StartupMetrics metrics, Properties baseline) {
+        Map<String, Long> expected = StartupMetrics.from(baseline).asMap();
+        List<String> regressions = new ArrayList<>();
+        metrics.asMap().forEach((name, actual) -> {
+            long reference = expected.get(name);
+            double threshold = Double.parseDouble(
+                    baseline.getProperty(THRESHOLD_PREFIX + name, Double.toString(DEFAULT_THRESHOLD)));
+            double change = reference == 0 ? 0 : (double) (actual - reference) / reference;
+            String line = String.format("%-18s %,15d -> %,15d (%+.1f%%, limit +%.0f%%)",
+                    name, reference, actual, change * 100, threshold * 100);
+            System.out.println("  " + line);
+            if (change > threshold) {
+                regressions.add(line);
+            }
+        });
+        return regressions;
+    }
+
+    private static ConfigurableApplicationContext boot(String[] args, ReadyTasks readyTasks) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:harness;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .listeners(readyTasks)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        } else if (!Boolean.getBoolean("harness.record")) {
+            throw new IllegalStateException("No baseline at " + file + ", record one with -Dharness.record=true");
+        }
+        return properties;
+    }
+
+    private static void store(Path file, Properties properties, String comment) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, comment);
+        }
+    }
+
+    /**
+     * Remembers the threads alive before the other ready listeners run, to wait for the ones they start.
+     */
+    private static final class ReadyTasks implements ApplicationListener<ApplicationReadyEvent>, Ordered {
+
+        private Set<Thread> before = Set.of();
+
+        @Override
+        public void onApplicationEvent(ApplicationReadyEvent event) {
+            before = Set.copyOf(Thread.getAllStackTraces().keySet());
+        }
+
+        @Override
+        public int getOrder() {
+            return HIGHEST_PRECEDENCE;
+        }
+
+        void await(Duration timeout) throws InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (!before.contains(thread)) {
+                    thread.join(Math.max(1, Duration.ofNanos(deadline - System.nanoTime()).toMillis()));
+                    if (thread.isAlive()) {
+                        System.out.println("Measuring while " + thread.getName() + " still runs");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.test.memory.demo.harness;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Process metrics taken once the application is ready.
+ *
+ * @param startupMillis     JVM uptime when the application reported ready
+ * @param peakHeapBytes     sum of the peak usage of all heap pools during startup
+ * @param retainedHeapBytes heap in use after forced full collections
+ * @param loadedClasses     classes currently loaded
+ * @param metaspaceBytes    metaspace in use
+ */
+public record StartupMetrics(long startupMillis, long peakHeapBytes, long retainedHeapBytes, long loadedClasses,
+                             long metaspaceBytes) {
+
+    private static final int GC_ROUNDS = 3;
+
+    static StartupMetrics capture(long startupMillis) {
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        long metaspace = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getName().equals("Metaspace"))
+                .map(MemoryPoolMXBean::getUsage)
+                .mapToLong(MemoryUsage::getUsed)
+                .sum();
+        return new StartupMetrics(startupMillis, peakHeap,
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(),
+                metaspace);
+    }
+
+    static StartupMetrics from(Properties properties) {
+        return new StartupMetrics(
+                Long.parseLong(properties.getProperty("startupMillis")),
+                Long.parseLong(properties.getProperty("peakHeapBytes")),
+                Long.parseLong(properties.getProperty("retainedHeapBytes")),
+                Long.parseLong(properties.getProperty("loadedClasses")),
+                Long.parseLong(properties.getProperty("metaspaceBytes")));
+    }
+
+    Map<String, Long> asMap() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("startupMillis", startupMillis);
+        metrics.put("peakHeapBytes", peakHeapBytes);
+        metrics.put("retainedHeapBytes", retainedHeapBytes);
+        metrics.put("loadedClasses", loadedClasses);
+        metrics.put("metaspaceBytes", metaspaceBytes);
+        return metrics;
+    }
+}
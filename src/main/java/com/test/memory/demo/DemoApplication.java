@@ -1,5 +1,6 @@
 package com.test.memory.demo;
 
+import com.test.memory.demo.query.DecoratingJpaRepositoryFactoryBean;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
@@ -7,6 +8,7 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
+@EnableJpaRepositories(repositoryFactoryBeanClass = DecoratingJpaRepositoryFactoryBean.class)
 public class DemoApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,80 @@
+package com.test.memory.demo.async;
+
+import com.test.memory.demo.profile.UserProfileService;
+import com.test.memory.demo.repositories.AddressRepository;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.CustomerOrderRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.ReviewRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous repository calls on virtual threads, see {@link AsyncQueryExecutor}, and the
+ * {@link UserProfileService} built on them; disabled with {@code demo.async.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.async", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AsyncConfiguration {
+
+    private static final String THREAD_NAME_PREFIX = "repository-";
+
+    // A max-concurrency of 0 takes the size of the connection pool
+    @Bean
+    AsyncQueryExecutor asyncQueryExecutor(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                          @Value("${demo.async.max-concurrency:0}") int maxConcurrency,
+                                          @Value("${demo.async.acquire-timeout:30s}") Duration acquireTimeout,
+                                          @Value("${demo.async.max-threads:200}") int maxThreads,
+                                          @Value("${demo.async.queue-capacity:200}") int queueCapacity)
+            throws SQLException {
+        int concurrency = maxConcurrency > 0 ? maxConcurrency : poolSize(dataSource);
+        return new AsyncQueryExecutor(executor(maxThreads, queueCapacity), concurrency, acquireTimeout,
+                transactionManager);
+    }
+
+    @Bean
+    UserProfileService userProfileService(AsyncQueryExecutor asyncQueryExecutor, AppUserRepository appUserRepository,
+                                          AddressRepository addressRepository,
+                                          CustomerOrderRepository customerOrderRepository,
+                                          OrderItemRepository orderItemRepository, ReviewRepository reviewRepository,
+                                          @Value("${demo.profile.deadline:2s}") Duration deadline) {
+        return new UserProfileService(asyncQueryExecutor, appUserRepository, addressRepository,
+                customerOrderRepository, orderItemRepository, reviewRepository, deadline);
+    }
+
+    // On platform threads each call holds a thread while it waits for its permit, as on virtual
+    // threads, but at most maxThreads of them: further calls wait in the queue for a thread, and
+    // calls beyond its capacity are rejected at once. Idle threads end after a minute.
+    private static Executor executor(int maxThreads, int queueCapacity) {
+        if (JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            return new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX);
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(THREAD_NAME_PREFIX),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static int poolSize(DataSource dataSource) throws SQLException {
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        }
+        throw new IllegalStateException("Set demo.async.max-concurrency, the connection pool size is unknown");
+    }
+}
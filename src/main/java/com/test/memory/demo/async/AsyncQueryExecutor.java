@@ -0,0 +1,164 @@
+package com.test.memory.demo.async;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs repository calls off the calling thread and returns their result as a
+ * {@link CompletableFuture}, e.g.
+ * {@code async.supply(() -> appUserRepository.findUsersByCategory("Books"))}.
+ * <p>
+ * Each call runs in its own transaction, read-only for {@link #supply}, so the repository calls of
+ * one supplier share a single connection and lazy associations can be initialized inside it. At
+ * most {@code maxConcurrency} calls run at once, by default the size of the connection pool: the
+ * others wait for a permit on their own thread rather than in the pool, and fail with a
+ * {@link TaskRejectedException} after {@code acquireTimeout}. On Java 21 every call gets a virtual
+ * thread, so waiting costs no platform thread; on older runtimes each waiting call holds a thread of
+ * a bounded pool, and a call the pool rejects fails at once with a {@link TaskRejectedException}.
+ * <p>
+ * A supplier must not wait for another call of this executor: with every permit taken, the two
+ * would wait for each other until the timeout.
+ */
+public class AsyncQueryExecutor implements MeterBinder, DisposableBean {
+
+    private final Executor executor;
+    private final PlatformTransactionManager transactionManager;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final Duration acquireTimeout;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate readWrite;
+
+    public AsyncQueryExecutor(Executor executor, int maxConcurrency, Duration acquireTimeout,
+                              PlatformTransactionManager transactionManager) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.executor = executor;
+        this.transactionManager = transactionManager;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeout = acquireTimeout;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Runs the query in a read-only transaction.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return submit(readOnly, null, query);
+    }
+
+    /**
+     * Runs the query in a read-only transaction whose timeout is the time left until the deadline
+     * when the query starts, rounded up to whole seconds: every statement of the query gets that
+     * as its JDBC query timeout, so the database cancels a query still running at the deadline.
+     * A query that has not started by the deadline fails with a {@link QueryTimeoutException}
+     * without taking a connection.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> query, Instant deadline) {
+        return submit(readOnly, deadline, query);
+    }
+
+    /**
+     * Runs the call in a read-write transaction, committed before the future completes.
+     */
+    public <T> CompletableFuture<T> supplyInTransaction(Supplier<T> call) {
+        return submit(readWrite, null, call);
+    }
+
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    // A call cancelled (or timed out by the caller) before it got its permit never takes a connection
+    private <T> CompletableFuture<T> submit(TransactionTemplate transaction, Instant deadline, Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            execute(transaction, deadline, call, result);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new TaskRejectedException("Repository call rejected, "
+                    + maxConcurrency + " running and the queue is full", e));
+        }
+        return result;
+    }
+
+    private <T> void execute(TransactionTemplate transaction, Instant deadline, Supplier<T> call,
+                             CompletableFuture<T> result) {
+        executor.execute(() -> {
+            try {
+                acquire();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            try {
+                if (!result.isDone()) {
+                    TransactionTemplate template = deadline == null ? transaction : withTimeout(transaction, deadline);
+                    result.complete(template.execute(status -> call.get()));
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private TransactionTemplate withTimeout(TransactionTemplate transaction, Instant deadline) {
+        long remainingMillis = Duration.between(Instant.now(), deadline).toMillis();
+        if (remainingMillis <= 0) {
+            throw new QueryTimeoutException("Deadline " + deadline + " passed before the repository call started");
+        }
+        TransactionTemplate template = new TransactionTemplate(transactionManager, transaction);
+        template.setTimeout((int) Math.min(Integer.MAX_VALUE, (remainingMillis + 999) / 1000));
+        return template;
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new TaskRejectedException("No connection permit within " + acquireTimeout + ", "
+                        + maxConcurrency + " repository calls running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaskRejectedException("Interrupted waiting for a connection permit", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("demo.async.calls.active", permits, p -> maxConcurrency - p.availablePermits())
+                .description("Repository calls holding a permit")
+                .register(registry);
+        Gauge.builder("demo.async.calls.waiting", permits, Semaphore::getQueueLength)
+                .description("Repository calls waiting for a permit")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+    }
+}
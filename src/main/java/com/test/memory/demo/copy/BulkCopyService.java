@@ -0,0 +1,163 @@
+package com.test.memory.demo.copy;
+
+import com.test.memory.demo.events.EntityChange;
+import com.test.memory.demo.events.EntityChangeListener;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.Generator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Moves entities in and out of their table with PostgreSQL {@code COPY ... FROM STDIN} and
+ * {@code COPY ... TO STDOUT} in CSV, the columns taken from the Hibernate mapping (see
+ * {@link CopyTableMapping}). Meant for the large tables: {@code customer_order},
+ * {@code order_item} and {@code payment}.
+ * <p>
+ * Both directions run in constant memory and are paced by the slower side: the loader collects
+ * rows in a buffer of about {@value #BUFFER_SIZE} bytes and sends each full buffer as one
+ * {@code COPY} before pulling further entities, the write blocking while the server is behind; the
+ * exporter hands each row to the consumer before reading the next one, so a slow consumer stops the
+ * server sending. Loaded entities are not
+ * managed by the session and exported ones are detached, their associations only carry the id.
+ */
+@Service
+public class BulkCopyService {
+
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final EntityManager entityManager;
+    private final ObjectProvider<EntityChangeListener> listeners;
+    private final Map<Class<?>, CopyTableMapping> mappings = new ConcurrentHashMap<>();
+
+    public BulkCopyService(EntityManager entityManager, ObjectProvider<EntityChangeListener> listeners) {
+        this.entityManager = entityManager;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Inserts the entities and returns their number. Entities without an id get one from their
+     * sequence, as if they had been persisted. The session is flushed first so that rows it still
+     * holds can be referenced; the stream is consumed but not closed.
+     * <p>
+     * {@link EntityChangeListener}s get one {@link EntityChange.Type#BULK} change for the table:
+     * cached query results are dropped on commit, user eligibility needs a rebuild.
+     */
+    @Transactional
+    public <T> long load(Class<T> type, Stream<? extends T> entities) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = persister(session, type);
+        CopyTableMapping mapping = mapping(type, persister);
+        session.flush();
+        String sql = "COPY " + mapping.table() + " (" + mapping.columnList() + ") FROM STDIN (FORMAT csv)";
+        StringBuilder rows = new StringBuilder(BUFFER_SIZE + 1_024);
+        long count = 0;
+        for (Iterator<? extends T> it = entities.iterator(); it.hasNext(); ) {
+            T entity = it.next();
+            // Sequence calls go between two COPY statements, the connection runs nothing else during one
+            assignId(persister, entity, session);
+            mapping.appendRow(entity, session, rows);
+            count++;
+            if (rows.length() >= BUFFER_SIZE) {
+                copyIn(session, sql, rows);
+            }
+        }
+        copyIn(session, sql, rows);
+        EntityChange change = EntityChange.bulk(persister, session.asEventSource());
+        listeners.orderedStream().forEach(listener -> listener.onChange(change));
+        return count;
+    }
+
+    /**
+     * Hands every row of the entity's table to {@code consumer}, in no particular order, and
+     * returns their number. Rows written by the current session and not flushed yet are not
+     * included.
+     */
+    @Transactional(readOnly = true)
+    public <T> long export(Class<T> type, Consumer<? super T> consumer) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        CopyTableMapping mapping = mapping(type, persister(session, type));
+        return session.doReturningWork(connection -> {
+            CopyOut copy = copyManager(connection).copyOut(
+                    "COPY " + mapping.table() + " (" + mapping.columnList() + ") TO STDOUT (FORMAT csv)");
+            try {
+                long exported = 0;
+                byte[] row;
+                while ((row = copy.readFromCopy()) != null) {
+                    consumer.accept(type.cast(mapping.readRow(new String(row, StandardCharsets.UTF_8), session)));
+                    exported++;
+                }
+                return exported;
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        });
+    }
+
+    private CopyTableMapping mapping(Class<?> type, EntityPersister persister) {
+        return mappings.computeIfAbsent(type, key -> new CopyTableMapping(persister));
+    }
+
+    private static EntityPersister persister(SessionImplementor session, Class<?> type) {
+        return session.getFactory().getMappingMetamodel().getEntityDescriptor(type);
+    }
+
+    private static void assignId(EntityPersister persister, Object entity, SharedSessionContractImplementor session) {
+        if (persister.getIdentifier(entity, session) != null) {
+            return;
+        }
+        Generator generator = persister.getGenerator();
+        if (!(generator instanceof BeforeExecutionGenerator beforeExecution) || generator.generatedOnExecution()) {
+            throw new IllegalArgumentException(persister.getEntityName()
+                    + " ids are generated by the database on insert, set them before loading");
+        }
+        persister.setIdentifier(entity, beforeExecution.generate(session, entity, null, EventType.INSERT), session);
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            throw new IllegalStateException("COPY needs a PostgreSQL connection, got "
+                    + connection.getMetaData().getDatabaseProductName());
+        }
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    private static void copyIn(SessionImplementor session, String sql, StringBuilder rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        rows.setLength(0);
+        session.doWork(connection -> {
+            CopyIn copy = copyManager(connection).copyIn(sql);
+            try {
+                copy.writeToCopy(bytes, 0, bytes.length);
+                copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,202 @@
+package com.test.memory.demo.copy;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.BasicValuedModelPart;
+import org.hibernate.metamodel.mapping.EntityIdentifierMapping;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.ForeignKeyDescriptor;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.metamodel.mapping.internal.ToOneAttributeMapping;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.descriptor.java.JavaType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columns of an entity table as Hibernate maps them: the identifier, the basic attributes and the
+ * foreign keys of the owning side of to-one associations, with their conversion from and to the
+ * text of a {@code COPY} row. Associations are written as the associated id and read back as an
+ * instance of the associated entity that only has its id set.
+ */
+final class CopyTableMapping {
+
+    private final EntityPersister persister;
+    private final String table;
+    private final List<Column> columns = new ArrayList<>();
+
+    CopyTableMapping(EntityPersister persister) {
+        if (!(persister instanceof AbstractEntityPersister entityPersister) || persister.getSuperMappingType() != null
+                || !persister.getSubMappingTypes().isEmpty()) {
+            throw new IllegalArgumentException(persister.getEntityName() + " is not mapped to a single table");
+        }
+        if (persister.canWriteToCache()) {
+            throw new IllegalArgumentException(persister.getEntityName()
+                    + " is in the second-level cache, COPY would bypass it");
+        }
+        this.persister = persister;
+        this.table = entityPersister.getTableName();
+        EntityIdentifierMapping identifier = persister.getIdentifierMapping();
+        if (!(identifier instanceof BasicValuedModelPart basicIdentifier)) {
+            throw new IllegalArgumentException(persister.getEntityName() + " has a composite identifier");
+        }
+        columns.add(new Column(basicIdentifier.getSelectionExpression(), identifier.getJavaType(), null));
+        persister.forEachAttributeMapping(attribute -> {
+            if (attribute instanceof PluralAttributeMapping) {
+                return;
+            }
+            if (attribute instanceof ToOneAttributeMapping toOne) {
+                if (toOne.getSideNature() == ForeignKeyDescriptor.Nature.KEY) {
+                    columns.add(new Column(selection(toOne.getForeignKeyDescriptor().getKeyPart()),
+                            toOne.getAssociatedEntityMappingType().getIdentifierMapping().getJavaType(), attribute));
+                }
+                return;
+            }
+            if (!(attribute instanceof BasicValuedModelPart basic)) {
+                throw new IllegalArgumentException(persister.getEntityName() + "." + attribute.getAttributeName()
+                        + " is neither a basic attribute nor a to-one association");
+            }
+            columns.add(new Column(basic.getSelectionExpression(), attribute.getJavaType(), attribute));
+        });
+    }
+
+    String table() {
+        return table;
+    }
+
+    String columnList() {
+        return String.join(", ", columns.stream().map(Column::name).toList());
+    }
+
+    /**
+     * The row of {@code entity} as CSV, followed by a newline. {@code null} is an unquoted empty
+     * field, strings are always quoted so that an empty string stays distinct from it.
+     */
+    void appendRow(Object entity, SharedSessionContractImplementor session, StringBuilder row) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            Object value = value(columns.get(i), entity, session);
+            if (value instanceof String text) {
+                row.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else if (value != null) {
+                row.append(columns.get(i).format(value));
+            }
+        }
+        row.append('\n');
+    }
+
+    /**
+     * A new, detached entity with the values of a CSV row read from {@code COPY ... TO STDOUT}.
+     */
+    Object readRow(String row, SharedSessionContractImplementor session) {
+        List<String> fields = CsvFields.split(row);
+        if (fields.size() != columns.size()) {
+            throw new IllegalStateException("Expected " + columns.size() + " columns in " + table + ", got " + fields.size());
+        }
+        Object entity = instantiate(persister, session);
+        persister.getIdentifierMapping().setIdentifier(entity, parse(columns.get(0), fields.get(0)), session);
+        for (int i = 1; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            Object value = parse(column, fields.get(i));
+            if (value != null && column.attribute() instanceof ToOneAttributeMapping toOne) {
+                EntityMappingType associated = toOne.getAssociatedEntityMappingType();
+                Object reference = instantiate(associated.getEntityPersister(), session);
+                associated.getIdentifierMapping().setIdentifier(reference, value, session);
+                value = reference;
+            }
+            column.attribute().getPropertyAccess().getSetter().set(entity, value);
+        }
+        return entity;
+    }
+
+    private Object value(Column column, Object entity, SharedSessionContractImplementor session) {
+        if (column.attribute() == null) {
+            return persister.getIdentifier(entity, session);
+        }
+        Object value = column.attribute().getPropertyAccess().getGetter().get(entity);
+        if (value != null && column.attribute() instanceof ToOneAttributeMapping toOne) {
+            return toOne.getAssociatedEntityMappingType().getIdentifierMapping().getIdentifier(value);
+        }
+        return value;
+    }
+
+    private static Object parse(Column column, String field) {
+        if (field == null) {
+            return null;
+        }
+        if (column.javaType().getJavaTypeClass() == Boolean.class) {
+            // PostgreSQL writes booleans as t and f
+            return field.equals("t") || field.equals("true");
+        }
+        return column.javaType().fromString(field);
+    }
+
+    private static Object instantiate(EntityPersister persister, SharedSessionContractImplementor session) {
+        return persister.getRepresentationStrategy().getInstantiator().instantiate(session.getFactory());
+    }
+
+    private static String selection(ModelPart keyPart) {
+        if (!(keyPart instanceof BasicValuedModelPart basic)) {
+            throw new IllegalArgumentException("Composite foreign key " + keyPart.getNavigableRole());
+        }
+        return basic.getSelectionExpression();
+    }
+
+    private record Column(String name, JavaType<?> javaType, AttributeMapping attribute) {
+
+        @SuppressWarnings("unchecked")
+        String format(Object value) {
+            return ((JavaType<Object>) javaType).toString(value);
+        }
+    }
+
+    /**
+     * Splits one CSV row as written by PostgreSQL: an unquoted empty field is {@code null}, quotes
+     * are doubled inside quoted fields.
+     */
+    static final class CsvFields {
+
+        private CsvFields() {
+        }
+
+        static List<String> split(String row) {
+            int end = row.endsWith("\n") ? row.length() - 1 : row.length();
+            List<String> fields = new ArrayList<>();
+            int i = 0;
+            while (true) {
+                if (i < end && row.charAt(i) == '"') {
+                    StringBuilder field = new StringBuilder();
+                    i++;
+                    while (true) {
+                        char c = row.charAt(i++);
+                        if (c == '"') {
+                            if (i < end && row.charAt(i) == '"') {
+                                field.append('"');
+                                i++;
+                            } else {
+                                break;
+                            }
+                        } else {
+                            field.append(c);
+                        }
+                    }
+                    fields.add(field.toString());
+                } else {
+                    int comma = row.indexOf(',', i);
+                    int fieldEnd = comma < 0 || comma > end ? end : comma;
+                    fields.add(fieldEnd == i ? null : row.substring(i, fieldEnd));
+                    i = fieldEnd;
+                }
+                if (i >= end) {
+                    return fields;
+                }
+                i++; // the comma
+            }
+        }
+    }
+}
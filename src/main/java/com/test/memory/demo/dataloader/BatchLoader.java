@@ -0,0 +1,127 @@
+package com.test.memory.demo.dataloader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Coalesces lookups by id into {@code WHERE id IN (...)} queries. {@link #load} only records the id
+ * and returns a future; {@link #dispatch} (or any {@link #get}) loads every recorded id with one
+ * query per {@code maxBatchSize} ids. Results, including ids without an entity, are cached for the
+ * life of the loader, so one id is queried at most once.
+ * <p>
+ * Not thread-safe: a loader belongs to one request, see {@link EntityLoaders}.
+ *
+ * @param <T> the entity type
+ */
+public class BatchLoader<T> {
+
+    private final Function<List<Long>, List<T>> query;
+    private final Function<T, Long> idOf;
+    private final int maxBatchSize;
+    private final Map<Long, CompletableFuture<T>> results = new HashMap<>();
+    private final Set<Long> pending = new LinkedHashSet<>();
+    private int queries;
+
+    /**
+     * @param query returns the entities found with the given ids, e.g. {@code repository::findAllById}
+     * @param idOf  the id of an entity
+     */
+    public BatchLoader(Function<List<Long>, List<T>> query, Function<T, Long> idOf, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.query = query;
+        this.idOf = idOf;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Records the id for the next dispatch; the future completes with {@code null} when there is no
+     * entity with this id.
+     */
+    public CompletableFuture<T> load(Long id) {
+        return results.computeIfAbsent(id, key -> {
+            pending.add(key);
+            return new CompletableFuture<>();
+        });
+    }
+
+    /**
+     * Loads the pending ids, at most {@code maxBatchSize} per query.
+     */
+    public void dispatch() {
+        while (!pending.isEmpty()) {
+            List<Long> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+            for (Iterator<Long> it = pending.iterator(); it.hasNext() && batch.size() < maxBatchSize; ) {
+                batch.add(it.next());
+                it.remove();
+            }
+            complete(batch);
+        }
+    }
+
+    /**
+     * Returns the entity, or {@code null}, after dispatching every pending id with it.
+     */
+    public T get(Long id) {
+        CompletableFuture<T> result = load(id);
+        dispatch();
+        return result.join();
+    }
+
+    /**
+     * Returns the entities found, in the order of the ids, after dispatching every pending id with them.
+     */
+    public Map<Long, T> getAll(Collection<Long> ids) {
+        Map<Long, CompletableFuture<T>> loading = new LinkedHashMap<>();
+        for (Long id : ids) {
+            loading.put(id, load(id));
+        }
+        dispatch();
+        Map<Long, T> found = new LinkedHashMap<>();
+        loading.forEach((id, result) -> {
+            T entity = result.join();
+            if (entity != null) {
+                found.put(id, entity);
+            }
+        });
+        return found;
+    }
+
+    /**
+     * The number of queries issued so far.
+     */
+    public int queries() {
+        return queries;
+    }
+
+    // A failed batch is forgotten so that its ids are queried again on the next load
+    private void complete(List<Long> batch) {
+        queries++;
+        List<T> entities;
+        try {
+            entities = query.apply(batch);
+        } catch (RuntimeException e) {
+            for (Long id : batch) {
+                results.remove(id).completeExceptionally(e);
+            }
+            throw e;
+        }
+        Map<Long, T> byId = new HashMap<>(entities.size() * 2);
+        for (T entity : entities) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        for (Long id : batch) {
+            results.get(id).complete(byId.get(id));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.test.memory.demo.dataloader;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * One {@link EntityLoaders} per web request, injected as a scoped proxy; disabled with
+ * {@code demo.dataloader.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication
+@ConditionalOnProperty(prefix = "demo.dataloader", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DataLoaderConfiguration {
+
+    @Bean
+    @RequestScope
+    EntityLoaders entityLoaders(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                @Value("${demo.dataloader.max-batch-size:500}") int maxBatchSize) {
+        return new EntityLoaders(entityManager, transactionManager, maxBatchSize);
+    }
+}
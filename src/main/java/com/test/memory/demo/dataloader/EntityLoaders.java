@@ -0,0 +1,75 @@
+package com.test.memory.demo.dataloader;
+
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.Product;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The {@link BatchLoader}s of one request, to use instead of {@code findById} where a request
+ * resolves many products, users or orders by id: record the ids with {@code load}, then the first
+ * {@code get} (or {@link #dispatch}) loads them with Hibernate's multi-load, one {@code IN} query
+ * per entity type and {@code maxBatchSize} ids. Unlike {@code findAllById}, entities already in the
+ * persistence context or the second-level cache are taken from there, only the misses are queried.
+ * A batch joins the current transaction, or starts one on the request's entity manager.
+ * <p>
+ * Declared request-scoped by {@link DataLoaderConfiguration}; jobs and other code outside a web
+ * request create their own instance.
+ */
+public class EntityLoaders {
+
+    private final BatchLoader<Product> products;
+    private final BatchLoader<AppUser> users;
+    private final BatchLoader<CustomerOrder> orders;
+
+    public EntityLoaders(EntityManager entityManager, PlatformTransactionManager transactionManager, int maxBatchSize) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        this.products = loader(Product.class, Product::getId, entityManager, transaction, maxBatchSize);
+        this.users = loader(AppUser.class, AppUser::getId, entityManager, transaction, maxBatchSize);
+        this.orders = loader(CustomerOrder.class, CustomerOrder::getId, entityManager, transaction, maxBatchSize);
+    }
+
+    // One query per batch; the second-level cache is only checked with an explicit cache mode, and
+    // multi-load returns null for the ids without an entity
+    private static <T> BatchLoader<T> loader(Class<T> type, Function<T, Long> idOf, EntityManager entityManager,
+                                             TransactionTemplate transaction, int maxBatchSize) {
+        return new BatchLoader<>(ids -> transaction.execute(status -> entityManager.unwrap(Session.class)
+                .byMultipleIds(type)
+                .enableSessionCheck(true)
+                .with(CacheMode.NORMAL)
+                .enableOrderedReturn(false)
+                .withBatchSize(ids.size())
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList()), idOf, maxBatchSize);
+    }
+
+    public BatchLoader<Product> products() {
+        return products;
+    }
+
+    public BatchLoader<AppUser> users() {
+        return users;
+    }
+
+    public BatchLoader<CustomerOrder> orders() {
+        return orders;
+    }
+
+    /**
+     * Loads the pending ids of every entity type.
+     */
+    public void dispatch() {
+        products.dispatch();
+        users.dispatch();
+        orders.dispatch();
+    }
+}
@@ -0,0 +1,193 @@
+package com.test.memory.demo.diagnostics;
+
+import com.test.memory.demo.query.RepositoryMethodContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hands out connections whose statements report every execution to {@link SqlInstrumentation}:
+ * the time spent in {@code execute*}, then the rows read from the result set and the time spent
+ * in {@code ResultSet.next()} (the JDBC fetch), attributed to the {@link RepositoryMethodContext}
+ * of the calling thread. {@code unwrap} reaches the pool and driver objects as before.
+ */
+final class InstrumentedDataSource extends DelegatingDataSource {
+
+    static final String NO_METHOD = "none";
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("prepareStatement", "prepareCall", "createStatement");
+    private static final Set<String> EXECUTE_METHODS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final ObjectProvider<SqlInstrumentation> instrumentation;
+
+    InstrumentedDataSource(DataSource target, ObjectProvider<SqlInstrumentation> instrumentation) {
+        super(target);
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private Connection connection(Connection target) {
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            Object result = delegate(proxy, target, method, args);
+            if (result instanceof Statement statement && STATEMENT_FACTORIES.contains(method.getName())) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return proxy(type, statement, new StatementHandler(statement, sql));
+            }
+            return result;
+        });
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        // Latest setter call per parameter index (1-based, at index - 1)
+        private final List<SqlExecution.ParameterBinding> parameters = new ArrayList<>();
+        private ResultSetHandler open;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (preparedSql != null && name.startsWith("set") && args != null && args.length > 1
+                    && method.getParameterTypes()[0] == int.class
+                    && (method.getDeclaringClass() == PreparedStatement.class || method.getDeclaringClass() == CallableStatement.class)) {
+                int index = (Integer) args[0];
+                while (parameters.size() < index) {
+                    parameters.add(null);
+                }
+                parameters.set(index - 1, new SqlExecution.ParameterBinding(method, args.clone()));
+            } else if (name.equals("clearParameters") || name.equals("addBatch")) {
+                parameters.clear();
+            } else if (name.equals("close")) {
+                finishOpen();
+            } else if (EXECUTE_METHODS.contains(name)) {
+                finishOpen();
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                long start = System.nanoTime();
+                Object result = delegate(proxy, target, method, args);
+                String repositoryMethod = RepositoryMethodContext.current();
+                SqlExecution execution = new SqlExecution(repositoryMethod == null ? NO_METHOD : repositoryMethod, sql,
+                        new ArrayList<>(parameters), System.nanoTime() - start);
+                if (result instanceof ResultSet resultSet) {
+                    return resultSet(resultSet, execution);
+                }
+                if (name.equals("execute") && Boolean.TRUE.equals(result)) {
+                    // Recorded once the result set fetched with getResultSet() is closed
+                    open = new ResultSetHandler(null, execution);
+                } else {
+                    instrumentation.getObject().record(execution);
+                }
+                return result;
+            } else if (name.equals("getResultSet") && open != null && open.target == null) {
+                ResultSet resultSet = (ResultSet) delegate(proxy, target, method, args);
+                return resultSet == null ? null : resultSet(resultSet, open.execution);
+            }
+            return delegate(proxy, target, method, args);
+        }
+
+        private ResultSet resultSet(ResultSet resultSet, SqlExecution execution) {
+            open = new ResultSetHandler(resultSet, execution);
+            return proxy(ResultSet.class, resultSet, open);
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish();
+                open = null;
+            }
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final SqlExecution execution;
+        private boolean finished;
+
+        ResultSetHandler(ResultSet target, SqlExecution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                long start = System.nanoTime();
+                Object hasRow = delegate(proxy, target, method, args);
+                execution.fetchNanos += System.nanoTime() - start;
+                if (Boolean.TRUE.equals(hasRow)) {
+                    execution.rows++;
+                }
+                return hasRow;
+            }
+            if (name.equals("close")) {
+                finish();
+            }
+            return delegate(proxy, target, method, args);
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                instrumentation.getObject().record(execution);
+            }
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object delegate(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+            return proxy;
+        }
+        if (name.equals("isWrapperFor") && ((Class<?>) args[0]).isInstance(proxy)) {
+            return true;
+        }
+        if (name.equals("equals")) {
+            return proxy == args[0];
+        }
+        if (name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
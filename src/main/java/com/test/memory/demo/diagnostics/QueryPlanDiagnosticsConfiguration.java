@@ -0,0 +1,28 @@
+package com.test.memory.demo.diagnostics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Startup diagnostics mode, enabled with {@code demo.diagnostics.query-plans.enabled=true}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.diagnostics.query-plans", name = "enabled", havingValue = "true")
+public class QueryPlanDiagnosticsConfiguration {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    static QueryPlanProfiler queryPlanProfiler(
+            @Value("${demo.diagnostics.query-plans.measure-retained-heap:true}") boolean measureRetainedHeap) {
+        return new QueryPlanProfiler(measureRetainedHeap);
+    }
+
+    @Bean
+    QueryPlanReportEndpoint queryPlanReportEndpoint(QueryPlanProfiler profiler) {
+        return new QueryPlanReportEndpoint(profiler);
+    }
+}
@@ -0,0 +1,21 @@
+package com.test.memory.demo.diagnostics;
+
+/**
+ * Cost of building the query plan for a single repository method.
+ *
+ * @param repository     simple name of the repository interface
+ * @param method         repository method name
+ * @param nativeQuery    whether the method is backed by a native SQL query
+ * @param compileMillis  wall-clock time spent resolving, parsing and validating the query
+ * @param allocatedBytes bytes allocated by the compiling thread
+ * @param retainedBytes  growth of the live heap after compilation, {@code -1} when not measured
+ * @param parseTreeNodes nodes in the ANTLR parse tree of the HQL (not the SQM or SQL AST),
+ *                       {@code -1} for native queries
+ */
+public record QueryPlanProfile(String repository, String method, boolean nativeQuery, double compileMillis,
+        long allocatedBytes, long retainedBytes, int parseTreeNodes) {
+
+    public String qualifiedName() {
+        return repository + "." + method;
+    }
+}
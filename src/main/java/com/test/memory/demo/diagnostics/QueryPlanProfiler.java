@@ -0,0 +1,132 @@
+package com.test.memory.demo.diagnostics;
+
+import com.test.memory.demo.query.QueryLookupStrategyDecorator;
+import jakarta.persistence.EntityManager;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.hibernate.grammars.hql.HqlParser;
+import org.hibernate.query.hql.internal.HqlParseTreeBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.RepositoryQuery;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Records, for every repository query method, how much time and heap it costs to build its
+ * query plan. Sits directly around the stock lookup strategy, ordered before every other
+ * decorator, so only the work done by Spring Data and Hibernate for that one method is attributed
+ * to it. Methods served by {@code PrecompiledQueryLookup} never reach the stock strategy and are
+ * not profiled.
+ */
+public class QueryPlanProfiler implements QueryLookupStrategyDecorator {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanProfiler.class);
+
+    // Spring Data specific LIKE shorthand (%:param%) that the HQL grammar does not understand.
+    private static final Pattern LIKE_SHORTHAND = Pattern.compile("%?(:\\w+)%?");
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final Map<String, QueryPlanProfile> profiles = new ConcurrentHashMap<>();
+    private final boolean measureRetainedHeap;
+
+    public QueryPlanProfiler(boolean measureRetainedHeap) {
+        this.measureRetainedHeap = measureRetainedHeap;
+    }
+
+    @Override
+    public QueryLookupStrategy decorate(QueryLookupStrategy delegate, EntityManager entityManager) {
+        return (method, metadata, factory, namedQueries) -> {
+            long heapBefore = measureRetainedHeap ? liveHeap() : 0;
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+
+            RepositoryQuery query = delegate.resolveQuery(method, metadata, factory, namedQueries);
+
+            double compileMillis = (System.nanoTime() - start) / 1_000_000.0;
+            long allocated = allocatedBytes() - allocatedBefore;
+            long retained = measureRetainedHeap ? Math.max(0, liveHeap() - heapBefore) : -1;
+
+            Query annotation = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+            boolean nativeQuery = annotation != null && annotation.nativeQuery();
+            QueryPlanProfile profile = new QueryPlanProfile(metadata.getRepositoryInterface().getSimpleName(),
+                    method.getName(), nativeQuery, compileMillis, allocated, retained, parseTreeNodes(annotation));
+            profiles.put(profile.qualifiedName(), profile);
+            return query;
+        };
+    }
+
+    /**
+     * Profiles ranked by retained heap, then by allocated bytes, most expensive first.
+     */
+    public List<QueryPlanProfile> ranked() {
+        return profiles.values().stream()
+                .sorted(Comparator.comparingLong(QueryPlanProfile::retainedBytes)
+                        .thenComparingLong(QueryPlanProfile::allocatedBytes)
+                        .reversed())
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void printReport() {
+        List<QueryPlanProfile> ranked = ranked();
+        StringBuilder report = new StringBuilder("Query plan profile (").append(ranked.size()).append(" methods)\n");
+        report.append(String.format("%-4s %-60s %12s %14s %14s %11s%n",
+                "#", "method", "compile ms", "allocated KB", "retained KB", "parse nodes"));
+        for (int i = 0; i < ranked.size(); i++) {
+            QueryPlanProfile p = ranked.get(i);
+            report.append(String.format("%-4d %-60s %12.1f %14d %14s %11s%n", i + 1, p.qualifiedName(),
+                    p.compileMillis(), p.allocatedBytes() / 1024,
+                    p.retainedBytes() < 0 ? "n/a" : String.valueOf(p.retainedBytes() / 1024),
+                    p.parseTreeNodes() < 0 ? "n/a" : String.valueOf(p.parseTreeNodes())));
+        }
+        log.info(report.toString());
+    }
+
+    private long liveHeap() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemoryEnabled()) {
+            return hotspot.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    private static int parseTreeNodes(Query annotation) {
+        if (annotation == null || annotation.nativeQuery() || annotation.value().isEmpty()) {
+            return -1;
+        }
+        try {
+            String hql = LIKE_SHORTHAND.matcher(annotation.value()).replaceAll("$1");
+            HqlParser parser = HqlParseTreeBuilder.INSTANCE.buildHqlParser(hql);
+            return countNodes(parser.statement());
+        } catch (RuntimeException e) {
+            log.debug("Could not parse query for the parse tree size: {}", annotation.value(), e);
+            return -1;
+        }
+    }
+
+    private static int countNodes(ParseTree node) {
+        int count = 1;
+        for (int i = 0; i < node.getChildCount(); i++) {
+            count += countNodes(node.getChild(i));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,24 @@
+package com.test.memory.demo.diagnostics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * Exposes the ranked query plan profile as {@code /actuator/queryplans}.
+ */
+@Endpoint(id = "queryplans")
+public class QueryPlanReportEndpoint {
+
+    private final QueryPlanProfiler profiler;
+
+    public QueryPlanReportEndpoint(QueryPlanProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public List<QueryPlanProfile> queryPlans() {
+        return profiler.ranked();
+    }
+}
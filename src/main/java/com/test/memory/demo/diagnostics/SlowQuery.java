@@ -0,0 +1,10 @@
+package com.test.memory.demo.diagnostics;
+
+import java.time.Instant;
+
+/**
+ * A statement that took longer than {@code demo.diagnostics.sql.slow-threshold}, with the plan the
+ * database reported when it was run again ({@code null} when the plan was not captured).
+ */
+public record SlowQuery(Instant at, String method, String sql, double millis, long rows, String plan) {
+}
@@ -0,0 +1,145 @@
+package com.test.memory.demo.diagnostics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs statements slower than the threshold and keeps the last {@value #CAPACITY} of them for
+ * {@code /actuator/slowqueries}. Queries are run again with the {@code explain} prefix, e.g.
+ * {@code EXPLAIN (ANALYZE, BUFFERS)}, to capture their plan: on a background thread, on a
+ * connection of its own in a read-only transaction that is rolled back, and at most once per
+ * {@code explainInterval} for the same SQL. Writes and batches are logged without a plan.
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+    static final int CAPACITY = 100;
+
+    private final DataSource dataSource;
+    private final long thresholdNanos;
+    private final String explain;
+    private final long explainIntervalNanos;
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> recent = new ArrayDeque<>();
+    private final ThreadPoolExecutor explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public SlowQueryLog(DataSource dataSource, Duration threshold, String explain, Duration explainInterval) {
+        this.dataSource = dataSource;
+        this.thresholdNanos = threshold.toNanos();
+        this.explain = explain == null ? "" : explain.trim();
+        this.explainIntervalNanos = explainInterval.toNanos();
+    }
+
+    /**
+     * Most recent first.
+     */
+    public synchronized List<SlowQuery> recent() {
+        return new ArrayList<>(recent);
+    }
+
+    void onExecution(SqlExecution execution) {
+        if (execution.totalNanos() < thresholdNanos) {
+            return;
+        }
+        if (explainable(execution) && explainDue(execution.sql)) {
+            try {
+                explainer.execute(() -> add(execution, explain(execution)));
+                return;
+            } catch (RejectedExecutionException e) {
+                // Plans already being captured, log this one without
+            }
+        }
+        add(execution, null);
+    }
+
+    @Override
+    public void close() {
+        explainer.shutdownNow();
+    }
+
+    private boolean explainable(SqlExecution execution) {
+        if (explain.isEmpty() || execution.sql == null || execution.parameters.contains(null)) {
+            return false;
+        }
+        String sql = execution.sql.stripLeading().toLowerCase(Locale.ROOT);
+        return sql.startsWith("select") || sql.startsWith("with");
+    }
+
+    private boolean explainDue(String sql) {
+        long now = System.nanoTime();
+        boolean[] due = new boolean[1];
+        lastExplained.compute(sql, (key, last) -> {
+            due[0] = last == null || now - last >= explainIntervalNanos;
+            return due[0] ? now : last;
+        });
+        return due[0];
+    }
+
+    private String explain(SqlExecution execution) {
+        try (Connection connection = targetDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(explain + " " + execution.sql)) {
+                for (SqlExecution.ParameterBinding binding : execution.parameters) {
+                    binding.setter().invoke(statement, binding.args());
+                }
+                StringJoiner plan = new StringJoiner("\n");
+                try (ResultSet lines = statement.executeQuery()) {
+                    while (lines.next()) {
+                        plan.add(lines.getString(1));
+                    }
+                }
+                return plan.toString();
+            } finally {
+                connection.rollback();
+            }
+        } catch (Exception e) {
+            log.debug("Could not capture the plan of {}", execution.sql, e);
+            return "(plan not captured: " + e + ")";
+        }
+    }
+
+    private void add(SqlExecution execution, String plan) {
+        SlowQuery slowQuery = new SlowQuery(Instant.now(), execution.method, execution.sql,
+                execution.totalNanos() / 1_000_000.0, execution.rows, plan);
+        log.warn("Slow query in {} ({} ms, {} rows): {}{}", slowQuery.method(), Math.round(slowQuery.millis()),
+                slowQuery.rows(), slowQuery.sql(), plan == null ? "" : "\n" + plan);
+        synchronized (this) {
+            recent.addFirst(slowQuery);
+            if (recent.size() > CAPACITY) {
+                recent.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Plans are captured without going through the instrumentation.
+     */
+    private DataSource targetDataSource() {
+        return dataSource instanceof InstrumentedDataSource instrumented ? instrumented.getTargetDataSource() : dataSource;
+    }
+}
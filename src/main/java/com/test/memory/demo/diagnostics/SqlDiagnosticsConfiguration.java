@@ -0,0 +1,52 @@
+package com.test.memory.demo.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * SQL execution metrics per repository method and slow query log, disabled with
+ * {@code demo.diagnostics.sql.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.diagnostics.sql", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlDiagnosticsConfiguration {
+
+    @Bean
+    static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<SqlInstrumentation> instrumentation) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource(dataSource, instrumentation);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    SlowQueryLog slowQueryLog(DataSource dataSource,
+                              @Value("${demo.diagnostics.sql.slow-threshold:500ms}") Duration threshold,
+                              @Value("${demo.diagnostics.sql.explain:EXPLAIN (ANALYZE, BUFFERS)}") String explain,
+                              @Value("${demo.diagnostics.sql.explain-interval:10m}") Duration explainInterval) {
+        return new SlowQueryLog(dataSource, threshold, explain, explainInterval);
+    }
+
+    @Bean
+    SqlInstrumentation sqlInstrumentation(MeterRegistry registry, SlowQueryLog slowQueryLog) {
+        return new SqlInstrumentation(registry, slowQueryLog);
+    }
+
+    @Bean
+    SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        return new SlowQueryEndpoint(slowQueryLog);
+    }
+}
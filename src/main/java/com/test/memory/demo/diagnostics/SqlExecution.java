@@ -0,0 +1,35 @@
+package com.test.memory.demo.diagnostics;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * One statement execution as seen by {@link InstrumentedDataSource}: the repository method it ran
+ * for, the SQL with the parameter setter calls needed to run it again, and its timings.
+ */
+final class SqlExecution {
+
+    final String method;
+    final String sql;
+    final List<ParameterBinding> parameters;
+    final long executeNanos;
+    long rows;
+    long fetchNanos;
+
+    SqlExecution(String method, String sql, List<ParameterBinding> parameters, long executeNanos) {
+        this.method = method;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.executeNanos = executeNanos;
+    }
+
+    long totalNanos() {
+        return executeNanos + fetchNanos;
+    }
+
+    /**
+     * A {@code PreparedStatement} setter call, e.g. {@code setLong(1, 42L)}.
+     */
+    record ParameterBinding(Method setter, Object[] args) {
+    }
+}
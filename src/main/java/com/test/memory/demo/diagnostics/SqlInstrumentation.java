@@ -0,0 +1,60 @@
+package com.test.memory.demo.diagnostics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per repository method (tag {@code method}, {@value InstrumentedDataSource#NO_METHOD} for
+ * statements issued outside of one):
+ * <ul>
+ *     <li>{@code demo.sql.execution}: time spent executing statements, with p50 and p99; the count
+ *     is the number of executions;</li>
+ *     <li>{@code demo.sql.fetch}: time spent reading their result sets;</li>
+ *     <li>{@code demo.sql.rows}: rows read per execution.</li>
+ * </ul>
+ * Executions slower than the threshold in total are passed on to {@link SlowQueryLog}.
+ */
+public class SqlInstrumentation {
+
+    private final MeterRegistry registry;
+    private final SlowQueryLog slowQueryLog;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public SqlInstrumentation(MeterRegistry registry, SlowQueryLog slowQueryLog) {
+        this.registry = registry;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    void record(SqlExecution execution) {
+        Meters methodMeters = meters.computeIfAbsent(execution.method, this::meters);
+        methodMeters.execution.record(execution.executeNanos, TimeUnit.NANOSECONDS);
+        methodMeters.fetch.record(execution.fetchNanos, TimeUnit.NANOSECONDS);
+        methodMeters.rows.record(execution.rows);
+        slowQueryLog.onExecution(execution);
+    }
+
+    private Meters meters(String method) {
+        return new Meters(
+                Timer.builder("demo.sql.execution")
+                        .tags("method", method)
+                        .description("Time spent executing the repository method's SQL statements")
+                        .publishPercentiles(0.5, 0.99)
+                        .register(registry),
+                Timer.builder("demo.sql.fetch")
+                        .tags("method", method)
+                        .description("Time spent reading the result sets of the repository method's SQL statements")
+                        .register(registry),
+                DistributionSummary.builder("demo.sql.rows")
+                        .tags("method", method)
+                        .description("Rows read per SQL statement execution of the repository method")
+                        .register(registry));
+    }
+
+    private record Meters(Timer execution, Timer fetch, DistributionSummary rows) {
+    }
+}
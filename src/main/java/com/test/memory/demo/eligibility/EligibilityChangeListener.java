@@ -0,0 +1,140 @@
+package com.test.memory.demo.eligibility;
+
+import com.test.memory.demo.entities.Address;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.Category;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.Discount;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Product;
+import com.test.memory.demo.events.EntityChange;
+import com.test.memory.demo.events.EntityChangeListener;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+
+/**
+ * Records the users, products and categories touched by a flush, and the change of the product
+ * price sum and count. The transaction's changes are handed to {@link UserEligibilityMaintainer}
+ * before it commits, after the final flush.
+ */
+class EligibilityChangeListener implements EntityChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EligibilityChangeListener.class);
+
+    private final ObjectProvider<UserEligibilityMaintainer> maintainer;
+
+    EligibilityChangeListener(ObjectProvider<UserEligibilityMaintainer> maintainer) {
+        this.maintainer = maintainer;
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        if (change.type() == EntityChange.Type.BULK) {
+            // The written rows are unknown, rebuild() catches up
+            log.warn("Bulk write to {}, user eligibility not updated until rebuilt", change.persister().getEntityName());
+            return;
+        }
+        if (change.is(AppUser.class)) {
+            if (change.changed("name")) {
+                changes(change).userIds.add((Long) change.id());
+            }
+        } else if (change.is(Address.class)) {
+            if (change.changed("city") || change.changed("appUser")) {
+                addUser(changes(change).userIds, (AppUser) change.oldValue("appUser"));
+                addUser(changes(change).userIds, (AppUser) change.value("appUser"));
+            }
+        } else if (change.is(CustomerOrder.class)) {
+            // Items of a new order are flushed on their own, a deleted order has no items left
+            if (change.type() == EntityChange.Type.UPDATE && change.changed("appUser")) {
+                addUser(changes(change).userIds, (AppUser) change.oldValue("appUser"));
+                addUser(changes(change).userIds, (AppUser) change.value("appUser"));
+            }
+        } else if (change.is(OrderItem.class)) {
+            if (change.changed("customerOrder") || change.changed("product")) {
+                addOrderUser(changes(change).userIds, (CustomerOrder) change.oldValue("customerOrder"));
+                addOrderUser(changes(change).userIds, (CustomerOrder) change.value("customerOrder"));
+            }
+        } else if (change.is(Discount.class)) {
+            if (change.changed("code") || change.changed("product")) {
+                addProduct(changes(change).productIds, (Product) change.oldValue("product"));
+                addProduct(changes(change).productIds, (Product) change.value("product"));
+            }
+        } else if (change.is(Category.class)) {
+            if (change.changed("name")) {
+                changes(change).categoryIds.add((Long) change.id());
+            }
+        } else if (change.is(Product.class)) {
+            onProductChange(change);
+        }
+    }
+
+    private void onProductChange(EntityChange change) {
+        Double oldPrice = (Double) change.oldValue("price");
+        Double newPrice = (Double) change.value("price");
+        boolean priceChanged = change.changed("price");
+        if (!priceChanged && !change.changed("category")) {
+            return;
+        }
+        EligibilityChanges changes = changes(change);
+        changes.productIds.add((Long) change.id());
+        if (priceChanged) {
+            if (oldPrice != null) {
+                changes.priceSumDelta -= oldPrice;
+                changes.priceCountDelta--;
+            }
+            if (newPrice != null) {
+                changes.priceSumDelta += newPrice;
+                changes.priceCountDelta++;
+            }
+        }
+    }
+
+    private EligibilityChanges changes(EntityChange change) {
+        EligibilityChanges changes =
+                (EligibilityChanges) TransactionSynchronizationManager.getResource(EligibilityChanges.class);
+        if (changes != null) {
+            return changes;
+        }
+        changes = new EligibilityChanges();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Not written through a Spring managed transaction, the rebuild job catches up
+            log.warn("{} {} outside of a Spring transaction, user eligibility not updated",
+                    change.type(), change.persister().getEntityName());
+            return changes;
+        }
+        TransactionSynchronizationManager.bindResource(EligibilityChanges.class, changes);
+        EligibilityChanges registered = changes;
+        // Runs after the flush on commit, which a Spring beforeCommit callback would precede
+        ActionQueue actionQueue = change.session().getActionQueue();
+        actionQueue.registerProcess((BeforeTransactionCompletionProcess) session ->
+                maintainer.getObject().apply(registered));
+        actionQueue.registerProcess((AfterTransactionCompletionProcess) (success, session) ->
+                TransactionSynchronizationManager.unbindResourceIfPossible(EligibilityChanges.class));
+        return changes;
+    }
+
+    private static void addUser(Set<Long> userIds, AppUser user) {
+        if (user != null && user.getId() != null) {
+            userIds.add(user.getId());
+        }
+    }
+
+    private static void addOrderUser(Set<Long> userIds, CustomerOrder order) {
+        if (order != null) {
+            addUser(userIds, order.getAppUser());
+        }
+    }
+
+    private static void addProduct(Set<Long> productIds, Product product) {
+        if (product != null && product.getId() != null) {
+            productIds.add(product.getId());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.test.memory.demo.eligibility;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * What changed in the current transaction that can affect user eligibility.
+ */
+class EligibilityChanges {
+
+    final Set<Long> userIds = new HashSet<>();
+    final Set<Long> productIds = new HashSet<>();
+    final Set<Long> categoryIds = new HashSet<>();
+    double priceSumDelta;
+    long priceCountDelta;
+
+    boolean isEmpty() {
+        return userIds.isEmpty() && productIds.isEmpty() && categoryIds.isEmpty() && priceCountDelta == 0
+                && priceSumDelta == 0;
+    }
+
+    boolean pricesChanged() {
+        return priceCountDelta != 0 || priceSumDelta != 0;
+    }
+
+    /**
+     * Moves the recorded changes into a new instance, leaving this one empty.
+     */
+    EligibilityChanges drain() {
+        EligibilityChanges drained = new EligibilityChanges();
+        drained.userIds.addAll(userIds);
+        drained.productIds.addAll(productIds);
+        drained.categoryIds.addAll(categoryIds);
+        drained.priceSumDelta = priceSumDelta;
+        drained.priceCountDelta = priceCountDelta;
+        userIds.clear();
+        productIds.clear();
+        categoryIds.clear();
+        priceSumDelta = 0;
+        priceCountDelta = 0;
+        return drained;
+    }
+}
@@ -0,0 +1,35 @@
+package com.test.memory.demo.eligibility;
+
+import com.test.memory.demo.repositories.UserEligibilityRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Incrementally maintained user eligibility backing {@code AppUserRepository.findEligibleAppUserByUserId},
+ * disabled with {@code demo.eligibility.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.eligibility", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class EligibilityConfiguration {
+
+    @Bean
+    static EligibilityChangeListener eligibilityChangeListener(ObjectProvider<UserEligibilityMaintainer> maintainer) {
+        return new EligibilityChangeListener(maintainer);
+    }
+
+    @Bean
+    UserEligibilityMaintainer userEligibilityMaintainer(EntityManager entityManager,
+                                                        UserEligibilityRepository repository,
+                                                        PlatformTransactionManager transactionManager) {
+        return new UserEligibilityMaintainer(entityManager, repository, transactionManager);
+    }
+
+    @Bean
+    EligibilityEndpoint eligibilityEndpoint(UserEligibilityMaintainer maintainer) {
+        return new EligibilityEndpoint(maintainer);
+    }
+}
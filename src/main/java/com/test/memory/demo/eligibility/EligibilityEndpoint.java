@@ -0,0 +1,30 @@
+package com.test.memory.demo.eligibility;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * Tells whether user eligibility is built as {@code GET /actuator/eligibility} and rebuilds it
+ * with {@code POST /actuator/eligibility}.
+ */
+@Endpoint(id = "eligibility")
+public class EligibilityEndpoint {
+
+    private final UserEligibilityMaintainer maintainer;
+
+    public EligibilityEndpoint(UserEligibilityMaintainer maintainer) {
+        this.maintainer = maintainer;
+    }
+
+    @ReadOperation
+    public EligibilityStatus status() {
+        return maintainer.status();
+    }
+
+    @WriteOperation
+    public EligibilityStatus rebuild() {
+        maintainer.rebuild();
+        return maintainer.status();
+    }
+}
@@ -0,0 +1,11 @@
+package com.test.memory.demo.eligibility;
+
+/**
+ * Result of {@link UserEligibilityMaintainer#status()}.
+ *
+ * @param ready        whether the eligibility of every user has been built
+ * @param averagePrice the running average product price, {@code null} before the first build or
+ *                     without priced products
+ */
+public record EligibilityStatus(boolean ready, Double averagePrice) {
+}
@@ -0,0 +1,228 @@
+package com.test.memory.demo.eligibility;
+
+import com.test.memory.demo.entities.ProductPriceAggregate;
+import com.test.memory.demo.entities.UserEligibility;
+import com.test.memory.demo.repositories.UserEligibilityRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Keeps {@link UserEligibility} and {@link ProductPriceAggregate} in line with the data behind
+ * {@code AppUserRepository.findComplexAppUserByUserId}.
+ * <p>
+ * Only the users affected by a transaction are re-evaluated, with the average product price
+ * taken from the running aggregate instead of a scan. When the average moves, the products whose
+ * price lies between the old and the new average are the ones that crossed it, their buyers are
+ * re-evaluated too. {@link #rebuild()} recomputes everything, e.g. after bulk loads done outside
+ * of the entity model or to reset floating point drift in the running sum.
+ * <p>
+ * Every re-evaluation holds a shared lock on the aggregate row until it commits, and a price
+ * change or a rebuild an exclusive one, so users are never evaluated against an average that a
+ * concurrent transaction is moving. On a database without the aggregate, the first build runs in
+ * the background once the application is ready; until it commits {@link #isReady()} is false and
+ * {@code findEligibleAppUserByUserId} only knows the users written since startup.
+ */
+public class UserEligibilityMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEligibilityMaintainer.class);
+    private static final int CHUNK_SIZE = 1_000;
+
+    private final EntityManager entityManager;
+    private final UserEligibilityRepository repository;
+    private final TransactionTemplate transaction;
+    private volatile boolean ready;
+    private volatile boolean closing;
+
+    public UserEligibilityMaintainer(EntityManager entityManager, UserEligibilityRepository repository,
+                                     PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Whether the eligibility of every user has been built, by an earlier start or a rebuild.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Applies the changes recorded for the current transaction, called before it commits. Changes
+     * flushed by the queries and writes issued here are picked up until nothing is left.
+     */
+    void apply(EligibilityChanges pending) {
+        entityManager.flush();
+        while (!pending.isEmpty()) {
+            EligibilityChanges changes = pending.drain();
+            Double averagePrice = averagePrice(changes);
+            Set<Long> userIds = new HashSet<>(changes.userIds);
+            inChunks(changes.productIds, ids -> userIds.addAll(repository.findUserIdsByOrderedProductIds(ids)));
+            inChunks(changes.categoryIds, ids -> userIds.addAll(repository.findUserIdsByOrderedCategoryIds(ids)));
+            inChunks(userIds, ids -> recompute(ids, averagePrice));
+            entityManager.flush();
+        }
+    }
+
+    @Transactional
+    public void rebuild() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ready = true;
+            }
+        });
+        Double averagePrice = recomputeAggregate(entityManager.find(ProductPriceAggregate.class,
+                ProductPriceAggregate.ID, LockModeType.PESSIMISTIC_WRITE)).getAveragePrice();
+        entityManager.flush();
+
+        repository.deleteAllInBulk();
+        entityManager.clear();
+        List<Long> userIds = repository.findAllUserIds();
+        inChunks(userIds, ids -> {
+            Set<Long> eligible = new HashSet<>(repository.findEligibleUserIds(ids, averagePrice));
+            for (Long id : ids) {
+                UserEligibility row = new UserEligibility();
+                row.setUserId(id);
+                row.setEligible(eligible.contains(id));
+                entityManager.persist(row);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        log.info("Rebuilt eligibility of {} users, average product price {}", userIds.size(), averagePrice);
+    }
+
+    @Transactional(readOnly = true)
+    public EligibilityStatus status() {
+        ProductPriceAggregate aggregate = entityManager.find(ProductPriceAggregate.class, ProductPriceAggregate.ID);
+        return new EligibilityStatus(ready, aggregate == null ? null : aggregate.getAveragePrice());
+    }
+
+    /**
+     * Starts the first build on a background thread when the aggregate does not exist yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFirstBuild() {
+        if (Boolean.TRUE.equals(transaction.execute(status ->
+                entityManager.find(ProductPriceAggregate.class, ProductPriceAggregate.ID) != null))) {
+            ready = true;
+            return;
+        }
+        Thread thread = new Thread(this::firstBuild, "eligibility-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void firstBuild() {
+        try {
+            // Committed on its own first, so that writes from now on lock it and wait for the rebuild
+            transaction.executeWithoutResult(status -> {
+                if (entityManager.find(ProductPriceAggregate.class, ProductPriceAggregate.ID) == null) {
+                    recomputeAggregate(null);
+                }
+            });
+            transaction.executeWithoutResult(status -> rebuild());
+        } catch (RuntimeException e) {
+            if (closing) {
+                log.debug("First build of user eligibility interrupted by shutdown", e);
+            } else {
+                log.warn("First build of user eligibility failed, rebuild it with POST /actuator/eligibility", e);
+            }
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void markClosing() {
+        closing = true;
+    }
+
+    /**
+     * Current average product price. Applies the transaction's price changes to the aggregate and
+     * adds the products that crossed the average to {@code changes}.
+     */
+    private Double averagePrice(EligibilityChanges changes) {
+        ProductPriceAggregate aggregate = entityManager.find(ProductPriceAggregate.class, ProductPriceAggregate.ID,
+                changes.pricesChanged() ? LockModeType.PESSIMISTIC_WRITE : LockModeType.PESSIMISTIC_READ);
+        if (aggregate == null) {
+            // Not built yet, the first build recomputes these users. The flushed products already
+            // include this transaction's changes.
+            Object[] sumAndCount = repository.sumAndCountProductPrices().get(0);
+            long count = ((Number) sumAndCount[1]).longValue();
+            return count == 0 ? null : ((Number) sumAndCount[0]).doubleValue() / count;
+        }
+        if (!changes.pricesChanged()) {
+            return aggregate.getAveragePrice();
+        }
+        Double before = aggregate.getAveragePrice();
+        aggregate.setPriceSum(aggregate.getPriceSum() + changes.priceSumDelta);
+        aggregate.setPriceCount(aggregate.getPriceCount() + changes.priceCountDelta);
+        Double after = aggregate.getAveragePrice();
+        if (before != null && after != null && !before.equals(after)) {
+            changes.productIds.addAll(repository.findProductIdsByPriceAboveAndAtMost(
+                    Math.min(before, after), Math.max(before, after)));
+        } else if (!Objects.equals(before, after)) {
+            // First priced product added or last one removed
+            Double average = before != null ? before : after;
+            changes.productIds.addAll(repository.findProductIdsByPriceAboveAndAtMost(average, Double.MAX_VALUE));
+        }
+        return after;
+    }
+
+    private ProductPriceAggregate recomputeAggregate(ProductPriceAggregate aggregate) {
+        if (aggregate == null) {
+            aggregate = new ProductPriceAggregate();
+            aggregate.setId(ProductPriceAggregate.ID);
+            entityManager.persist(aggregate);
+        }
+        Object[] sumAndCount = repository.sumAndCountProductPrices().get(0);
+        aggregate.setPriceSum(((Number) sumAndCount[0]).doubleValue());
+        aggregate.setPriceCount(((Number) sumAndCount[1]).longValue());
+        return aggregate;
+    }
+
+    private void recompute(List<Long> userIds, Double averagePrice) {
+        Set<Long> existing = new HashSet<>(repository.findExistingUserIds(userIds));
+        Set<Long> eligible = new HashSet<>(repository.findEligibleUserIds(userIds, averagePrice));
+        for (Long id : userIds) {
+            UserEligibility row = entityManager.find(UserEligibility.class, id);
+            if (!existing.contains(id)) {
+                if (row != null) {
+                    entityManager.remove(row);
+                }
+                continue;
+            }
+            if (row == null) {
+                row = new UserEligibility();
+                row.setUserId(id);
+                entityManager.persist(row);
+            }
+            row.setEligible(eligible.contains(id));
+        }
+    }
+
+    private static void inChunks(Collection<Long> ids, Consumer<List<Long>> action) {
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += CHUNK_SIZE) {
+            action.accept(all.subList(from, Math.min(from + CHUNK_SIZE, all.size())));
+        }
+    }
+}
@@ -12,7 +12,7 @@ public class Address {
     private String street;
     private String city;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private AppUser appUser;
     
@@ -1,11 +1,36 @@
 package com.test.memory.demo.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.FetchProfile;
+import org.hibernate.annotations.FetchProfile.FetchOverride;
 import java.util.List;
 
+import static com.test.memory.demo.entities.FetchProfileNames.*;
+import static org.hibernate.annotations.FetchMode.SUBSELECT;
+
 @Entity
 @Table(name = "app_user")
+@NamedEntityGraph(name = AppUser.GRAPH_ORDERS,
+        attributeNodes = @NamedAttributeNode(value = "orders", subgraph = "order"),
+        subgraphs = @NamedSubgraph(name = "order", attributeNodes = {
+                @NamedAttributeNode("payment"),
+                @NamedAttributeNode("shipment")
+        }))
+@FetchProfile(name = USER_ORDERS, fetchOverrides = {
+        @FetchOverride(entity = AppUser.class, association = "orders", mode = SUBSELECT)
+})
+@FetchProfile(name = USER_ORDERS_ITEMS, fetchOverrides = {
+        @FetchOverride(entity = AppUser.class, association = "orders", mode = SUBSELECT),
+        @FetchOverride(entity = CustomerOrder.class, association = "orderItems", mode = SUBSELECT)
+})
+@FetchProfile(name = USER_DETAILS, fetchOverrides = {
+        @FetchOverride(entity = AppUser.class, association = "orders", mode = SUBSELECT),
+        @FetchOverride(entity = AppUser.class, association = "addresses", mode = SUBSELECT),
+        @FetchOverride(entity = AppUser.class, association = "reviews", mode = SUBSELECT)
+})
 public class AppUser {
+    public static final String GRAPH_ORDERS = "AppUser.orders";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
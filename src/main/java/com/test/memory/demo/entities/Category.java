@@ -1,9 +1,13 @@
 package com.test.memory.demo.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
 @Table(name = "category")
 public class Category {
     @Id
@@ -13,6 +17,7 @@ public class Category {
     private String name;
     
     @OneToMany(mappedBy = "category")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category-products")
     private List<Product> products;
     
     // Getters and Setters
@@ -1,13 +1,28 @@
 package com.test.memory.demo.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.FetchProfile;
+import org.hibernate.annotations.FetchProfile.FetchOverride;
 import java.util.List;
 
+import static com.test.memory.demo.entities.FetchProfileNames.ORDER_ITEMS;
+import static org.hibernate.annotations.FetchMode.SUBSELECT;
+
 @Entity
 @Table(name = "customer_order")
+@NamedEntityGraph(name = CustomerOrder.GRAPH_PAYMENT_SHIPMENT, attributeNodes = {
+        @NamedAttributeNode("payment"),
+        @NamedAttributeNode("shipment")
+})
+@FetchProfile(name = ORDER_ITEMS, fetchOverrides = {
+        @FetchOverride(entity = CustomerOrder.class, association = "orderItems", mode = SUBSELECT)
+})
 public class CustomerOrder {
+    public static final String GRAPH_PAYMENT_SHIPMENT = "CustomerOrder.paymentShipment";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_order_seq")
+    @SequenceGenerator(name = "customer_order_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
@@ -17,10 +32,10 @@ public class CustomerOrder {
     @OneToMany(mappedBy = "customerOrder")
     private List<OrderItem> orderItems;
     
-    @OneToOne(mappedBy = "customerOrder")
+    @OneToOne(mappedBy = "customerOrder", fetch = FetchType.LAZY)
     private Payment payment;
     
-    @OneToOne(mappedBy = "customerOrder")
+    @OneToOne(mappedBy = "customerOrder", fetch = FetchType.LAZY)
     private Shipment shipment;
     
     // Getters and Setters
@@ -1,8 +1,12 @@
 package com.test.memory.demo.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "discount")
 @Table(name = "discount")
 public class Discount {
     @Id
@@ -12,7 +16,7 @@ public class Discount {
     private String code;
     private Double percentage;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
     
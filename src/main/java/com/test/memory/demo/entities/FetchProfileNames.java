@@ -0,0 +1,25 @@
+package com.test.memory.demo.entities;
+
+/**
+ * Hibernate fetch profiles declared on the entities, enabled per call with
+ * {@code FetchProfileTemplate}. Collections are loaded with one subselect per level for all
+ * owners in the persistence context. The inverse one-to-ones of {@code CustomerOrder} cannot be
+ * overridden by a profile, fetch them with the {@code CustomerOrder.paymentShipment} graph.
+ */
+public final class FetchProfileNames {
+
+    /** {@code AppUser.orders}. */
+    public static final String USER_ORDERS = "app-user-orders";
+
+    /** {@code AppUser.orders} and {@code CustomerOrder.orderItems}. */
+    public static final String USER_ORDERS_ITEMS = "app-user-orders-items";
+
+    /** {@code AppUser.orders}, {@code addresses} and {@code reviews}. */
+    public static final String USER_DETAILS = "app-user-details";
+
+    /** {@code CustomerOrder.orderItems}. */
+    public static final String ORDER_ITEMS = "customer-order-items";
+
+    private FetchProfileNames() {
+    }
+}
@@ -0,0 +1,31 @@
+package com.test.memory.demo.entities;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "order_item_rollup")
+public class OrderItemRollup {
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(name = "item_count")
+    private long itemCount;
+    
+    // Sum of the non-null quantities, and how many there are
+    @Column(name = "quantity_sum")
+    private long quantitySum;
+    
+    @Column(name = "quantity_count")
+    private long quantityCount;
+    
+    // Getters and Setters
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public long getItemCount() { return itemCount; }
+    public void setItemCount(long itemCount) { this.itemCount = itemCount; }
+    public long getQuantitySum() { return quantitySum; }
+    public void setQuantitySum(long quantitySum) { this.quantitySum = quantitySum; }
+    public long getQuantityCount() { return quantityCount; }
+    public void setQuantityCount(long quantityCount) { this.quantityCount = quantityCount; }
+}
@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 @Table(name = "payment")
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_seq")
+    @SequenceGenerator(name = "payment_seq", allocationSize = 50)
     private Long id;
     
     private String status;
@@ -0,0 +1,19 @@
+package com.test.memory.demo.entities;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "payment_status_rollup")
+public class PaymentStatusRollup {
+    @Id
+    private String status;
+    
+    @Column(name = "payment_count")
+    private long paymentCount;
+    
+    // Getters and Setters
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public long getPaymentCount() { return paymentCount; }
+    public void setPaymentCount(long paymentCount) { this.paymentCount = paymentCount; }
+}
@@ -1,9 +1,13 @@
 package com.test.memory.demo.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
 @Table(name = "product")
 public class Product {
     @Id
@@ -24,6 +28,7 @@ public class Product {
     private List<Review> reviews;
     
     @OneToMany(mappedBy = "product")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product-discounts")
     private List<Discount> discounts;
     
     // Getters and Setters
@@ -0,0 +1,29 @@
+package com.test.memory.demo.entities;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "product_price_aggregate")
+public class ProductPriceAggregate {
+    public static final Long ID = 1L;
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "price_sum")
+    private double priceSum;
+    
+    @Column(name = "price_count")
+    private long priceCount;
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public double getPriceSum() { return priceSum; }
+    public void setPriceSum(double priceSum) { this.priceSum = priceSum; }
+    public long getPriceCount() { return priceCount; }
+    public void setPriceCount(long priceCount) { this.priceCount = priceCount; }
+    
+    // Same as AVG(price) over all products, null without priced products.
+    public Double getAveragePrice() { return priceCount == 0 ? null : priceSum / priceCount; }
+}
@@ -0,0 +1,39 @@
+package com.test.memory.demo.entities;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "product_rollup")
+public class ProductRollup {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+    
+    @Column(name = "item_count")
+    private long itemCount;
+    
+    @Column(name = "review_count")
+    private long reviewCount;
+    
+    // Sum of the non-null ratings, and how many there are
+    @Column(name = "rating_sum")
+    private long ratingSum;
+    
+    @Column(name = "rating_count")
+    private long ratingCount;
+    
+    // Getters and Setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public long getItemCount() { return itemCount; }
+    public void setItemCount(long itemCount) { this.itemCount = itemCount; }
+    public long getReviewCount() { return reviewCount; }
+    public void setReviewCount(long reviewCount) { this.reviewCount = reviewCount; }
+    public long getRatingSum() { return ratingSum; }
+    public void setRatingSum(long ratingSum) { this.ratingSum = ratingSum; }
+    public long getRatingCount() { return ratingCount; }
+    public void setRatingCount(long ratingCount) { this.ratingCount = ratingCount; }
+    
+    // Same as AVG(rating) over the product's reviews, null without rated reviews.
+    public Double getAverageRating() { return ratingCount == 0 ? null : (double) ratingSum / ratingCount; }
+}
@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 @Table(name = "shipment")
 public class Shipment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shipment_seq")
+    @SequenceGenerator(name = "shipment_seq", allocationSize = 50)
     private Long id;
     
     private String trackingNumber;
@@ -0,0 +1,19 @@
+package com.test.memory.demo.entities;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "user_eligibility")
+public class UserEligibility {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    private boolean eligible;
+    
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public boolean isEligible() { return eligible; }
+    public void setEligible(boolean eligible) { this.eligible = eligible; }
+}
@@ -0,0 +1,71 @@
+package com.test.memory.demo.events;
+
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Objects;
+
+/**
+ * An entity row written during a flush, with the attribute values before and after the write, or
+ * rows of an entity table written outside of the entity model ({@link Type#BULK}).
+ *
+ * @param type      what happened to the row
+ * @param entity    the entity instance, {@code null} for bulk writes
+ * @param id        the entity identifier, {@code null} for bulk writes
+ * @param persister the entity persister, used to look up attribute positions
+ * @param state     attribute values after the write, {@code null} for deletes and bulk writes
+ * @param oldState  attribute values before the write, {@code null} for inserts and bulk writes
+ * @param session   the flushing session, e.g. to register transaction completion callbacks
+ */
+public record EntityChange(Type type, Object entity, Object id, EntityPersister persister, Object[] state,
+                           Object[] oldState, EventSource session) {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE,
+        /**
+         * Any number of rows written by SQL that bypasses the session, e.g. PostgreSQL {@code COPY}.
+         */
+        BULK
+    }
+
+    /**
+     * Rows of the entity's table written in the session's transaction without going through it.
+     */
+    public static EntityChange bulk(EntityPersister persister, EventSource session) {
+        return new EntityChange(Type.BULK, null, null, persister, null, null, session);
+    }
+
+    public boolean is(Class<?> entityType) {
+        return entityType.isInstance(entity);
+    }
+
+    /**
+     * Value of the attribute after the write, {@code null} for deletes.
+     */
+    public Object value(String attribute) {
+        return state == null ? null : state[position(attribute)];
+    }
+
+    /**
+     * Value of the attribute before the write, {@code null} for inserts.
+     */
+    public Object oldValue(String attribute) {
+        return oldState == null ? null : oldState[position(attribute)];
+    }
+
+    /**
+     * Whether the attribute value differs before and after the write; always true for inserts, deletes and bulk writes.
+     */
+    public boolean changed(String attribute) {
+        return type != Type.UPDATE || !Objects.equals(value(attribute), oldValue(attribute));
+    }
+
+    private int position(String attribute) {
+        AttributeMapping mapping = persister.findAttributeMapping(attribute);
+        if (mapping == null) {
+            throw new IllegalArgumentException(persister.getEntityName() + " has no attribute " + attribute);
+        }
+        return mapping.getStateArrayPosition();
+    }
+}
@@ -0,0 +1,105 @@
+package com.test.memory.demo.events;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Registers a single Hibernate integrator that forwards post insert, update and delete events to
+ * all {@link EntityChangeListener} beans.
+ */
+@Configuration(proxyBeanMethods = false)
+public class EntityChangeConfiguration {
+
+    @Bean
+    static HibernatePropertiesCustomizer entityChangeIntegrator(ObjectProvider<EntityChangeListener> listeners) {
+        EntityChangeDispatcher dispatcher = new EntityChangeDispatcher(listeners);
+        return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new EntityChangeIntegrator(dispatcher)));
+    }
+
+    private record EntityChangeIntegrator(EntityChangeDispatcher dispatcher) implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            EventListenerRegistry registry = sessionFactory.getServiceRegistry()
+                    .requireService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_INSERT, dispatcher);
+            registry.appendListeners(EventType.POST_UPDATE, dispatcher);
+            registry.appendListeners(EventType.POST_DELETE, dispatcher);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+
+    /**
+     * Listener beans are resolved on the first event rather than at boot, they usually depend on
+     * the {@code EntityManagerFactory} this dispatcher is part of.
+     */
+    private static final class EntityChangeDispatcher
+            implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        private final ObjectProvider<EntityChangeListener> listenerProvider;
+        private volatile List<EntityChangeListener> listeners;
+
+        EntityChangeDispatcher(ObjectProvider<EntityChangeListener> listenerProvider) {
+            this.listenerProvider = listenerProvider;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            dispatch(new EntityChange(EntityChange.Type.INSERT, event.getEntity(), event.getId(),
+                    event.getPersister(), event.getState(), null, event.getSession()));
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            dispatch(new EntityChange(EntityChange.Type.UPDATE, event.getEntity(), event.getId(),
+                    event.getPersister(), event.getState(), event.getOldState(), event.getSession()));
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            dispatch(new EntityChange(EntityChange.Type.DELETE, event.getEntity(), event.getId(),
+                    event.getPersister(), null, event.getDeletedState(), event.getSession()));
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        private void dispatch(EntityChange change) {
+            List<EntityChangeListener> current = listeners;
+            if (current == null) {
+                current = listenerProvider.orderedStream().toList();
+                listeners = current;
+            }
+            for (EntityChangeListener listener : current) {
+                listener.onChange(change);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.test.memory.demo.events;
+
+/**
+ * Notified of every entity insert, update and delete as Hibernate flushes it. Beans of this type
+ * are registered with Hibernate by {@link EntityChangeConfiguration}.
+ * <p>
+ * Called inside the flush: implementations must not use the {@code EntityManager}, they should
+ * record what changed and act on it later, e.g. in a {@code BeforeTransactionCompletionProcess}
+ * registered with the session, which runs after the flush done on commit.
+ */
+public interface EntityChangeListener {
+
+    void onChange(EntityChange change);
+}
@@ -0,0 +1,58 @@
+package com.test.memory.demo.export;
+
+import com.test.memory.demo.projections.PaymentExportRow;
+import com.test.memory.demo.repositories.PaymentRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports all payments as CSV in constant memory: only the exported columns are streamed, with a
+ * JDBC fetch size in a read-only transaction, as projections rather than entities, so neither the
+ * eager order and user of each payment are loaded nor does the persistence context grow.
+ */
+@Service
+public class PaymentExportService {
+
+    private final PaymentRepository paymentRepository;
+
+    public PaymentExportService(PaymentRepository paymentRepository) {
+        this.paymentRepository = paymentRepository;
+    }
+
+    /**
+     * Writes {@code id,status,order_id} lines with a header and returns the number of payments.
+     */
+    @Transactional(readOnly = true)
+    public long exportPayments(Writer writer) {
+        long count = 0;
+        try (Stream<PaymentExportRow> payments = paymentRepository.streamAllPaymentsNative()) {
+            writer.write("id,status,order_id\n");
+            for (Iterator<PaymentExportRow> it = payments.iterator(); it.hasNext(); ) {
+                PaymentExportRow payment = it.next();
+                writer.write(payment.getId() + "," + csv(payment.getStatus()) + ","
+                        + (payment.getOrderId() == null ? "" : payment.getOrderId()) + "\n");
+                count++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,12 @@
+package com.test.memory.demo.ingestion;
+
+import java.util.List;
+
+/**
+ * An order to ingest for an existing user. The payment and shipment are optional ({@code null}).
+ */
+public record OrderImport(long userId, List<Item> items, String paymentStatus, String trackingNumber) {
+
+    public record Item(long productId, int quantity) {
+    }
+}
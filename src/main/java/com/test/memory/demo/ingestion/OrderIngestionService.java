@@ -0,0 +1,74 @@
+package com.test.memory.demo.ingestion;
+
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.entities.Product;
+import com.test.memory.demo.entities.Shipment;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Persists orders with their items, payment and shipment in JDBC batches. Ids come from pooled
+ * sequences (50 per round trip) instead of identity columns, so Hibernate can group the inserts
+ * per table ({@code hibernate.order_inserts}) and send {@code hibernate.jdbc.batch_size} rows per
+ * statement. Users and products are referenced by id without being loaded, and the persistence
+ * context is flushed and cleared every {@value #FLUSH_INTERVAL} orders to keep memory flat.
+ */
+@Service
+public class OrderIngestionService {
+
+    static final int FLUSH_INTERVAL = 1_000;
+
+    private final EntityManager entityManager;
+
+    public OrderIngestionService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Inserts the orders in one transaction and returns their number. Large imports should be
+     * passed in chunks (e.g. 10 000 orders) so that every chunk commits on its own.
+     */
+    @Transactional
+    public int ingest(List<OrderImport> orders) {
+        int count = 0;
+        for (OrderImport order : orders) {
+            persist(order);
+            if (++count % FLUSH_INTERVAL == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return count;
+    }
+
+    private void persist(OrderImport source) {
+        CustomerOrder order = new CustomerOrder();
+        order.setAppUser(entityManager.getReference(AppUser.class, source.userId()));
+        entityManager.persist(order);
+        for (OrderImport.Item sourceItem : source.items()) {
+            OrderItem item = new OrderItem();
+            item.setCustomerOrder(order);
+            item.setProduct(entityManager.getReference(Product.class, sourceItem.productId()));
+            item.setQuantity(sourceItem.quantity());
+            entityManager.persist(item);
+        }
+        if (source.paymentStatus() != null) {
+            Payment payment = new Payment();
+            payment.setStatus(source.paymentStatus());
+            payment.setCustomerOrder(order);
+            entityManager.persist(payment);
+        }
+        if (source.trackingNumber() != null) {
+            Shipment shipment = new Shipment();
+            shipment.setTrackingNumber(source.trackingNumber());
+            shipment.setCustomerOrder(order);
+            entityManager.persist(shipment);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.test.memory.demo.pagination;
+
+import java.util.List;
+
+/**
+ * A page of a keyset paginated query.
+ *
+ * @param content   the rows of this page
+ * @param nextToken continuation token for the following page, {@code null} on the last page
+ */
+public record KeysetPage<T>(List<T> content, String nextToken) {
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,113 @@
+package com.test.memory.demo.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination over a unique, indexed {@code long} key, usually the primary key.
+ * Each page is fetched with {@code WHERE id > :lastSeen ORDER BY id LIMIT :size} (or the
+ * descending equivalent), which reads the index from the last seen key, so deep pages cost the
+ * same as the first one, unlike {@code OFFSET}.
+ * <p>
+ * The continuation token is opaque to callers. It carries the name of the paginated query, the
+ * sort direction and the last key seen, and is rejected by any other query or direction: the key
+ * of one entity means nothing in another's key space.
+ */
+public final class KeysetPagination {
+
+    public static final int MAX_PAGE_SIZE = 1_000;
+
+    private static final String ASCENDING = "a";
+    private static final String DESCENDING = "d";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Rows with a key in ascending order.
+     *
+     * @param query     name the tokens are bound to, usually the entity name
+     * @param token     token of the previous page, {@code null} for the first page
+     * @param size      page size
+     * @param afterKey  query returning at most {@code limit} rows with a key greater than {@code afterKey}, in key order
+     * @param keyOf     the key of a row
+     */
+    public static <T> KeysetPage<T> ascending(String query, String token, int size, SeekQuery<T> afterKey,
+                                              Function<T, Long> keyOf) {
+        String scope = scope(query, ASCENDING);
+        long lastKey = token == null ? Long.MIN_VALUE : decode(token, scope);
+        return page(afterKey.find(lastKey, checkSize(size) + 1), size, keyOf, scope);
+    }
+
+    /**
+     * Rows with a key in descending order, e.g. newest first.
+     *
+     * @param query     name the tokens are bound to, usually the entity name
+     * @param token     token of the previous page, {@code null} for the first page
+     * @param size      page size
+     * @param beforeKey query returning at most {@code limit} rows with a key lower than {@code beforeKey}, in descending key order
+     * @param keyOf     the key of a row
+     */
+    public static <T> KeysetPage<T> descending(String query, String token, int size, SeekQuery<T> beforeKey,
+                                               Function<T, Long> keyOf) {
+        String scope = scope(query, DESCENDING);
+        long lastKey = token == null ? Long.MAX_VALUE : decode(token, scope);
+        return page(beforeKey.find(lastKey, checkSize(size) + 1), size, keyOf, scope);
+    }
+
+    /**
+     * A seek query: rows beyond {@code key}, at most {@code limit}. One row more than the page
+     * size is requested to know whether there is a next page.
+     */
+    @FunctionalInterface
+    public interface SeekQuery<T> {
+        List<T> find(long key, int limit);
+    }
+
+    private static <T> KeysetPage<T> page(List<T> rows, int size, Function<T, Long> keyOf, String scope) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new KeysetPage<>(List.copyOf(content), encode(scope, keyOf.apply(content.get(size - 1))));
+    }
+
+    private static int checkSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + size);
+        }
+        return size;
+    }
+
+    // The query and direction a token is valid for, prefixed to the key
+    private static String scope(String query, String direction) {
+        if (query == null || query.isEmpty() || query.indexOf(':') >= 0) {
+            throw new IllegalArgumentException("Invalid query name: " + query);
+        }
+        return query + ":" + direction + ":";
+    }
+
+    private static String encode(String scope, long key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((scope + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decode(String token, String scope) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+        if (!decoded.startsWith(scope)) {
+            throw new IllegalArgumentException("Continuation token does not match this query: " + token);
+        }
+        try {
+            return Long.parseLong(decoded.substring(scope.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+}
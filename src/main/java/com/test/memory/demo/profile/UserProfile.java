@@ -0,0 +1,39 @@
+package com.test.memory.demo.profile;
+
+import java.util.List;
+
+/**
+ * A user with their addresses, orders (with their items) and reviews, detached from the persistence
+ * context and immutable, see {@link UserProfileService}.
+ */
+public record UserProfile(long userId, String name, List<Address> addresses, List<Order> orders,
+                          List<Review> reviews) {
+
+    public UserProfile {
+        addresses = List.copyOf(addresses);
+        orders = List.copyOf(orders);
+        reviews = List.copyOf(reviews);
+    }
+
+    public record Address(long id, String street, String city) {
+    }
+
+    public record Order(long id, List<Item> items) {
+
+        public Order {
+            items = List.copyOf(items);
+        }
+    }
+
+    /**
+     * @param quantity the ordered quantity, {@code null} when unknown
+     */
+    public record Item(long id, Long productId, Integer quantity) {
+    }
+
+    /**
+     * @param rating the rating, {@code null} when the review has none
+     */
+    public record Review(long id, Long productId, Integer rating, String comment) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.test.memory.demo.profile;
+
+import com.test.memory.demo.async.AsyncQueryExecutor;
+import com.test.memory.demo.entities.Address;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Review;
+import com.test.memory.demo.repositories.AddressRepository;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.CustomerOrderRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.ReviewRepository;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles a {@link UserProfile} from five independent queries (user, addresses, orders, order
+ * items, reviews) issued at once through the {@link AsyncQueryExecutor}, each on its own connection,
+ * so the profile takes about as long as the slowest query rather than the sum of the round trips.
+ * Every query maps its rows inside its own transaction, no lazy association is touched afterwards.
+ * <p>
+ * A profile not complete within the deadline fails with a {@link QueryTimeoutException}; its
+ * queries still waiting for a connection are cancelled, and the running ones carry the time left
+ * as their transaction timeout, so the database cancels them too (to the second, the precision of
+ * JDBC query timeouts).
+ */
+public class UserProfileService {
+
+    private final AsyncQueryExecutor async;
+    private final AppUserRepository appUserRepository;
+    private final AddressRepository addressRepository;
+    private final CustomerOrderRepository customerOrderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ReviewRepository reviewRepository;
+    private final Duration deadline;
+
+    public UserProfileService(AsyncQueryExecutor async, AppUserRepository appUserRepository,
+                              AddressRepository addressRepository, CustomerOrderRepository customerOrderRepository,
+                              OrderItemRepository orderItemRepository, ReviewRepository reviewRepository,
+                              Duration deadline) {
+        this.async = async;
+        this.appUserRepository = appUserRepository;
+        this.addressRepository = addressRepository;
+        this.customerOrderRepository = customerOrderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.reviewRepository = reviewRepository;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the profile of the user, empty when there is no such user.
+     */
+    public Optional<UserProfile> findProfile(long userId) {
+        return findProfile(userId, deadline);
+    }
+
+    public Optional<UserProfile> findProfile(long userId, Duration deadline) {
+        Instant end = Instant.now().plus(deadline);
+        CompletableFuture<Optional<String>> name = async.supply(() ->
+                appUserRepository.findById(userId).map(AppUser::getName), end);
+        CompletableFuture<List<UserProfile.Address>> addresses = async.supply(() ->
+                addressRepository.findAddressesByUserId(userId).stream().map(UserProfileService::address).toList(),
+                end);
+        CompletableFuture<List<Long>> orderIds = async.supply(() ->
+                customerOrderRepository.findByUserId(userId).stream().map(CustomerOrder::getId).toList(), end);
+        CompletableFuture<List<OrderItemRow>> items = async.supply(() ->
+                orderItemRepository.findByCustomerOrderUserId(userId).stream().map(OrderItemRow::of).toList(), end);
+        CompletableFuture<List<UserProfile.Review>> reviews = async.supply(() ->
+                reviewRepository.findByUserId(userId).stream().map(UserProfileService::review).toList(), end);
+
+        CompletableFuture<?>[] queries = {name, addresses, orderIds, items, reviews};
+        try {
+            CompletableFuture.allOf(queries).get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancel(queries);
+            throw new QueryTimeoutException("Profile of user " + userId + " not loaded within " + deadline, e);
+        } catch (InterruptedException e) {
+            cancel(queries);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrupted loading the profile of user " + userId, e);
+        } catch (ExecutionException e) {
+            cancel(queries);
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+        return name.join().map(userName -> new UserProfile(userId, userName, addresses.join(),
+                orders(orderIds.join(), items.join()), reviews.join()));
+    }
+
+    private static void cancel(CompletableFuture<?>[] queries) {
+        for (CompletableFuture<?> query : queries) {
+            query.cancel(false);
+        }
+    }
+
+    // Orders without items are kept, in the order of the orders query
+    private static List<UserProfile.Order> orders(List<Long> orderIds, List<OrderItemRow> items) {
+        Map<Long, List<UserProfile.Item>> itemsByOrder = items.stream().collect(Collectors.groupingBy(
+                OrderItemRow::orderId, Collectors.mapping(OrderItemRow::item, Collectors.toList())));
+        return orderIds.stream()
+                .map(id -> new UserProfile.Order(id, itemsByOrder.getOrDefault(id, List.of())))
+                .toList();
+    }
+
+    private static UserProfile.Address address(Address address) {
+        return new UserProfile.Address(address.getId(), address.getStreet(), address.getCity());
+    }
+
+    // The product is a lazy proxy, reading its id does not load it
+    private static UserProfile.Review review(Review review) {
+        return new UserProfile.Review(review.getId(),
+                review.getProduct() == null ? null : review.getProduct().getId(), review.getRating(),
+                review.getComment());
+    }
+
+    private record OrderItemRow(long orderId, UserProfile.Item item) {
+
+        static OrderItemRow of(OrderItem item) {
+            return new OrderItemRow(item.getCustomerOrder().getId(), new UserProfile.Item(item.getId(),
+                    item.getProduct() == null ? null : item.getProduct().getId(), item.getQuantity()));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.test.memory.demo.projections;
+
+/**
+ * Number of addresses in a city, see {@code AddressRepository.findCityAddressCounts}.
+ *
+ * @param city         the city
+ * @param addressCount addresses in that city
+ */
+public record CityAddressCount(String city, long addressCount) {
+}
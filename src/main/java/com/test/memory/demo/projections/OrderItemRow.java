@@ -0,0 +1,12 @@
+package com.test.memory.demo.projections;
+
+/**
+ * The columns of an order item, see {@code OrderItemRepository.streamByEvenQuantity}.
+ *
+ * @param id        the order item id
+ * @param orderId   the order id, {@code null} when the item has no order
+ * @param productId the product id, {@code null} when the item has no product
+ * @param quantity  the quantity, {@code null} when not set
+ */
+public record OrderItemRow(Long id, Long orderId, Long productId, Integer quantity) {
+}
@@ -0,0 +1,11 @@
+package com.test.memory.demo.projections;
+
+/**
+ * Whether a payment is completed, for {@code PaymentRepository.findPaymentCompletionsNative}.
+ */
+public interface PaymentCompletion {
+
+    Long getId();
+
+    boolean isCompleted();
+}
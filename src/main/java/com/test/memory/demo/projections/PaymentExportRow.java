@@ -0,0 +1,17 @@
+package com.test.memory.demo.projections;
+
+/**
+ * The columns of a payment written by {@code PaymentExportService}, see
+ * {@code PaymentRepository.streamAllPaymentsNative}.
+ */
+public interface PaymentExportRow {
+
+    Long getId();
+
+    String getStatus();
+
+    /**
+     * The order id, {@code null} when the payment has no order.
+     */
+    Long getOrderId();
+}
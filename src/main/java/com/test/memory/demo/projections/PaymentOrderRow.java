@@ -0,0 +1,18 @@
+package com.test.memory.demo.projections;
+
+/**
+ * A payment with its order's user, see {@code PaymentRepository.streamPaymentsWithOrderDetailsNative}.
+ */
+public interface PaymentOrderRow {
+
+    Long getId();
+
+    String getStatus();
+
+    Long getOrderId();
+
+    /**
+     * The user who placed the order, {@code null} when the order has none.
+     */
+    Long getUserId();
+}
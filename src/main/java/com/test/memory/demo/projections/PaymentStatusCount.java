@@ -0,0 +1,13 @@
+package com.test.memory.demo.projections;
+
+/**
+ * Number of payments per status, for the native payment queries. Native queries cannot use
+ * constructor expressions, Spring Data maps the {@code status} and {@code total} column aliases
+ * onto this interface instead.
+ */
+public interface PaymentStatusCount {
+
+    String getStatus();
+
+    long getTotal();
+}
@@ -0,0 +1,10 @@
+package com.test.memory.demo.projections;
+
+/**
+ * Number of discounts on a product, see {@code DiscountRepository.findProductDiscountCounts}.
+ *
+ * @param productName   the product name
+ * @param discountCount discounts for products with that name
+ */
+public record ProductDiscountCount(String productName, long discountCount) {
+}
@@ -0,0 +1,10 @@
+package com.test.memory.demo.projections;
+
+/**
+ * Number of order items of a product, see {@code OrderItemRepository.findProductItemCounts}.
+ *
+ * @param productId the product id
+ * @param itemCount order items referencing the product
+ */
+public record ProductItemCount(Long productId, long itemCount) {
+}
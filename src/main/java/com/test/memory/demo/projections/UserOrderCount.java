@@ -0,0 +1,11 @@
+package com.test.memory.demo.projections;
+
+/**
+ * Number of orders of a user, see {@code AppUserRepository.findUserOrderCounts}.
+ *
+ * @param userId     the user id
+ * @param userName   the user name
+ * @param orderCount orders placed by the user, {@code 0} when none
+ */
+public record UserOrderCount(Long userId, String userName, long orderCount) {
+}
@@ -0,0 +1,33 @@
+package com.test.memory.demo.query;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the result of the annotated query method per distinct parameter values, see
+ * {@code com.test.memory.demo.query.resultcache.CachedQueryExecution}. Cached results are dropped
+ * when a transaction writing one of the {@link #value() listed entities} commits.
+ * <p>
+ * Only writes flushed by Hibernate are seen: the entities must list every table the query reads,
+ * and rows changed by bulk or plain JDBC updates are only refreshed once the entry expires
+ * ({@code demo.query.result-cache.expire-after-write}). Entity results are cached as identifiers
+ * and loaded again on every hit, other results are shared between callers.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedQuery {
+
+    /**
+     * Entities whose committed writes invalidate the cached results.
+     */
+    Class<?>[] value();
+
+    /**
+     * Maximum number of parameter combinations cached for the method.
+     */
+    long maximumSize() default 1000;
+}
@@ -0,0 +1,41 @@
+package com.test.memory.demo.query;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryLookupStrategy.Key;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link JpaRepositoryFactory} that runs the resolved {@link QueryLookupStrategy} through the
+ * registered {@link QueryLookupStrategyDecorator}s.
+ */
+public class DecoratingJpaRepositoryFactory extends JpaRepositoryFactory {
+
+    private final EntityManager entityManager;
+    private final List<QueryLookupStrategyDecorator> decorators;
+
+    public DecoratingJpaRepositoryFactory(EntityManager entityManager, List<QueryLookupStrategyDecorator> decorators) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.decorators = List.copyOf(decorators);
+    }
+
+    @Override
+    protected Optional<QueryLookupStrategy> getQueryLookupStrategy(@Nullable Key key,
+            QueryMethodEvaluationContextProvider evaluationContextProvider) {
+        return super.getQueryLookupStrategy(key, evaluationContextProvider).map(this::decorate);
+    }
+
+    private QueryLookupStrategy decorate(QueryLookupStrategy strategy) {
+        QueryLookupStrategy decorated = strategy;
+        for (QueryLookupStrategyDecorator decorator : decorators) {
+            decorated = decorator.decorate(decorated, entityManager);
+        }
+        return decorated;
+    }
+}
@@ -0,0 +1,71 @@
+package com.test.memory.demo.query;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.JpaQueryMethodFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Repository factory bean used by all repositories of the application, see
+ * {@link com.test.memory.demo.DemoApplication}. Picks up every {@link QueryLookupStrategyDecorator}
+ * bean so query compilation and execution can be instrumented without touching the repositories.
+ */
+public class DecoratingJpaRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
+        extends JpaRepositoryFactoryBean<T, S, ID> {
+
+    private EntityPathResolver entityPathResolver = SimpleEntityPathResolver.INSTANCE;
+    private EscapeCharacter escapeCharacter = EscapeCharacter.DEFAULT;
+    private JpaQueryMethodFactory queryMethodFactory;
+    private List<QueryLookupStrategyDecorator> decorators = List.of();
+
+    public DecoratingJpaRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Autowired
+    public void setQueryLookupStrategyDecorators(ObjectProvider<QueryLookupStrategyDecorator> decorators) {
+        this.decorators = decorators.orderedStream().toList();
+    }
+
+    @Override
+    @Autowired
+    public void setEntityPathResolver(ObjectProvider<EntityPathResolver> resolver) {
+        super.setEntityPathResolver(resolver);
+        this.entityPathResolver = resolver.getIfAvailable(() -> SimpleEntityPathResolver.INSTANCE);
+    }
+
+    @Override
+    @Autowired
+    public void setQueryMethodFactory(@Nullable JpaQueryMethodFactory factory) {
+        super.setQueryMethodFactory(factory);
+        if (factory != null) {
+            this.queryMethodFactory = factory;
+        }
+    }
+
+    @Override
+    public void setEscapeCharacter(char escapeCharacter) {
+        super.setEscapeCharacter(escapeCharacter);
+        this.escapeCharacter = EscapeCharacter.of(escapeCharacter);
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        DecoratingJpaRepositoryFactory factory = new DecoratingJpaRepositoryFactory(entityManager, decorators);
+        factory.setEntityPathResolver(entityPathResolver);
+        factory.setEscapeCharacter(escapeCharacter);
+        if (queryMethodFactory != null) {
+            factory.setQueryMethodFactory(queryMethodFactory);
+        }
+        return factory;
+    }
+}
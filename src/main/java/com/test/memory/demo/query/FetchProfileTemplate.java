@@ -0,0 +1,47 @@
+package com.test.memory.demo.query;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs repository calls with Hibernate fetch profiles (see {@code FetchProfileNames}) enabled, in
+ * a read-only transaction. Associations must be traversed inside the callback, that is where the
+ * profile's subselect and join fetches replace per-row loads.
+ */
+@Component
+public class FetchProfileTemplate {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public FetchProfileTemplate(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T> T execute(Supplier<T> work, String... profiles) {
+        return readOnlyTransaction.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            List<String> enabled = new ArrayList<>();
+            for (String profile : profiles) {
+                if (!session.isFetchProfileEnabled(profile)) {
+                    session.enableFetchProfile(profile);
+                    enabled.add(profile);
+                }
+            }
+            try {
+                return work.get();
+            } finally {
+                enabled.forEach(session::disableFetchProfile);
+            }
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package com.test.memory.demo.query;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Defers compilation of the query methods of the annotated repository until they are first
+ * invoked (or until the background warm-up gets to them), see {@link LazyQueryCompilation}.
+ * <p>
+ * Note that an invalid query then only fails on first use instead of at startup.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LazyQueries {
+}
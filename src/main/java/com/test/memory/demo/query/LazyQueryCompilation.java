@@ -0,0 +1,91 @@
+package com.test.memory.demo.query;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.jpa.provider.PersistenceProvider;
+import org.springframework.data.jpa.repository.query.DefaultJpaQueryMethodFactory;
+import org.springframework.data.jpa.repository.query.JpaQueryMethodFactory;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Registers query methods without compiling them. Applies to repositories annotated with
+ * {@link LazyQueries}, or to all repositories with {@code demo.query.lazy.all=true}.
+ * <p>
+ * With {@code demo.query.lazy.warm-up=true} the pending queries are compiled by a low priority
+ * background thread once the application is ready.
+ */
+@Component
+@Order(0)
+public class LazyQueryCompilation implements QueryLookupStrategyDecorator {
+
+    private static final Logger log = LoggerFactory.getLogger(LazyQueryCompilation.class);
+
+    private final boolean all;
+    private final boolean warmUp;
+    private final Queue<LazyRepositoryQuery> pending = new ConcurrentLinkedQueue<>();
+
+    public LazyQueryCompilation(@Value("${demo.query.lazy.all:false}") boolean all,
+            @Value("${demo.query.lazy.warm-up:false}") boolean warmUp) {
+        this.all = all;
+        this.warmUp = warmUp;
+    }
+
+    @Override
+    public QueryLookupStrategy decorate(QueryLookupStrategy delegate, EntityManager entityManager) {
+        JpaQueryMethodFactory queryMethods = new DefaultJpaQueryMethodFactory(
+                PersistenceProvider.fromEntityManager(entityManager));
+        return (method, metadata, factory, namedQueries) -> {
+            if (!isLazy(metadata)) {
+                return delegate.resolveQuery(method, metadata, factory, namedQueries);
+            }
+            LazyRepositoryQuery query = new LazyRepositoryQuery(queryMethods.build(method, metadata, factory),
+                    () -> delegate.resolveQuery(method, metadata, factory, namedQueries));
+            pending.add(query);
+            return query;
+        };
+    }
+
+    private boolean isLazy(RepositoryMetadata metadata) {
+        return all || AnnotatedElementUtils.hasAnnotation(metadata.getRepositoryInterface(), LazyQueries.class);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmUp() {
+        if (!warmUp || pending.isEmpty()) {
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "lazy-query-warm-up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private void warmUp() {
+        int compiled = 0;
+        LazyRepositoryQuery query;
+        while ((query = pending.poll()) != null) {
+            if (query.isCompiled()) {
+                continue;
+            }
+            try {
+                query.compile();
+                compiled++;
+            } catch (RuntimeException e) {
+                log.warn("Warm-up failed for {}, it will be compiled again on first use",
+                        query.getQueryMethod(), e);
+            }
+        }
+        log.info("Lazy query warm-up compiled {} queries", compiled);
+    }
+}
@@ -0,0 +1,50 @@
+package com.test.memory.demo.query;
+
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+
+import java.util.function.Supplier;
+
+/**
+ * {@link RepositoryQuery} that only knows its {@link QueryMethod} and compiles the actual query
+ * on first execution.
+ */
+public class LazyRepositoryQuery implements RepositoryQuery {
+
+    private final QueryMethod queryMethod;
+    private final Supplier<RepositoryQuery> compiler;
+    private volatile RepositoryQuery compiled;
+
+    public LazyRepositoryQuery(QueryMethod queryMethod, Supplier<RepositoryQuery> compiler) {
+        this.queryMethod = queryMethod;
+        this.compiler = compiler;
+    }
+
+    @Override
+    public Object execute(Object[] parameters) {
+        return compile().execute(parameters);
+    }
+
+    @Override
+    public QueryMethod getQueryMethod() {
+        return queryMethod;
+    }
+
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    public RepositoryQuery compile() {
+        RepositoryQuery query = compiled;
+        if (query == null) {
+            synchronized (this) {
+                query = compiled;
+                if (query == null) {
+                    query = compiler.get();
+                    compiled = query;
+                }
+            }
+        }
+        return query;
+    }
+}
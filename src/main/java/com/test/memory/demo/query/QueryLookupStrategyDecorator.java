@@ -0,0 +1,17 @@
+package com.test.memory.demo.query;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+
+/**
+ * Hook for wrapping the {@link QueryLookupStrategy} that Spring Data uses to turn repository
+ * methods into executable queries.
+ * <p>
+ * Decorators are applied in {@link org.springframework.core.annotation.Order order}: the first
+ * decorator wraps the stock JPA strategy, every following one wraps the result of the previous.
+ */
+@FunctionalInterface
+public interface QueryLookupStrategyDecorator {
+
+    QueryLookupStrategy decorate(QueryLookupStrategy delegate, EntityManager entityManager);
+}
@@ -0,0 +1,23 @@
+package com.test.memory.demo.query;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Loads the entities returned by the query methods of the annotated repository (or by the
+ * annotated query method) as read-only, see {@link ReadOnlyQueryExecution}. Hibernate keeps no
+ * snapshot of read-only entities and skips them when dirty checking on flush, so changes made to
+ * them are never written back.
+ * <p>
+ * Only applies to query methods. Entities that are already in the persistence context keep their
+ * state, and entities read from a {@code Stream} result after the method returned are not
+ * affected; give streaming methods the {@code org.hibernate.readOnly} hint instead.
+ */
+@Documented
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyQueries {
+}
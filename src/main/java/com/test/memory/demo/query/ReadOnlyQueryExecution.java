@@ -0,0 +1,56 @@
+package com.test.memory.demo.query;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Executes the query methods marked with {@link ReadOnlyQueries} with the session's default
+ * read-only mode switched on, so that every entity they load is registered as read-only.
+ * <p>
+ * Runs outermost so that lazily compiled queries are covered as well. Outside of a transaction
+ * Spring Data uses a throwaway session per call and the query is executed unchanged.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ReadOnlyQueryExecution implements QueryLookupStrategyDecorator {
+
+    @Override
+    public QueryLookupStrategy decorate(QueryLookupStrategy delegate, EntityManager entityManager) {
+        return (method, metadata, factory, namedQueries) -> {
+            RepositoryQuery query = delegate.resolveQuery(method, metadata, factory, namedQueries);
+            if (!AnnotatedElementUtils.hasAnnotation(method, ReadOnlyQueries.class)
+                    && !AnnotatedElementUtils.hasAnnotation(metadata.getRepositoryInterface(), ReadOnlyQueries.class)) {
+                return query;
+            }
+            return new RepositoryQuery() {
+                @Override
+                public Object execute(Object[] parameters) {
+                    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                        return query.execute(parameters);
+                    }
+                    Session session = entityManager.unwrap(Session.class);
+                    boolean readOnly = session.isDefaultReadOnly();
+                    session.setDefaultReadOnly(true);
+                    try {
+                        return query.execute(parameters);
+                    } finally {
+                        session.setDefaultReadOnly(readOnly);
+                    }
+                }
+
+                @Override
+                public QueryMethod getQueryMethod() {
+                    return query.getQueryMethod();
+                }
+            };
+        };
+    }
+}
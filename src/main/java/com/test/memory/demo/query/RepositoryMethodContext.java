@@ -0,0 +1,37 @@
+package com.test.memory.demo.query;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound name ({@code Repository.method}) of the repository query method currently being
+ * compiled or executed, so lower layers (plan cache, JDBC instrumentation) can attribute their
+ * work to it.
+ */
+public final class RepositoryMethodContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    /**
+     * @return the current repository method, or {@code null} outside of repository query methods.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T call(String method, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(method);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
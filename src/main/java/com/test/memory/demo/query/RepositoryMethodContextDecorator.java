@@ -0,0 +1,37 @@
+package com.test.memory.demo.query;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds {@link RepositoryMethodContext} while a query method is resolved and while it executes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RepositoryMethodContextDecorator implements QueryLookupStrategyDecorator {
+
+    @Override
+    public QueryLookupStrategy decorate(QueryLookupStrategy delegate, EntityManager entityManager) {
+        return (method, metadata, factory, namedQueries) -> {
+            String name = metadata.getRepositoryInterface().getSimpleName() + "." + method.getName();
+            RepositoryQuery query = RepositoryMethodContext.call(name,
+                    () -> delegate.resolveQuery(method, metadata, factory, namedQueries));
+            return new RepositoryQuery() {
+                @Override
+                public Object execute(Object[] parameters) {
+                    return RepositoryMethodContext.call(name, () -> query.execute(parameters));
+                }
+
+                @Override
+                public QueryMethod getQueryMethod() {
+                    return query.getQueryMethod();
+                }
+            };
+        };
+    }
+}
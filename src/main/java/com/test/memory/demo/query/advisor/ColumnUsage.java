@@ -0,0 +1,28 @@
+package com.test.memory.demo.query.advisor;
+
+/**
+ * One use of a column, or of an {@code upper}/{@code lower} expression over a column, by a query.
+ * Usages sharing a {@code source} come from the same table reference in the same query block and
+ * may be served by one composite index, unless they sit under an {@code OR}.
+ */
+record ColumnUsage(String source, String table, String key, Kind kind, boolean disjunctive) {
+
+    enum Kind {
+        /** {@code =}, {@code IN}, {@code IS NULL} against values. */
+        EQUALITY,
+        /** {@code <}, {@code >}, {@code BETWEEN} against values. */
+        RANGE,
+        /** Leading run of plain columns of an {@code ORDER BY}. */
+        SORT,
+        /** Equi-join against a column of another table reference. */
+        JOIN,
+        /** {@code LIKE} whose pattern starts with a fixed prefix. */
+        PREFIX,
+        /** {@code LIKE} whose pattern starts with a wildcard, or is not known. */
+        SUBSTRING
+    }
+
+    boolean expression() {
+        return key.indexOf('(') >= 0;
+    }
+}
@@ -0,0 +1,274 @@
+package com.test.memory.demo.query.advisor;
+
+import com.test.memory.demo.query.aot.OfflineSessionFactory;
+import com.test.memory.demo.query.aot.QueryPlanCompiler;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Recommends PostgreSQL indexes for the {@code @Query} methods of the repositories. JPQL queries
+ * are translated to the SQL Hibernate runs, native queries are taken as written; {@link SqlScanner}
+ * then finds the columns each query block filters, joins and sorts on.
+ * <p>
+ * Per table reference, equality columns come first in a composite index, followed by the first
+ * range column or else the {@code ORDER BY} columns. Predicates under an {@code OR}, join columns
+ * and {@code upper}/{@code lower} lookups get an index of their own, prefix {@code LIKE} a
+ * {@code text_pattern_ops} index and infix {@code LIKE} a {@code pg_trgm} GIN index. Indexes the
+ * mapping already declares (primary keys, unique constraints, {@code @Index}) and indexes that
+ * are a leading part of another recommendation are left out.
+ * <p>
+ * Run by the {@code index-advisor} Maven profile: {@code java IndexAdvisor <output dir> [sql|annotations]}
+ * writes a migration script or the {@code @Index} definitions to add to the entities. The entities
+ * declare none: {@code ddl-auto} builds {@code @Index} with a plain {@code CREATE INDEX}, which
+ * blocks writes to the table until the index is built, so the script is the one to apply.
+ */
+public final class IndexAdvisor {
+
+    public static final String SCRIPT = "recommended-indexes.sql";
+    public static final String ANNOTATIONS = "entity-indexes.txt";
+
+    private static final Logger log = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    private static final String DIALECT = "org.hibernate.dialect.PostgreSQLDialect";
+    private static final int COMMENT_WIDTH = 100;
+
+    public enum Format { SQL, ANNOTATIONS }
+
+    private record Candidate(String table, IndexRecommendation.Type type, List<String> keys) {
+    }
+
+    private final QueryPlanCompiler compiler;
+    private final Map<String, Set<String>> columns = new HashMap<>();
+    private final Map<String, List<String>> primaryKeys = new HashMap<>();
+    private final Map<String, List<List<String>>> declaredIndexes = new HashMap<>();
+    private final Map<String, String> entities = new HashMap<>();
+
+    public IndexAdvisor(Metadata metadata, SessionFactoryImplementor sessionFactory) {
+        this.compiler = new QueryPlanCompiler(sessionFactory);
+        for (Table table : metadata.collectTableMappings()) {
+            String name = table.getName().toLowerCase(Locale.ROOT);
+            columns.put(name, table.getColumns().stream().map(IndexAdvisor::name).collect(Collectors.toSet()));
+            List<List<String>> indexes = new ArrayList<>();
+            if (table.getPrimaryKey() != null) {
+                primaryKeys.put(name, names(table.getPrimaryKey().getColumns()));
+                indexes.add(primaryKeys.get(name));
+            }
+            table.getUniqueKeys().values().forEach(uniqueKey -> indexes.add(names(uniqueKey.getColumns())));
+            // Only the leading plain columns of an index can serve a column prefix, formulas end it
+            table.getIndexes().values().forEach(index -> indexes.add(names(index.getSelectables().stream()
+                    .takeWhile(Column.class::isInstance).map(Column.class::cast).toList())));
+            table.getColumns().stream().filter(Column::isUnique).forEach(column -> indexes.add(List.of(name(column))));
+            declaredIndexes.put(name, indexes);
+        }
+        for (PersistentClass entity : metadata.getEntityBindings()) {
+            entities.put(entity.getTable().getName().toLowerCase(Locale.ROOT), entity.getClassName());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Path.of(args.length > 0 ? args[0] : "target/index-advisor");
+        Format format = args.length > 1 ? Format.valueOf(args[1].toUpperCase(Locale.ROOT)) : Format.SQL;
+        Metadata metadata = OfflineSessionFactory.metadata(DIALECT);
+        try (SessionFactoryImplementor sessionFactory = metadata.buildSessionFactory()
+                .unwrap(SessionFactoryImplementor.class)) {
+            IndexAdvisor advisor = new IndexAdvisor(metadata, sessionFactory);
+            List<IndexRecommendation> recommendations = advisor.advise(QueryPlanCompiler.repositories());
+            Files.createDirectories(output);
+            Path file = output.resolve(format == Format.SQL ? SCRIPT : ANNOTATIONS);
+            Files.writeString(file, format == Format.SQL
+                    ? migrationScript(recommendations)
+                    : advisor.entityIndexes(recommendations));
+            log.info("Recommended {} indexes, written to {}", recommendations.size(), file);
+        }
+    }
+
+    public List<IndexRecommendation> advise(List<Class<?>> repositories) {
+        Map<Candidate, TreeSet<String>> candidates = new LinkedHashMap<>();
+        for (Class<?> repository : repositories) {
+            Arrays.stream(ReflectionUtils.getDeclaredMethods(repository))
+                    .sorted(Comparator.comparing(Method::getName))
+                    .forEach(method -> sql(repository, method).ifPresent(sql -> {
+                        String query = repository.getSimpleName() + "." + method.getName();
+                        candidates(SqlScanner.scan(sql, columns)).forEach(candidate ->
+                                candidates.computeIfAbsent(candidate, key -> new TreeSet<>()).add(query));
+                    }));
+        }
+        return prune(candidates);
+    }
+
+    private Optional<String> sql(Class<?> repository, Method method) {
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query == null || query.value().isEmpty()) {
+            return Optional.empty();
+        }
+        if (query.nativeQuery()) {
+            return Optional.of(query.value());
+        }
+        try {
+            return compiler.toSql(query.value());
+        } catch (RuntimeException e) {
+            log.warn("Could not translate {}.{}", repository.getSimpleName(), method.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    private List<Candidate> candidates(List<ColumnUsage> usages) {
+        List<Candidate> candidates = new ArrayList<>();
+        Map<String, List<ColumnUsage>> references = usages.stream()
+                .collect(Collectors.groupingBy(ColumnUsage::source, LinkedHashMap::new, Collectors.toList()));
+        for (List<ColumnUsage> reference : references.values()) {
+            String table = reference.get(0).table();
+            List<String> equalities = keys(reference, ColumnUsage.Kind.EQUALITY);
+            List<String> primaryKey = primaryKeys.getOrDefault(table, List.of());
+            if (!primaryKey.isEmpty() && equalities.containsAll(primaryKey)) {
+                continue;
+            }
+            List<String> composite = new ArrayList<>(equalities);
+            List<String> ranges = keys(reference, ColumnUsage.Kind.RANGE);
+            List<String> sorts = ranges.isEmpty() ? keys(reference, ColumnUsage.Kind.SORT) : ranges.subList(0, 1);
+            sorts.stream().filter(key -> !composite.contains(key)).forEach(composite::add);
+            if (!composite.isEmpty()) {
+                candidates.add(new Candidate(table, IndexRecommendation.Type.BTREE, composite));
+            }
+            for (ColumnUsage usage : reference) {
+                IndexRecommendation.Type type = switch (usage.kind()) {
+                    case EQUALITY, RANGE -> usage.disjunctive() || usage.expression()
+                            ? IndexRecommendation.Type.BTREE : null;
+                    case JOIN -> IndexRecommendation.Type.BTREE;
+                    case PREFIX -> IndexRecommendation.Type.PATTERN;
+                    case SUBSTRING -> IndexRecommendation.Type.TRIGRAM;
+                    case SORT -> null;
+                };
+                if (type != null) {
+                    candidates.add(new Candidate(table, type, List.of(usage.key())));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static List<String> keys(List<ColumnUsage> reference, ColumnUsage.Kind kind) {
+        return reference.stream()
+                .filter(usage -> usage.kind() == kind && (kind == ColumnUsage.Kind.SORT
+                        || !usage.disjunctive() && !usage.expression()))
+                .map(ColumnUsage::key)
+                .distinct()
+                .toList();
+    }
+
+    private List<IndexRecommendation> prune(Map<Candidate, TreeSet<String>> candidates) {
+        Map<Candidate, TreeSet<String>> kept = new LinkedHashMap<>();
+        candidates.entrySet().stream()
+                .filter(entry -> !declared(entry.getKey()))
+                .sorted(Comparator.comparing(entry -> -entry.getKey().keys().size()))
+                .forEach(entry -> kept.keySet().stream()
+                        .filter(wider -> covers(wider, entry.getKey()))
+                        .findFirst()
+                        .ifPresentOrElse(wider -> kept.get(wider).addAll(entry.getValue()),
+                                () -> kept.put(entry.getKey(), entry.getValue())));
+        return kept.entrySet().stream()
+                .map(entry -> new IndexRecommendation(entry.getKey().table(), entry.getKey().type(),
+                        entry.getKey().keys(), entry.getValue()))
+                .sorted(Comparator.comparing(IndexRecommendation::table).thenComparing(IndexRecommendation::type)
+                        .thenComparing(IndexRecommendation::name))
+                .toList();
+    }
+
+    private boolean declared(Candidate candidate) {
+        return candidate.type() == IndexRecommendation.Type.BTREE
+                && declaredIndexes.getOrDefault(candidate.table(), List.of()).stream()
+                .anyMatch(index -> startsWith(index, candidate.keys()));
+    }
+
+    private static boolean covers(Candidate wider, Candidate candidate) {
+        return wider.table().equals(candidate.table()) && wider.type() == candidate.type()
+                && startsWith(wider.keys(), candidate.keys());
+    }
+
+    private static boolean startsWith(List<String> keys, List<String> prefix) {
+        return keys.size() >= prefix.size() && keys.subList(0, prefix.size()).equals(prefix);
+    }
+
+    public static String migrationScript(List<IndexRecommendation> recommendations) {
+        StringBuilder script = new StringBuilder()
+                .append("-- Indexes recommended by IndexAdvisor for the @Query methods of ")
+                .append(QueryPlanCompiler.REPOSITORY_PACKAGE).append('\n')
+                .append("-- CONCURRENTLY builds do not block writes but cannot run in a transaction: run with autocommit\n");
+        if (recommendations.stream().anyMatch(index -> index.type() == IndexRecommendation.Type.TRIGRAM)) {
+            script.append("\nCREATE EXTENSION IF NOT EXISTS pg_trgm;\n");
+        }
+        for (IndexRecommendation recommendation : recommendations) {
+            script.append('\n').append(comment(recommendation.queries())).append(recommendation.toSql()).append('\n');
+        }
+        return script.toString();
+    }
+
+    public String entityIndexes(List<IndexRecommendation> recommendations) {
+        StringBuilder text = new StringBuilder()
+                .append("// ddl-auto builds @Index with a plain CREATE INDEX, which blocks writes to the table until it is\n")
+                .append("// built: on a populated database, startup holds that lock for every index. Prefer ")
+                .append(SCRIPT).append(",\n")
+                .append("// which builds them CONCURRENTLY.\n\n");
+        Map<String, List<IndexRecommendation>> byTable = recommendations.stream()
+                .collect(Collectors.groupingBy(IndexRecommendation::table, TreeMap::new, Collectors.toList()));
+        byTable.forEach((table, indexes) -> {
+            text.append("// ").append(entities.getOrDefault(table, table)).append('\n');
+            List<String> annotations = indexes.stream().flatMap(index -> index.toAnnotation().stream()).toList();
+            if (!annotations.isEmpty()) {
+                text.append("@Table(name = \"").append(table).append("\", indexes = {\n        ")
+                        .append(String.join(",\n        ", annotations)).append("\n})\n");
+            }
+            indexes.stream().filter(index -> index.toAnnotation().isEmpty()).forEach(index ->
+                    text.append("// migration script only: ").append(index.toSql()).append('\n'));
+            text.append('\n');
+        });
+        return text.toString();
+    }
+
+    private static String comment(Set<String> queries) {
+        StringBuilder comment = new StringBuilder();
+        StringBuilder line = new StringBuilder("--");
+        for (String query : queries) {
+            if (line.length() > 2 && line.length() + query.length() + 1 > COMMENT_WIDTH) {
+                comment.append(line).append('\n');
+                line = new StringBuilder("--");
+            }
+            line.append(' ').append(query);
+        }
+        return comment.append(line).append('\n').toString();
+    }
+
+    private static List<String> names(List<Column> columns) {
+        return columns.stream().map(IndexAdvisor::name).toList();
+    }
+
+    private static String name(Column column) {
+        return column.getName().toLowerCase(Locale.ROOT);
+    }
+}
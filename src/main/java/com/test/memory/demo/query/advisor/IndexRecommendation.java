@@ -0,0 +1,69 @@
+package com.test.memory.demo.query.advisor;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
+
+/**
+ * An index {@link IndexAdvisor} recommends, with the repository methods it serves. Keys are column
+ * names or, for case-insensitive lookups, an {@code upper}/{@code lower} expression over one.
+ */
+public record IndexRecommendation(String table, Type type, List<String> keys, SortedSet<String> queries) {
+
+    private static final int MAX_NAME_LENGTH = 63;
+
+    public enum Type {
+        /** Plain B-tree over columns or expressions: equality, range, join and sort. */
+        BTREE(""),
+        /** B-tree with {@code text_pattern_ops}: {@code LIKE 'prefix%'} under any collation. */
+        PATTERN("_pattern"),
+        /** GIN with {@code gin_trgm_ops} from {@code pg_trgm}: {@code LIKE '%infix%'}. */
+        TRIGRAM("_trgm");
+
+        private final String nameSuffix;
+
+        Type(String nameSuffix) {
+            this.nameSuffix = nameSuffix;
+        }
+    }
+
+    public String name() {
+        String columns = keys.stream()
+                .map(key -> key.toLowerCase(Locale.ROOT).replaceAll("\\W+", "_").replaceAll("^_|_$", ""))
+                .collect(Collectors.joining("_"));
+        String name = "idx_" + table + "_" + columns;
+        return name.substring(0, Math.min(name.length(), MAX_NAME_LENGTH - type.nameSuffix.length()))
+                + type.nameSuffix;
+    }
+
+    public boolean expression() {
+        return keys.stream().anyMatch(key -> key.indexOf('(') >= 0);
+    }
+
+    /**
+     * The PostgreSQL statement that builds the index without blocking writes; like every
+     * {@code CONCURRENTLY} build it cannot run inside a transaction.
+     */
+    public String toSql() {
+        String columns = keys.stream().map(key -> switch (type) {
+            case BTREE -> key.indexOf('(') >= 0 ? "(" + key + ")" : key;
+            case PATTERN -> key + " text_pattern_ops";
+            case TRIGRAM -> key + " gin_trgm_ops";
+        }).collect(Collectors.joining(", "));
+        return "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name() + " ON " + table
+                + (type == Type.TRIGRAM ? " USING gin" : "") + " (" + columns + ");";
+    }
+
+    /**
+     * The JPA {@code @Index} for this index, empty when it needs an operator class or an
+     * expression, which {@code columnList} cannot express.
+     */
+    public Optional<String> toAnnotation() {
+        if (type != Type.BTREE || expression()) {
+            return Optional.empty();
+        }
+        return Optional.of("@Index(name = \"" + name() + "\", columnList = \"" + String.join(", ", keys) + "\")");
+    }
+}
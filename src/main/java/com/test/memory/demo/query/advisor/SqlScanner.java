@@ -0,0 +1,482 @@
+package com.test.memory.demo.query.advisor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the columns a SQL statement filters, joins and sorts on. A tokenizer rather than a SQL
+ * parser: it tracks query blocks (sub-selects, CTE bodies, {@code UNION} branches), the table
+ * aliases of each block and the clause every token is in, which is all the structure index
+ * selection needs. Columns are resolved against the mapped tables, anything else (CTE and derived
+ * table columns, functions other than {@code upper}/{@code lower} over a column) is ignored.
+ * <p>
+ * Parameters are {@code ?}, {@code ?1} or {@code :name}; a {@code :name__CONTAINING} or
+ * {@code :name__ENDING} parameter, as written by {@code QueryPlanCompiler.toSql}, marks a LIKE
+ * pattern with a leading wildcard.
+ */
+final class SqlScanner {
+
+    private static final Set<String> COMPARISONS = Set.of("=", "<", ">", "<=", ">=", "<>", "!=");
+    private static final Set<String> ARITHMETIC = Set.of("+", "-", "*", "/", "%", "||");
+    private static final Set<String> FILTER_CLAUSES = Set.of("where", "on", "having");
+    private static final Set<String> CASE_FOLDING = Set.of("upper", "lower");
+    private static final Set<String> SET_OPERATORS = Set.of("union", "intersect", "except");
+    private static final Set<String> KEYWORDS = Set.of("select", "from", "join", "left", "right", "inner", "outer",
+            "cross", "full", "natural", "on", "using", "where", "group", "having", "order", "by", "limit", "offset",
+            "fetch", "union", "intersect", "except", "window", "as", "and", "or", "not", "with", "recursive",
+            "distinct", "all", "case", "when", "then", "else", "end", "in", "is", "null", "like", "ilike",
+            "between", "exists", "asc", "desc", "nulls", "first", "last", "returning", "set", "values", "lateral");
+    private static final String[] LEADING_WILDCARD_SUFFIXES = {"__CONTAINING", "__ENDING"};
+
+    private enum Type { WORD, STRING, NUMBER, PARAMETER, SYMBOL }
+
+    private record Token(Type type, String text) {
+
+        boolean is(String value) {
+            return (type == Type.WORD || type == Type.SYMBOL) && text.equals(value);
+        }
+    }
+
+    private static final class Block {
+
+        final int id;
+        final Block parent;
+        final Map<String, String> tables = new LinkedHashMap<>();
+        boolean disjunctive;
+
+        Block(int id, Block parent) {
+            this.id = id;
+            this.parent = parent;
+        }
+    }
+
+    private record ColumnRef(Block block, String alias, String table, String column) {
+    }
+
+    private enum Shape { COLUMN, FOLDED, VALUE, OTHER }
+
+    private record Operand(int start, int end, Shape shape, ColumnRef column, String key) {
+    }
+
+    private final Map<String, Set<String>> columns;
+    private final List<Token> tokens;
+    private final int[] match;
+    private final Block[] blocks;
+    private final String[] clauses;
+    private final int[] groups;
+    private final Map<Integer, Integer> parentGroups = new HashMap<>();
+    private final Set<Integer> disjunctiveGroups = new HashSet<>();
+    private final List<ColumnUsage> usages = new ArrayList<>();
+
+    private SqlScanner(String sql, Map<String, Set<String>> columns) {
+        this.columns = columns;
+        this.tokens = tokenize(sql);
+        this.match = new int[tokens.size()];
+        this.blocks = new Block[tokens.size()];
+        this.clauses = new String[tokens.size()];
+        this.groups = new int[tokens.size()];
+    }
+
+    /**
+     * @param columns the columns of every mapped table, lower case
+     */
+    static List<ColumnUsage> scan(String sql, Map<String, Set<String>> columns) {
+        SqlScanner scanner = new SqlScanner(sql, columns);
+        scanner.structure();
+        scanner.predicates();
+        return scanner.usages;
+    }
+
+    private record Frame(int open, Block block, String clause, int group) {
+    }
+
+    private void structure() {
+        Deque<Frame> frames = new ArrayDeque<>();
+        int blockIds = 0;
+        Block block = new Block(blockIds++, null);
+        String clause = "select";
+        int group = -1;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.is("(")) {
+                frames.push(new Frame(i, block, clause, group));
+                if (i + 1 < tokens.size() && (tokens.get(i + 1).is("select") || tokens.get(i + 1).is("with"))) {
+                    block = new Block(blockIds++, block);
+                    group = -1;
+                } else {
+                    parentGroups.put(i, group);
+                    group = i;
+                }
+            } else if (token.is(")") && !frames.isEmpty()) {
+                Frame frame = frames.pop();
+                match[frame.open()] = i;
+                match[i] = frame.open();
+                block = frame.block();
+                clause = frame.clause();
+                group = frame.group();
+            } else if (token.type() == Type.WORD) {
+                switch (token.text()) {
+                    case "select", "from", "where", "on", "having", "limit", "offset", "fetch" -> clause = token.text();
+                    case "join" -> clause = "from";
+                    case "group", "order" -> clause = next(i).is("by") ? token.text() : clause;
+                    case "or" -> {
+                        if (group < 0) {
+                            block.disjunctive = true;
+                        } else {
+                            disjunctiveGroups.add(group);
+                        }
+                    }
+                    default -> {
+                        if (SET_OPERATORS.contains(token.text())) {
+                            block = new Block(blockIds++, block.parent);
+                            clause = "select";
+                        }
+                    }
+                }
+                if (token.is("from") || token.is("join")) {
+                    registerTables(i + 1, block);
+                }
+            }
+            blocks[i] = block;
+            clauses[i] = clause;
+            groups[i] = group;
+        }
+    }
+
+    private void registerTables(int start, Block block) {
+        int i = start;
+        while (i < tokens.size()) {
+            Token token = tokens.get(i);
+            if (token.is("(")) {
+                i++;
+                continue;
+            }
+            if (token.type() != Type.WORD || KEYWORDS.contains(token.text())) {
+                return;
+            }
+            String table = token.text();
+            String alias = table;
+            i++;
+            if (next(i - 1).is("as")) {
+                i++;
+            }
+            if (i < tokens.size() && tokens.get(i).type() == Type.WORD && !KEYWORDS.contains(tokens.get(i).text())) {
+                alias = tokens.get(i).text();
+                i++;
+            }
+            if (columns.containsKey(table)) {
+                block.tables.put(alias, table);
+                block.tables.putIfAbsent(table, table);
+            }
+            if (i < tokens.size() && tokens.get(i).is(",")) {
+                i++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void predicates() {
+        for (int k = 1; k < tokens.size(); k++) {
+            Token token = tokens.get(k);
+            if (token.is("order") && next(k).is("by")) {
+                sort(k + 2);
+                continue;
+            }
+            if (!FILTER_CLAUSES.contains(clauses[k])) {
+                continue;
+            }
+            boolean negated = tokens.get(k - 1).is("not");
+            int left = negated ? k - 1 : k;
+            if (token.type() == Type.SYMBOL && COMPARISONS.contains(token.text())) {
+                boolean equality = token.is("=");
+                compare(k, left, equality ? ColumnUsage.Kind.EQUALITY : rangeOrNone(token.text()), equality);
+            } else if (token.is("like") || token.is("ilike")) {
+                if (!negated && k + 1 < tokens.size()) {
+                    like(k, left);
+                }
+            } else if (token.is("in")) {
+                compare(k, left, negated ? null : ColumnUsage.Kind.EQUALITY, false);
+            } else if (token.is("between")) {
+                filter(k, operandBefore(left), negated ? null : ColumnUsage.Kind.RANGE);
+            } else if (token.is("is") && next(k).is("null")) {
+                filter(k, operandBefore(left), ColumnUsage.Kind.EQUALITY);
+            }
+        }
+    }
+
+    private static ColumnUsage.Kind rangeOrNone(String operator) {
+        return operator.equals("<>") || operator.equals("!=") ? null : ColumnUsage.Kind.RANGE;
+    }
+
+    private void compare(int k, int left, ColumnUsage.Kind kind, boolean equiJoin) {
+        if (kind == null || k + 1 >= tokens.size()) {
+            return;
+        }
+        Operand before = operandBefore(left);
+        Operand after = operandAfter(k);
+        if (before.shape() == Shape.COLUMN && after.shape() == Shape.COLUMN) {
+            if (equiJoin && !before.column().equals(after.column())) {
+                add(k, before.column(), before.key(), ColumnUsage.Kind.JOIN);
+                add(k, after.column(), after.key(), ColumnUsage.Kind.JOIN);
+            }
+        } else if (after.shape() == Shape.VALUE) {
+            filter(k, before, kind);
+        } else if (before.shape() == Shape.VALUE && tokens.get(k).type() == Type.SYMBOL) {
+            filter(k, after, kind);
+        }
+    }
+
+    private void filter(int k, Operand operand, ColumnUsage.Kind kind) {
+        if (kind == null) {
+            return;
+        }
+        if (operand.shape() == Shape.COLUMN || operand.shape() == Shape.FOLDED && kind == ColumnUsage.Kind.EQUALITY) {
+            add(k, operand.column(), operand.key(), kind);
+        }
+    }
+
+    private void like(int k, int left) {
+        Operand column = operandBefore(left);
+        Operand pattern = operandAfter(k);
+        if (column.shape() != Shape.COLUMN || pattern.shape() != Shape.VALUE) {
+            return;
+        }
+        List<Token> atoms = new ArrayList<>();
+        for (int i = pattern.start(); i <= pattern.end(); i++) {
+            Token token = tokens.get(i);
+            if (token.type() == Type.STRING || token.type() == Type.PARAMETER) {
+                atoms.add(token);
+            }
+        }
+        add(k, column.column(), column.key(), leadingWildcard(atoms) ? ColumnUsage.Kind.SUBSTRING : ColumnUsage.Kind.PREFIX);
+    }
+
+    private static boolean leadingWildcard(List<Token> atoms) {
+        if (atoms.isEmpty()) {
+            return true;
+        }
+        Token first = atoms.get(0);
+        if (first.type() == Type.STRING) {
+            return first.text().startsWith("%") || first.text().startsWith("_");
+        }
+        for (String suffix : LEADING_WILDCARD_SUFFIXES) {
+            if (first.text().endsWith(suffix)) {
+                return true;
+            }
+        }
+        // A bare pattern parameter may start with a wildcard at runtime
+        return atoms.size() == 1 && !first.text().endsWith("__STARTING");
+    }
+
+    private void sort(int start) {
+        List<ColumnRef> sorted = new ArrayList<>();
+        int i = start;
+        while (i < tokens.size() && groups[i] == groups[start] && blocks[i] == blocks[start]) {
+            ColumnRef column = resolve(i);
+            Token after = next(i);
+            if (column == null || !(after.is(",") || after.is("asc") || after.is("desc") || after.is("nulls")
+                    || after.is(")") || after.type() == Type.WORD && KEYWORDS.contains(after.text())
+                    || i + 1 == tokens.size())) {
+                break;
+            }
+            sorted.add(column);
+            i++;
+            while (i < tokens.size() && (tokens.get(i).is("asc") || tokens.get(i).is("desc")
+                    || tokens.get(i).is("nulls") || tokens.get(i).is("first") || tokens.get(i).is("last"))) {
+                i++;
+            }
+            if (i < tokens.size() && tokens.get(i).is(",")) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (!sorted.isEmpty() && sorted.stream().allMatch(column -> sameReference(column, sorted.get(0)))) {
+            sorted.forEach(column -> add(start, column, column.column(), ColumnUsage.Kind.SORT));
+        }
+    }
+
+    private static boolean sameReference(ColumnRef a, ColumnRef b) {
+        return a.block() == b.block() && a.alias().equals(b.alias());
+    }
+
+    private void add(int k, ColumnRef column, String key, ColumnUsage.Kind kind) {
+        usages.add(new ColumnUsage(column.block().id + ":" + column.alias(), column.table(), key, kind,
+                disjunctive(k)));
+    }
+
+    private boolean disjunctive(int k) {
+        for (int group = groups[k]; group >= 0; group = parentGroups.getOrDefault(group, -1)) {
+            if (disjunctiveGroups.contains(group)) {
+                return true;
+            }
+        }
+        return blocks[k].disjunctive;
+    }
+
+    private Operand operandBefore(int k) {
+        int end = k - 1;
+        int start = end;
+        if (end >= 0 && tokens.get(end).is(")")) {
+            start = match[end];
+            if (start > 0 && isFunction(start - 1)) {
+                start--;
+            }
+        }
+        return classify(Math.max(start, 0), Math.max(end, 0));
+    }
+
+    private Operand operandAfter(int k) {
+        int start = k + 1;
+        int end = start;
+        if (isFunction(start)) {
+            end = match[start + 1];
+        } else if (tokens.get(start).is("(")) {
+            end = match[start];
+        }
+        return classify(start, end);
+    }
+
+    private boolean isFunction(int i) {
+        return tokens.get(i).type() == Type.WORD && next(i).is("(") && !KEYWORDS.contains(tokens.get(i).text());
+    }
+
+    private Operand classify(int start, int end) {
+        boolean inExpression = start > 0 && ARITHMETIC.contains(tokens.get(start - 1).text())
+                && tokens.get(start - 1).type() == Type.SYMBOL
+                || ARITHMETIC.contains(next(end).text()) && next(end).type() == Type.SYMBOL;
+        if (start == end) {
+            ColumnRef column = resolve(start);
+            if (column != null) {
+                return new Operand(start, end, inExpression ? Shape.OTHER : Shape.COLUMN, column, column.column());
+            }
+            return new Operand(start, end, Shape.VALUE, null, null);
+        }
+        Token first = tokens.get(start);
+        if (first.is("(") && (next(start).is("select") || next(start).is("with"))) {
+            return new Operand(start, end, Shape.VALUE, null, null);
+        }
+        List<ColumnRef> referenced = new ArrayList<>();
+        for (int i = start; i <= end; i++) {
+            ColumnRef column = resolve(i);
+            if (column != null) {
+                referenced.add(column);
+            }
+        }
+        if (referenced.isEmpty()) {
+            return new Operand(start, end, Shape.VALUE, null, null);
+        }
+        if (!inExpression && end - start == 3 && CASE_FOLDING.contains(first.text()) && referenced.size() == 1) {
+            ColumnRef column = referenced.get(0);
+            return new Operand(start, end, Shape.FOLDED, column, first.text() + "(" + column.column() + ")");
+        }
+        return new Operand(start, end, Shape.OTHER, null, null);
+    }
+
+    private ColumnRef resolve(int i) {
+        Token token = tokens.get(i);
+        if (token.type() != Type.WORD || KEYWORDS.contains(token.text()) || next(i).is("(")) {
+            return null;
+        }
+        String text = token.text();
+        int dot = text.lastIndexOf('.');
+        String qualifier = dot > 0 ? text.substring(0, dot) : null;
+        String column = text.substring(dot + 1);
+        for (Block block = blocks[i]; block != null; block = block.parent) {
+            if (qualifier != null) {
+                String table = block.tables.get(qualifier);
+                if (table != null) {
+                    return columns.get(table).contains(column) ? new ColumnRef(block, qualifier, table, column) : null;
+                }
+                continue;
+            }
+            List<String> owners = block.tables.values().stream().distinct()
+                    .filter(table -> columns.get(table).contains(column))
+                    .toList();
+            if (owners.size() == 1) {
+                return new ColumnRef(block, owners.get(0), owners.get(0), column);
+            }
+            if (owners.size() > 1) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private Token next(int i) {
+        return i + 1 < tokens.size() ? tokens.get(i + 1) : new Token(Type.SYMBOL, "");
+    }
+
+    private static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                StringBuilder text = new StringBuilder();
+                i++;
+                while (i < sql.length()) {
+                    if (sql.charAt(i) == '\'' && i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                        text.append('\'');
+                        i += 2;
+                    } else if (sql.charAt(i) == '\'') {
+                        i++;
+                        break;
+                    } else {
+                        text.append(sql.charAt(i++));
+                    }
+                }
+                tokens.add(new Token(Type.STRING, text.toString()));
+            } else if (c == '"') {
+                i = sql.indexOf('"', i + 1) + 1;
+                if (i == 0) {
+                    i = sql.length();
+                }
+                tokens.add(new Token(Type.WORD, sql.substring(start + 1, Math.max(start + 1, i - 1))
+                        .toLowerCase(Locale.ROOT)));
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < sql.length() && (isIdentifierPart(sql.charAt(i)) || sql.charAt(i) == '.'
+                        && i + 1 < sql.length() && (isIdentifierPart(sql.charAt(i + 1)) || sql.charAt(i + 1) == '*'))) {
+                    i += sql.charAt(i) == '.' && sql.charAt(i + 1) == '*' ? 2 : 1;
+                }
+                tokens.add(new Token(Type.WORD, sql.substring(start, i).toLowerCase(Locale.ROOT)));
+            } else if (Character.isDigit(c)) {
+                while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(Type.NUMBER, sql.substring(start, i)));
+            } else if ((c == ':' || c == '?') && i + 1 < sql.length() && isIdentifierPart(sql.charAt(i + 1))) {
+                i++;
+                while (i < sql.length() && isIdentifierPart(sql.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Type.PARAMETER, sql.substring(start, i)));
+            } else if (c == '?') {
+                i++;
+                tokens.add(new Token(Type.PARAMETER, "?"));
+            } else {
+                String pair = i + 1 < sql.length() ? sql.substring(i, i + 2) : "";
+                boolean twoCharacters = Set.of("<=", ">=", "<>", "!=", "||", "::").contains(pair);
+                i += twoCharacters ? 2 : 1;
+                tokens.add(new Token(Type.SYMBOL, sql.substring(start, i)));
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
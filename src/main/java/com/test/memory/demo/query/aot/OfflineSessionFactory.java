@@ -0,0 +1,54 @@
+package com.test.memory.demo.query.aot;
+
+import jakarta.persistence.Entity;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Builds a Hibernate session factory for the application entities without a database: the
+ * dialect is given explicitly and JDBC metadata access on boot is disabled. The naming strategies
+ * match the ones Spring Boot configures, so the generated SQL is the SQL the application runs.
+ */
+public final class OfflineSessionFactory {
+
+    public static final String ENTITY_PACKAGE = "com.test.memory.demo.entities";
+
+    private OfflineSessionFactory() {
+    }
+
+    public static SessionFactoryImplementor build(String dialect) {
+        return metadata(dialect).buildSessionFactory().unwrap(SessionFactoryImplementor.class);
+    }
+
+    /**
+     * The boot model of the entities: tables, columns, keys and indexes as {@code ddl-auto} would
+     * create them.
+     */
+    public static Metadata metadata(String dialect) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, dialect)
+                .applySetting(AvailableSettings.ALLOW_METADATA_ON_BOOT, false)
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY,
+                        CamelCaseToUnderscoresNamingStrategy.class.getName())
+                .applySetting(AvailableSettings.IMPLICIT_NAMING_STRATEGY,
+                        SpringImplicitNamingStrategy.class.getName())
+                .build();
+        MetadataSources sources = new MetadataSources(registry);
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        for (BeanDefinition candidate : scanner.findCandidateComponents(ENTITY_PACKAGE)) {
+            sources.addAnnotatedClass(ClassUtils.resolveClassName(candidate.getBeanClassName(), null));
+        }
+        return sources.buildMetadata();
+    }
+}
@@ -0,0 +1,12 @@
+package com.test.memory.demo.query.aot;
+
+import java.util.List;
+
+/**
+ * Content of {@value QueryPlanCompiler#RESOURCE}.
+ *
+ * @param dialect Hibernate dialect the SQL was generated for
+ * @param queries the precompiled queries
+ */
+public record PrecompiledQueries(String dialect, List<PrecompiledQuery> queries) {
+}
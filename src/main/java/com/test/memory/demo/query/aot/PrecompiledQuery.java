@@ -0,0 +1,56 @@
+package com.test.memory.demo.query.aot;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A repository {@code @Query} compiled to SQL at build time by {@link QueryPlanCompiler}.
+ *
+ * @param repository     fully qualified repository interface
+ * @param method         method name
+ * @param parameterTypes method parameter types, to tell overloads apart
+ * @param sql            SQL generated by Hibernate for the configured dialect
+ * @param resultType     entity class for entity results, otherwise the scalar type
+ * @param entityResult   whether rows map to {@code resultType} as an entity
+ * @param parameters     JDBC parameters in order of appearance in {@code sql}
+ */
+public record PrecompiledQuery(String repository, String method, List<String> parameterTypes, String sql,
+        String resultType, boolean entityResult, List<Parameter> parameters) {
+
+    public static String key(Class<?> repository, Method method) {
+        return key(repository.getName(), method.getName(),
+                Arrays.stream(method.getParameterTypes()).map(Class::getName).toList());
+    }
+
+    public String key() {
+        return key(repository, method, parameterTypes);
+    }
+
+    private static String key(String repository, String method, List<String> parameterTypes) {
+        return repository + "#" + method + parameterTypes;
+    }
+
+    /**
+     * @param name name of the method parameter bound at this position
+     * @param like wildcards Spring Data adds for its {@code %:name%} shorthand
+     */
+    public record Parameter(String name, Like like) {
+    }
+
+    public enum Like {
+        NONE, STARTING, ENDING, CONTAINING;
+
+        public Object apply(Object value) {
+            if (value == null) {
+                return null;
+            }
+            return switch (this) {
+                case NONE -> value;
+                case STARTING -> value + "%";
+                case ENDING -> "%" + value;
+                case CONTAINING -> "%" + value + "%";
+            };
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.test.memory.demo.query.aot;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Runtime mode using the build-time compiled query plans, enabled with
+ * {@code demo.query.precompiled.enabled=true}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.query.precompiled", name = "enabled", havingValue = "true")
+public class PrecompiledQueryConfiguration {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    static PrecompiledQueryLookup precompiledQueryLookup() {
+        return new PrecompiledQueryLookup(PrecompiledQueryLookup.load(PrecompiledQueryConfiguration.class.getClassLoader()));
+    }
+}
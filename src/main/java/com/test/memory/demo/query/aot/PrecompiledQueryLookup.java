@@ -0,0 +1,74 @@
+package com.test.memory.demo.query.aot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.memory.demo.query.QueryLookupStrategyDecorator;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.provider.PersistenceProvider;
+import org.springframework.data.jpa.repository.query.DefaultJpaQueryMethodFactory;
+import org.springframework.data.jpa.repository.query.JpaQueryMethodFactory;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serves repository query methods from the plans compiled at build time by
+ * {@link QueryPlanCompiler}; methods without a plan go through Spring Data as usual. Plans are
+ * ignored when they were compiled for a different dialect than the one in use.
+ */
+public class PrecompiledQueryLookup implements QueryLookupStrategyDecorator {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecompiledQueryLookup.class);
+
+    private final PrecompiledQueries plans;
+    private final Map<String, PrecompiledQuery> plansByKey;
+
+    public PrecompiledQueryLookup(PrecompiledQueries plans) {
+        this.plans = plans;
+        this.plansByKey = plans.queries().stream()
+                .collect(Collectors.toMap(PrecompiledQuery::key, Function.identity()));
+    }
+
+    public static PrecompiledQueries load(ClassLoader classLoader) {
+        ClassPathResource resource = new ClassPathResource(QueryPlanCompiler.RESOURCE, classLoader);
+        if (!resource.exists()) {
+            log.warn("{} not found, build with -Pprecompile-queries", QueryPlanCompiler.RESOURCE);
+            return new PrecompiledQueries(null, List.of());
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return new ObjectMapper().readValue(in, PrecompiledQueries.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + QueryPlanCompiler.RESOURCE, e);
+        }
+    }
+
+    @Override
+    public QueryLookupStrategy decorate(QueryLookupStrategy delegate, EntityManager entityManager) {
+        String dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getClass().getName();
+        if (plansByKey.isEmpty() || !dialect.equals(plans.dialect())) {
+            if (!plansByKey.isEmpty()) {
+                log.warn("Ignoring precompiled queries built for {}, running on {}", plans.dialect(), dialect);
+            }
+            return delegate;
+        }
+        JpaQueryMethodFactory queryMethods = new DefaultJpaQueryMethodFactory(
+                PersistenceProvider.fromEntityManager(entityManager));
+        return (method, metadata, factory, namedQueries) -> {
+            PrecompiledQuery plan = plansByKey.get(PrecompiledQuery.key(metadata.getRepositoryInterface(), method));
+            if (plan == null) {
+                return delegate.resolveQuery(method, metadata, factory, namedQueries);
+            }
+            return new PrecompiledRepositoryQuery(queryMethods.build(method, metadata, factory), plan, entityManager);
+        };
+    }
+}
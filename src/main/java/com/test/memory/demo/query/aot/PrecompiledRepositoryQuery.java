@@ -0,0 +1,73 @@
+package com.test.memory.demo.query.aot;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.jpa.repository.query.JpaParameters;
+import org.springframework.data.jpa.repository.query.JpaQueryMethod;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the SQL of a {@link PrecompiledQuery} as a native query, binding the method arguments to
+ * the recorded JDBC parameter positions.
+ */
+class PrecompiledRepositoryQuery implements RepositoryQuery {
+
+    private final JpaQueryMethod queryMethod;
+    private final PrecompiledQuery plan;
+    private final EntityManager entityManager;
+    private final Class<?> resultType;
+    private final Map<String, Integer> argumentIndexes = new HashMap<>();
+
+    PrecompiledRepositoryQuery(JpaQueryMethod queryMethod, PrecompiledQuery plan, EntityManager entityManager) {
+        this.queryMethod = queryMethod;
+        this.plan = plan;
+        this.entityManager = entityManager;
+        this.resultType = ClassUtils.resolveClassName(plan.resultType(), queryMethod.getEntityInformation()
+                .getJavaType().getClassLoader());
+        JpaParameters parameters = queryMethod.getParameters();
+        parameters.getBindableParameters().forEach(parameter ->
+                parameter.getName().ifPresent(name -> argumentIndexes.put(name, parameter.getIndex())));
+    }
+
+    @Override
+    public Object execute(Object[] arguments) {
+        Query query = plan.entityResult()
+                ? entityManager.createNativeQuery(plan.sql(), resultType)
+                : entityManager.createNativeQuery(plan.sql());
+        List<PrecompiledQuery.Parameter> parameters = plan.parameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            PrecompiledQuery.Parameter parameter = parameters.get(i);
+            Integer index = argumentIndexes.get(parameter.name());
+            if (index == null) {
+                throw new IllegalStateException("No argument named " + parameter.name() + " for " + plan.key());
+            }
+            query.setParameter(i + 1, parameter.like().apply(arguments[index]));
+        }
+
+        List<?> rows = query.getResultList();
+        if (!plan.entityResult()) {
+            rows = rows.stream().map(row -> DefaultConversionService.getSharedInstance().convert(row, resultType))
+                    .toList();
+        }
+        if (queryMethod.isCollectionQuery()) {
+            return rows;
+        }
+        if (rows.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, rows.size());
+        }
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public QueryMethod getQueryMethod() {
+        return queryMethod;
+    }
+}
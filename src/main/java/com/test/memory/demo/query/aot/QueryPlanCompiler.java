@@ -0,0 +1,268 @@
+package com.test.memory.demo.query.aot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.hibernate.engine.spi.LoadQueryInfluencers;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.internal.ParameterMetadataImpl;
+import org.hibernate.query.internal.QueryParameterBindingsImpl;
+import org.hibernate.query.spi.QueryOptions;
+import org.hibernate.query.sqm.internal.DomainParameterXref;
+import org.hibernate.query.sqm.sql.SqmTranslation;
+import org.hibernate.query.sqm.tree.SqmStatement;
+import org.hibernate.query.sqm.tree.from.SqmRoot;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.hibernate.query.sqm.tree.select.SqmSelectableNode;
+import org.hibernate.query.sqm.tree.select.SqmSelection;
+import org.hibernate.sql.ast.tree.expression.JdbcParameter;
+import org.hibernate.sql.ast.tree.select.SelectStatement;
+import org.hibernate.sql.exec.spi.JdbcOperationQuerySelect;
+import org.hibernate.sql.exec.spi.JdbcParameterBinder;
+import org.hibernate.sql.exec.spi.JdbcParameterBindings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Build-time compiler for the JPQL {@code @Query} methods of the repositories. Each query is
+ * translated by Hibernate's own SQM to SQL pipeline on an {@link OfflineSessionFactory} and stored,
+ * with the order of its JDBC parameters, in {@value #RESOURCE}. At runtime
+ * {@link PrecompiledQueryLookup} executes that SQL directly, skipping the HQL parser.
+ * <p>
+ * Queries whose SQL depends on the call (collection parameters, paging, sorting), that fetch
+ * associations, carry hints or select more than a single entity or value are left to Spring Data.
+ * Run by the {@code precompile-queries} Maven profile: {@code java QueryPlanCompiler <output dir> [dialect]}.
+ */
+public final class QueryPlanCompiler {
+
+    public static final String RESOURCE = "META-INF/demo/precompiled-queries.json";
+    public static final String REPOSITORY_PACKAGE = "com.test.memory.demo.repositories";
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanCompiler.class);
+
+    private static final Pattern CONTAINING = Pattern.compile("%:(\\w+)%");
+    private static final Pattern ENDING = Pattern.compile("%:(\\w+)");
+    private static final Pattern STARTING = Pattern.compile(":(\\w+)%");
+    private static final Pattern FETCH = Pattern.compile("\\bFETCH\\b", Pattern.CASE_INSENSITIVE);
+    private static final String LIKE_SUFFIX = "__";
+    private static final List<Class<?>> DYNAMIC_PARAMETERS = List.of(Collection.class, Pageable.class, Sort.class,
+            Limit.class, ScrollPosition.class, Object[].class);
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    public QueryPlanCompiler(SessionFactoryImplementor sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Path.of(args.length > 0 ? args[0] : "target/classes").resolve(RESOURCE);
+        String dialect = args.length > 1 ? args[1] : "org.hibernate.dialect.PostgreSQLDialect";
+        try (SessionFactoryImplementor sessionFactory = OfflineSessionFactory.build(dialect)) {
+            List<PrecompiledQuery> queries = new QueryPlanCompiler(sessionFactory).compileAll(repositories());
+            Files.createDirectories(output.getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(output.toFile(), new PrecompiledQueries(dialect, queries));
+            log.info("Precompiled {} repository queries to {}", queries.size(), output);
+        }
+    }
+
+    public static List<Class<?>> repositories() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(Repository.class));
+        return scanner.findCandidateComponents(REPOSITORY_PACKAGE).stream()
+                .map(BeanDefinition::getBeanClassName)
+                .sorted()
+                .<Class<?>>map(name -> ClassUtils.resolveClassName(name, null))
+                .toList();
+    }
+
+    public List<PrecompiledQuery> compileAll(List<Class<?>> repositories) {
+        List<PrecompiledQuery> compiled = new ArrayList<>();
+        for (Class<?> repository : repositories) {
+            Arrays.stream(ReflectionUtils.getDeclaredMethods(repository))
+                    .sorted(Comparator.comparing(Method::getName))
+                    .forEach(method -> compile(repository, method).ifPresent(compiled::add));
+        }
+        return compiled;
+    }
+
+    public Optional<PrecompiledQuery> compile(Class<?> repository, Method method) {
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query == null || query.nativeQuery() || query.value().isEmpty()) {
+            return Optional.empty();
+        }
+        String skipReason = skipReason(method, query.value());
+        if (skipReason != null) {
+            log.debug("Not precompiling {}.{}: {}", repository.getSimpleName(), method.getName(), skipReason);
+            return Optional.empty();
+        }
+        try {
+            return translate(repository, method, query.value());
+        } catch (RuntimeException e) {
+            log.warn("Could not precompile {}.{}", repository.getSimpleName(), method.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static String skipReason(Method method, String jpql) {
+        if (FETCH.matcher(jpql).find()) {
+            return "fetch join";
+        }
+        if (Stream.of(Modifying.class, QueryHints.class, EntityGraph.class, Lock.class)
+                .anyMatch(annotation -> AnnotatedElementUtils.hasAnnotation(method, annotation))) {
+            return "modifying query, hints, entity graph or lock";
+        }
+        if (Stream.class.isAssignableFrom(method.getReturnType())) {
+            return "stream result";
+        }
+        for (Class<?> type : method.getParameterTypes()) {
+            if (DYNAMIC_PARAMETERS.stream().anyMatch(dynamic -> dynamic.isAssignableFrom(type))) {
+                return "parameter of type " + type.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    private Optional<PrecompiledQuery> translate(Class<?> repository, Method method, String jpql) {
+        String hql = rewriteLikeShorthand(jpql);
+        SqmStatement<?> statement = sessionFactory.getQueryEngine().getHqlTranslator().translate(hql, null);
+        if (!(statement instanceof SqmSelectStatement<?> select)) {
+            return Optional.empty();
+        }
+        List<SqmSelection<?>> selections = select.getQuerySpec().getSelectClause().getSelections();
+        if (selections.size() != 1) {
+            return Optional.empty();
+        }
+        SqmSelectableNode<?> selected = selections.get(0).getSelectableNode();
+        boolean entityResult = selected instanceof SqmRoot<?>;
+        if (!entityResult && (selected.getJavaType() == null || !BeanUtils.isSimpleValueType(selected.getJavaType()))) {
+            return Optional.empty();
+        }
+
+        return translate(select).map(translation -> new PrecompiledQuery(repository.getName(), method.getName(),
+                Arrays.stream(method.getParameterTypes()).map(Class::getName).toList(), translation.sql(),
+                selected.getJavaType().getName(), entityResult, translation.parameters()));
+    }
+
+    /**
+     * SQL of a JPQL select with each JDBC parameter written as the named parameter it binds, Spring
+     * Data's LIKE shorthand kept as a suffix ({@code :name__CONTAINING}). Empty for update and
+     * delete statements.
+     */
+    public Optional<String> toSql(String jpql) {
+        SqmStatement<?> statement = sessionFactory.getQueryEngine().getHqlTranslator()
+                .translate(rewriteLikeShorthand(jpql), null);
+        if (!(statement instanceof SqmSelectStatement<?> select)) {
+            return Optional.empty();
+        }
+        return translate(select).map(translation -> {
+            StringBuilder sql = new StringBuilder();
+            Iterator<PrecompiledQuery.Parameter> parameters = translation.parameters().iterator();
+            boolean quoted = false;
+            for (char c : translation.sql().toCharArray()) {
+                quoted ^= c == '\'';
+                if (c == '?' && !quoted) {
+                    PrecompiledQuery.Parameter parameter = parameters.next();
+                    sql.append(':').append(parameter.name());
+                    if (parameter.like() != PrecompiledQuery.Like.NONE) {
+                        sql.append(LIKE_SUFFIX).append(parameter.like());
+                    }
+                } else {
+                    sql.append(c);
+                }
+            }
+            return sql.toString();
+        });
+    }
+
+    private Optional<Translation> translate(SqmSelectStatement<?> select) {
+        DomainParameterXref parameterXref = DomainParameterXref.from(select);
+        ParameterMetadataImpl parameterMetadata = parameterXref.hasParameters()
+                ? new ParameterMetadataImpl(parameterXref.getQueryParameters())
+                : ParameterMetadataImpl.EMPTY;
+        SqmTranslation<SelectStatement> translation = sessionFactory.getQueryEngine().getSqmTranslatorFactory()
+                .createSelectTranslator(select, QueryOptions.NONE, parameterXref,
+                        QueryParameterBindingsImpl.from(parameterMetadata, sessionFactory),
+                        new LoadQueryInfluencers(sessionFactory), sessionFactory, true)
+                .translate();
+        JdbcOperationQuerySelect jdbcSelect = sessionFactory.getJdbcServices().getJdbcEnvironment()
+                .getSqlAstTranslatorFactory()
+                .buildSelectTranslator(sessionFactory, translation.getSqlAst())
+                .translate(JdbcParameterBindings.NO_BINDINGS, QueryOptions.NONE);
+
+        Map<JdbcParameter, String> names = new IdentityHashMap<>();
+        translation.getJdbcParamsBySqmParam().forEach((parameter, jdbcParameters) ->
+                jdbcParameters.forEach(list -> list.forEach(jdbcParameter ->
+                        names.put(jdbcParameter, parameter.getName()))));
+        List<PrecompiledQuery.Parameter> parameters = new ArrayList<>();
+        for (JdbcParameterBinder binder : jdbcSelect.getParameterBinders()) {
+            String name = binder instanceof JdbcParameter jdbcParameter ? names.get(jdbcParameter) : null;
+            if (name == null) {
+                return Optional.empty();
+            }
+            parameters.add(parameter(name));
+        }
+        return Optional.of(new Translation(jdbcSelect.getSqlString(), parameters));
+    }
+
+    /**
+     * Replaces Spring Data's {@code %:name%} shorthand by plain parameters whose name records
+     * the wildcards to add, e.g. {@code :name__CONTAINING}.
+     */
+    static String rewriteLikeShorthand(String jpql) {
+        String hql = CONTAINING.matcher(jpql).replaceAll(":$1" + LIKE_SUFFIX + PrecompiledQuery.Like.CONTAINING);
+        hql = ENDING.matcher(hql).replaceAll(":$1" + LIKE_SUFFIX + PrecompiledQuery.Like.ENDING);
+        return STARTING.matcher(hql).replaceAll(":$1" + LIKE_SUFFIX + PrecompiledQuery.Like.STARTING);
+    }
+
+    private record Translation(String sql, List<PrecompiledQuery.Parameter> parameters) {
+    }
+
+    private static PrecompiledQuery.Parameter parameter(String name) {
+        int suffix = name.lastIndexOf(LIKE_SUFFIX);
+        if (suffix > 0) {
+            String like = name.substring(suffix + LIKE_SUFFIX.length()).toUpperCase(Locale.ROOT);
+            return new PrecompiledQuery.Parameter(name.substring(0, suffix), PrecompiledQuery.Like.valueOf(like));
+        }
+        return new PrecompiledQuery.Parameter(name, PrecompiledQuery.Like.NONE);
+    }
+}
@@ -0,0 +1,32 @@
+package com.test.memory.demo.query.plancache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Size-aware query plan cache, enabled with {@code demo.query.plan-cache.enabled=true}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.query.plan-cache", name = "enabled", havingValue = "true")
+public class QueryPlanCacheConfiguration {
+
+    @Bean
+    static WeightedQueryInterpretationCache weightedQueryInterpretationCache(
+            @Value("${demo.query.plan-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${demo.query.plan-cache.retained-ratio:0.05}") double retainedRatio) {
+        return new WeightedQueryInterpretationCache(maxSize.toBytes(), retainedRatio);
+    }
+
+    @Bean
+    static QueryPlanCacheInstaller queryPlanCacheInstaller(WeightedQueryInterpretationCache cache) {
+        return new QueryPlanCacheInstaller(cache);
+    }
+
+    @Bean
+    QueryPlanCacheMetrics queryPlanCacheMetrics(WeightedQueryInterpretationCache cache) {
+        return new QueryPlanCacheMetrics(cache);
+    }
+}
@@ -0,0 +1,51 @@
+package com.test.memory.demo.query.plancache;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.internal.QueryEngineImpl;
+import org.hibernate.query.spi.QueryEngine;
+import org.hibernate.query.spi.QueryInterpretationCache;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import java.lang.reflect.Field;
+
+/**
+ * Swaps Hibernate's count-bounded interpretation cache for the
+ * {@link WeightedQueryInterpretationCache} as soon as the session factory is built, before any
+ * repository query is compiled. Hibernate offers no setting for a custom implementation, so the
+ * field of the query engine is replaced.
+ */
+public class QueryPlanCacheInstaller implements BeanPostProcessor {
+
+    private final WeightedQueryInterpretationCache cache;
+
+    public QueryPlanCacheInstaller(WeightedQueryInterpretationCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof AbstractEntityManagerFactoryBean factoryBean) {
+            install(factoryBean.getNativeEntityManagerFactory().unwrap(SessionFactoryImplementor.class));
+        }
+        return bean;
+    }
+
+    private void install(SessionFactoryImplementor sessionFactory) {
+        QueryEngine queryEngine = sessionFactory.getQueryEngine();
+        if (!(queryEngine instanceof QueryEngineImpl)) {
+            throw new IllegalStateException("Unsupported query engine " + queryEngine.getClass().getName());
+        }
+        try {
+            Field field = QueryEngineImpl.class.getDeclaredField("interpretationCache");
+            field.setAccessible(true);
+            QueryInterpretationCache previous = (QueryInterpretationCache) field.get(queryEngine);
+            cache.attachTo(sessionFactory);
+            field.set(queryEngine, cache);
+            previous.close();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not install the query plan cache", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.test.memory.demo.query.plancache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Publishes the plan cache as {@code cache.*{cache=query.plan}} plus hit, miss and eviction counts
+ * per repository method ({@code demo.query.plan.cache.requests}, {@code demo.query.plan.cache.evictions}).
+ */
+public class QueryPlanCacheMetrics implements MeterBinder {
+
+    private final WeightedQueryInterpretationCache cache;
+
+    public QueryPlanCacheMetrics(WeightedQueryInterpretationCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.cache(), "query.plan");
+        Gauge.builder("demo.query.plan.cache.weighted.size", cache, WeightedQueryInterpretationCache::weightedSize)
+                .baseUnit("bytes")
+                .description("Estimated heap held by cached query plans")
+                .register(registry);
+        cache.onMethodStats((method, stats) -> {
+            FunctionCounter.builder("demo.query.plan.cache.requests", stats,
+                            WeightedQueryInterpretationCache.MethodStats::hits)
+                    .tags("method", method, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("demo.query.plan.cache.requests", stats,
+                            WeightedQueryInterpretationCache.MethodStats::misses)
+                    .tags("method", method, "result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("demo.query.plan.cache.evictions", stats,
+                            WeightedQueryInterpretationCache.MethodStats::evictions)
+                    .tags("method", method)
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,274 @@
+package com.test.memory.demo.query.plancache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.test.memory.demo.query.RepositoryMethodContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.hql.HqlTranslator;
+import org.hibernate.query.internal.ParameterMetadataImpl;
+import org.hibernate.query.spi.HqlInterpretation;
+import org.hibernate.query.spi.NonSelectQueryPlan;
+import org.hibernate.query.spi.QueryInterpretationCache;
+import org.hibernate.query.spi.SelectQueryPlan;
+import org.hibernate.query.spi.SimpleHqlInterpretationImpl;
+import org.hibernate.query.sql.spi.ParameterInterpretation;
+import org.hibernate.query.sqm.internal.DomainParameterXref;
+import org.hibernate.query.sqm.tree.SqmStatement;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Hibernate {@link QueryInterpretationCache} bounded by the estimated size of the cached plans
+ * instead of their number. Eviction is Caffeine's W-TinyLFU, so a rarely used but huge plan (the
+ * HQL interpretation behind {@code AppUserRepository.findComplexAppUserByUserId}) is dropped
+ * before small hot ones and simply recompiled the next time it is needed.
+ * <p>
+ * The size of an entry is estimated from the bytes allocated while building it, scaled by
+ * {@code retainedRatio} (the profile from {@link com.test.memory.demo.diagnostics.QueryPlanProfiler}
+ * shows retained heap being a few percent of the allocation).
+ */
+public class WeightedQueryInterpretationCache implements QueryInterpretationCache {
+
+    static final String UNATTRIBUTED = "unattributed";
+
+    private static final int MIN_WEIGHT = 1024;
+
+    private final Cache<Object, Entry> cache;
+    private final double retainedRatio;
+    private volatile Supplier<StatisticsImplementor> statisticsSupplier = () -> null;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final Map<String, MethodStats> methodStats = new ConcurrentHashMap<>();
+    private volatile BiConsumer<String, MethodStats> methodStatsListener = (method, stats) -> {
+    };
+
+    public WeightedQueryInterpretationCache(long maxBytes, double retainedRatio) {
+        this.retainedRatio = retainedRatio;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Object key, Entry entry) -> entry.weight())
+                .removalListener((Object key, Entry entry, RemovalCause cause) -> {
+                    if (entry != null && cause.wasEvicted()) {
+                        stats(entry.method()).evictions.increment();
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Reports hits, misses and compile times to the statistics of the given session factory.
+     */
+    public void attachTo(SessionFactoryImplementor sessionFactory) {
+        this.statisticsSupplier = sessionFactory::getStatistics;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R> HqlInterpretation<R> resolveHqlInterpretation(String queryString, Class<R> expectedResultType,
+            HqlTranslator translator) {
+        StatisticsImplementor statistics = statisticsSupplier.get();
+        Object key = expectedResultType != null ? new HqlKey(queryString, expectedResultType) : queryString;
+
+        Entry existing = cache.getIfPresent(key);
+        if (existing == null && expectedResultType != null) {
+            existing = cache.getIfPresent(queryString);
+        }
+        if (existing != null) {
+            hit(queryString, statistics);
+            return (HqlInterpretation<R>) existing.value();
+        }
+
+        long start = System.nanoTime();
+        Entry created = measure(() -> createHqlInterpretation(queryString, expectedResultType, translator));
+        if (statisticsEnabled(statistics)) {
+            statistics.queryCompiled(queryString,
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+        stats(created.method()).misses.increment();
+        cache.put(key, created);
+        return (HqlInterpretation<R>) created.value();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R> SelectQueryPlan<R> resolveSelectQueryPlan(Key key, Supplier<SelectQueryPlan<R>> creator) {
+        StatisticsImplementor statistics = statisticsSupplier.get();
+        Entry existing = cache.getIfPresent(key);
+        if (existing != null) {
+            hit(key.getQueryString(), statistics);
+            return (SelectQueryPlan<R>) existing.value();
+        }
+
+        Entry created = measure(creator::get);
+        cache.put(key.prepareForStore(), created);
+        stats(created.method()).misses.increment();
+        if (statisticsEnabled(statistics)) {
+            statistics.queryPlanCacheMiss(key.getQueryString());
+        }
+        return (SelectQueryPlan<R>) created.value();
+    }
+
+    @Override
+    public NonSelectQueryPlan getNonSelectQueryPlan(Key key) {
+        return null;
+    }
+
+    @Override
+    public void cacheNonSelectQueryPlan(Key key, NonSelectQueryPlan plan) {
+    }
+
+    @Override
+    public ParameterInterpretation resolveNativeQueryParameters(String queryString,
+            Function<String, ParameterInterpretation> creator) {
+        NativeKey key = new NativeKey(queryString);
+        Entry existing = cache.getIfPresent(key);
+        if (existing != null) {
+            return (ParameterInterpretation) existing.value();
+        }
+        Entry created = measure(() -> creator.apply(queryString));
+        cache.put(key, created);
+        return (ParameterInterpretation) created.value();
+    }
+
+    @Override
+    public int getNumberOfCachedHqlInterpretations() {
+        return (int) cache.asMap().values().stream().filter(e -> e.value() instanceof HqlInterpretation).count();
+    }
+
+    @Override
+    public int getNumberOfCachedQueryPlans() {
+        return (int) cache.asMap().values().stream().filter(e -> e.value() instanceof SelectQueryPlan).count();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    public Cache<Object, Entry> cache() {
+        return cache;
+    }
+
+    public Map<String, MethodStats> methodStats() {
+        return methodStats;
+    }
+
+    /**
+     * Estimated bytes currently held by the cache.
+     */
+    public long weightedSize() {
+        return cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Called for every repository method seen so far and for each new one, used to register meters.
+     */
+    public void onMethodStats(BiConsumer<String, MethodStats> listener) {
+        this.methodStatsListener = listener;
+        methodStats.forEach(listener);
+    }
+
+    MethodStats stats(String method) {
+        MethodStats stats = methodStats.get(method);
+        if (stats == null) {
+            MethodStats created = new MethodStats();
+            stats = methodStats.putIfAbsent(method, created);
+            if (stats == null) {
+                stats = created;
+                methodStatsListener.accept(method, created);
+            }
+        }
+        return stats;
+    }
+
+    private void hit(String queryString, StatisticsImplementor statistics) {
+        stats(currentMethod()).hits.increment();
+        if (statisticsEnabled(statistics)) {
+            statistics.queryPlanCacheHit(queryString);
+        }
+    }
+
+    private static boolean statisticsEnabled(StatisticsImplementor statistics) {
+        return statistics != null && statistics.isStatisticsEnabled();
+    }
+
+    private Entry measure(Supplier<?> creator) {
+        long allocatedBefore = allocatedBytes();
+        Object value = creator.get();
+        long estimate = (long) ((allocatedBytes() - allocatedBefore) * retainedRatio);
+        int weight = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_WEIGHT, estimate));
+        return new Entry(value, weight, currentMethod());
+    }
+
+    private long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemoryEnabled()) {
+            return hotspot.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    private static String currentMethod() {
+        String method = RepositoryMethodContext.current();
+        return method != null ? method : UNATTRIBUTED;
+    }
+
+    private static <R> HqlInterpretation<R> createHqlInterpretation(String queryString, Class<R> expectedResultType,
+            HqlTranslator translator) {
+        SqmStatement<R> sqmStatement = translator.translate(queryString, expectedResultType);
+        if (sqmStatement.getSqmParameters().isEmpty()) {
+            return new SimpleHqlInterpretationImpl<>(sqmStatement, ParameterMetadataImpl.EMPTY,
+                    DomainParameterXref.empty());
+        }
+        DomainParameterXref domainParameterXref = DomainParameterXref.from(sqmStatement);
+        return new SimpleHqlInterpretationImpl<>(sqmStatement,
+                new ParameterMetadataImpl(domainParameterXref.getQueryParameters()), domainParameterXref);
+    }
+
+    /**
+     * A cached plan with its estimated size and the repository method that compiled it.
+     */
+    public record Entry(Object value, int weight, String method) {
+    }
+
+    /**
+     * Per repository method counters.
+     */
+    public static final class MethodStats {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+
+        public long hits() {
+            return hits.sum();
+        }
+
+        public long misses() {
+            return misses.sum();
+        }
+
+        public long evictions() {
+            return evictions.sum();
+        }
+    }
+
+    private record HqlKey(String queryString, Class<?> expectedResultType) {
+    }
+
+    private record NativeKey(String queryString) {
+    }
+}
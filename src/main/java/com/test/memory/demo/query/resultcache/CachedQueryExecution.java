@@ -0,0 +1,36 @@
+package com.test.memory.demo.query.resultcache;
+
+import com.test.memory.demo.query.CachedQuery;
+import com.test.memory.demo.query.QueryLookupStrategyDecorator;
+import jakarta.persistence.EntityManager;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.RepositoryQuery;
+
+/**
+ * Wraps the query methods annotated with {@link CachedQuery} in a {@link CachedRepositoryQuery}.
+ * Applied just inside {@code ReadOnlyQueryExecution}, so that a hit skips lazy compilation,
+ * profiling and the query itself.
+ */
+public class CachedQueryExecution implements QueryLookupStrategyDecorator {
+
+    private final QueryResultCache cache;
+
+    public CachedQueryExecution(QueryResultCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public QueryLookupStrategy decorate(QueryLookupStrategy delegate, EntityManager entityManager) {
+        return (method, metadata, factory, namedQueries) -> {
+            RepositoryQuery query = delegate.resolveQuery(method, metadata, factory, namedQueries);
+            CachedQuery cached = AnnotatedElementUtils.findMergedAnnotation(method, CachedQuery.class);
+            if (cached == null) {
+                return query;
+            }
+            String name = metadata.getRepositoryInterface().getSimpleName() + "." + method.getName();
+            return new CachedRepositoryQuery(query, entityManager, cache,
+                    cache.cache(method, name, cached.maximumSize()), cached.value());
+        };
+    }
+}
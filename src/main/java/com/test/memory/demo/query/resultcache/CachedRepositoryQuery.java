@@ -0,0 +1,157 @@
+package com.test.memory.demo.query.resultcache;
+
+import com.test.memory.demo.query.resultcache.QueryResultCache.CachedResult;
+import com.test.memory.demo.query.resultcache.QueryResultCache.MethodCache;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ObjectUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Serves a query method from its {@link MethodCache} while the generations of its entities are
+ * unchanged, see {@link QueryResultCache}.
+ * <p>
+ * Transactions that wrote (or hold unflushed changes to) entities bypass the cache, they have to
+ * see their own writes and must not publish them before they commit.
+ */
+class CachedRepositoryQuery implements RepositoryQuery {
+
+    private final RepositoryQuery delegate;
+    private final EntityManager entityManager;
+    private final QueryResultCache resultCache;
+    private final MethodCache cache;
+    private final Class<?>[] entityTypes;
+    private final Class<?> resultEntity;
+
+    CachedRepositoryQuery(RepositoryQuery delegate, EntityManager entityManager, QueryResultCache resultCache,
+                          MethodCache cache, Class<?>[] entityTypes) {
+        QueryMethod method = delegate.getQueryMethod();
+        if (method.isStreamQuery() || method.isPageQuery() || method.isSliceQuery() || method.isModifyingQuery()) {
+            throw new IllegalStateException("@CachedQuery is not supported on stream, page, slice or modifying query "
+                    + cache.name());
+        }
+        boolean entityResult = isEntity(method.getReturnedObjectType());
+        if (entityResult && !method.isCollectionQuery()) {
+            throw new IllegalStateException("@CachedQuery on " + cache.name() + " must return a collection of entities");
+        }
+        this.delegate = delegate;
+        this.entityManager = entityManager;
+        this.resultCache = resultCache;
+        this.cache = cache;
+        this.entityTypes = entityTypes.clone();
+        this.resultEntity = entityResult ? method.getReturnedObjectType() : null;
+    }
+
+    @Override
+    public Object execute(Object[] parameters) {
+        if (!isCacheable()) {
+            cache.bypasses().increment();
+            return delegate.execute(parameters);
+        }
+        Object key = key(parameters);
+        CachedResult cached = cache.entries().getIfPresent(key);
+        if (cached != null && resultCache.isCurrent(cached, entityTypes)) {
+            cache.hits().increment();
+            return fromCache(cached.value());
+        }
+        cache.misses().increment();
+        long[] generations = resultCache.snapshot(entityTypes);
+        Object result = delegate.execute(parameters);
+        if (generations != null) {
+            cache.entries().put(key, new CachedResult(generations, toCache(result)));
+        }
+        return result;
+    }
+
+    @Override
+    public QueryMethod getQueryMethod() {
+        return delegate.getQueryMethod();
+    }
+
+    private boolean isCacheable() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return true;
+        }
+        return !QueryResultInvalidation.writtenInCurrentTransaction(entityTypes)
+                && !entityManager.unwrap(Session.class).isDirty();
+    }
+
+    private Object toCache(Object result) {
+        if (resultEntity != null) {
+            List<Object> ids = new ArrayList<>();
+            for (Object entity : (Collection<?>) result) {
+                ids.add(entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity));
+            }
+            return Collections.unmodifiableList(ids);
+        }
+        if (result instanceof Collection<?> rows) {
+            return Collections.unmodifiableList(new ArrayList<>(rows));
+        }
+        return result;
+    }
+
+    private Object fromCache(Object value) {
+        if (resultEntity != null) {
+            List<?> entities = entityManager.unwrap(Session.class).byMultipleIds(resultEntity)
+                    .multiLoad((List<?>) value);
+            // Rows deleted since were invalidated, unless deleted outside of Hibernate
+            return new ArrayList<>(entities.stream().filter(Objects::nonNull).toList());
+        }
+        if (value instanceof List<?> rows) {
+            List<Object> copy = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                copy.add(row instanceof Object[] columns ? columns.clone() : row);
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private Object key(Object[] parameters) {
+        List<Object> key = new ArrayList<>(parameters.length);
+        for (Object parameter : parameters) {
+            key.add(normalize(parameter));
+        }
+        return key;
+    }
+
+    /**
+     * Collections and arrays compare by content, entities by type and identifier.
+     */
+    private Object normalize(Object parameter) {
+        if (parameter instanceof Set<?> values) {
+            Set<Object> normalized = new HashSet<>();
+            values.forEach(value -> normalized.add(normalize(value)));
+            return normalized;
+        }
+        if (parameter instanceof Collection<?> values) {
+            return values.stream().map(this::normalize).toList();
+        }
+        if (parameter != null && parameter.getClass().isArray()) {
+            return normalize(Arrays.asList(ObjectUtils.toObjectArray(parameter)));
+        }
+        if (parameter != null && isEntity(Hibernate.getClass(parameter))) {
+            return Arrays.asList(Hibernate.getClass(parameter),
+                    entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(parameter));
+        }
+        return parameter;
+    }
+
+    private static boolean isEntity(Class<?> type) {
+        return type.isAnnotationPresent(Entity.class);
+    }
+}
@@ -0,0 +1,124 @@
+package com.test.memory.demo.query.resultcache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-method result caches and the write generation of every entity type.
+ * <p>
+ * A cached result records the generations of its entities when the query started. A committing
+ * write marks its entity types in flight before the commit and bumps their generation after it,
+ * results are only served while none of their types is in flight and all generations are
+ * unchanged. Reads therefore never return data older than the last commit, whichever thread or
+ * order the cache entry was stored in.
+ */
+public class QueryResultCache {
+
+    private final Duration expireAfterWrite;
+    private final Map<Class<?>, Generation> generations = new ConcurrentHashMap<>();
+    private final Map<Method, MethodCache> caches = new ConcurrentHashMap<>();
+    private volatile BiConsumer<String, MethodCache> cacheListener = (name, cache) -> {
+    };
+
+    public QueryResultCache(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    MethodCache cache(Method method, String name, long maximumSize) {
+        return caches.computeIfAbsent(method, key -> {
+            MethodCache cache = new MethodCache(name, Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(expireAfterWrite)
+                    .build());
+            cacheListener.accept(name, cache);
+            return cache;
+        });
+    }
+
+    /**
+     * Called with every method cache, the existing ones first.
+     */
+    void onCache(BiConsumer<String, MethodCache> listener) {
+        this.cacheListener = listener;
+        caches.values().forEach(cache -> listener.accept(cache.name(), cache));
+    }
+
+    /**
+     * Current generations of the entity types, or {@code null} while a write to one of them is
+     * committing.
+     */
+    long[] snapshot(Class<?>[] entityTypes) {
+        long[] snapshot = new long[entityTypes.length];
+        for (int i = 0; i < entityTypes.length; i++) {
+            Generation generation = generation(entityTypes[i]);
+            // In flight is checked first, it is cleared only after the generation moved on
+            if (generation.inFlight.get() > 0) {
+                return null;
+            }
+            snapshot[i] = generation.value.get();
+        }
+        return snapshot;
+    }
+
+    boolean isCurrent(CachedResult result, Class<?>[] entityTypes) {
+        long[] current = snapshot(entityTypes);
+        if (current == null) {
+            return false;
+        }
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != result.generations()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void beforeCommit(Collection<Class<?>> entityTypes) {
+        entityTypes.forEach(type -> generation(type).inFlight.incrementAndGet());
+    }
+
+    void afterCompletion(Collection<Class<?>> entityTypes, Collection<Class<?>> markedInFlight) {
+        for (Class<?> type : entityTypes) {
+            generation(type).value.incrementAndGet();
+        }
+        for (Class<?> type : markedInFlight) {
+            generation(type).inFlight.decrementAndGet();
+        }
+    }
+
+    private Generation generation(Class<?> entityType) {
+        return generations.computeIfAbsent(entityType, type -> new Generation());
+    }
+
+    private static final class Generation {
+        final AtomicLong value = new AtomicLong();
+        final AtomicInteger inFlight = new AtomicInteger();
+    }
+
+    /**
+     * Results of one repository method. Entries read at an outdated generation count as misses.
+     */
+    record MethodCache(String name, Cache<Object, CachedResult> entries, LongAdder hits, LongAdder misses,
+                       LongAdder bypasses) {
+
+        MethodCache(String name, Cache<Object, CachedResult> entries) {
+            this(name, entries, new LongAdder(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    /**
+     * A cached query result with the entity generations it was read at.
+     */
+    record CachedResult(long[] generations, Object value) {
+    }
+}
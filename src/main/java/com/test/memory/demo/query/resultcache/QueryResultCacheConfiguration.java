@@ -0,0 +1,41 @@
+package com.test.memory.demo.query.resultcache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.time.Duration;
+
+/**
+ * Result cache for {@code @CachedQuery} repository methods, disabled with
+ * {@code demo.query.result-cache.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.query.result-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryResultCacheConfiguration {
+
+    @Bean
+    static QueryResultCache queryResultCache(
+            @Value("${demo.query.result-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        return new QueryResultCache(expireAfterWrite);
+    }
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    static CachedQueryExecution cachedQueryExecution(QueryResultCache cache) {
+        return new CachedQueryExecution(cache);
+    }
+
+    @Bean
+    static QueryResultInvalidation queryResultInvalidation(QueryResultCache cache) {
+        return new QueryResultInvalidation(cache);
+    }
+
+    @Bean
+    QueryResultCacheMetrics queryResultCacheMetrics(QueryResultCache cache) {
+        return new QueryResultCacheMetrics(cache);
+    }
+}
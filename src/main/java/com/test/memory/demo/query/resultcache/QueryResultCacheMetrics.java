@@ -0,0 +1,40 @@
+package com.test.memory.demo.query.resultcache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes per repository method {@code demo.query.result.cache.requests{method,result=hit|miss|bypass}}
+ * and the number of cached parameter combinations, {@code demo.query.result.cache.size{method}}.
+ */
+public class QueryResultCacheMetrics implements MeterBinder {
+
+    private final QueryResultCache cache;
+
+    public QueryResultCacheMetrics(QueryResultCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cache.onCache((method, methodCache) -> {
+            requests(registry, method, "hit", methodCache.hits());
+            requests(registry, method, "miss", methodCache.misses());
+            requests(registry, method, "bypass", methodCache.bypasses());
+            Gauge.builder("demo.query.result.cache.size", methodCache, cached -> cached.entries().estimatedSize())
+                    .tags("method", method)
+                    .description("Parameter combinations cached for the repository method")
+                    .register(registry);
+        });
+    }
+
+    private static void requests(MeterRegistry registry, String method, String result, LongAdder count) {
+        FunctionCounter.builder("demo.query.result.cache.requests", count, LongAdder::sum)
+                .tags("method", method, "result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,84 @@
+package com.test.memory.demo.query.resultcache;
+
+import com.test.memory.demo.events.EntityChange;
+import com.test.memory.demo.events.EntityChangeListener;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects the entity types written by a transaction and moves their generation on in
+ * {@link QueryResultCache} when it completes. The types are also bound to the transaction so that
+ * its own reads bypass the cache.
+ */
+class QueryResultInvalidation implements EntityChangeListener {
+
+    private final QueryResultCache cache;
+
+    QueryResultInvalidation(QueryResultCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        WrittenTypes written = writtenTypes(change);
+        Class<?> type = change.persister().getMappedClass();
+        if (written.types.add(type) && written.committing) {
+            // Written by another before completion process, after the types were marked in flight
+            cache.beforeCommit(Set.of(type));
+            written.inFlight.add(type);
+        }
+    }
+
+    static boolean writtenInCurrentTransaction(Class<?>[] entityTypes) {
+        WrittenTypes written = (WrittenTypes) TransactionSynchronizationManager.getResource(WrittenTypes.class);
+        if (written == null) {
+            return false;
+        }
+        for (Class<?> type : entityTypes) {
+            if (written.types.contains(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private WrittenTypes writtenTypes(EntityChange change) {
+        boolean synchronizationActive = TransactionSynchronizationManager.isSynchronizationActive();
+        if (synchronizationActive) {
+            WrittenTypes written = (WrittenTypes) TransactionSynchronizationManager.getResource(WrittenTypes.class);
+            if (written != null) {
+                return written;
+            }
+        }
+        // Without a Spring transaction every change gets its own callbacks
+        WrittenTypes written = new WrittenTypes();
+        if (synchronizationActive) {
+            TransactionSynchronizationManager.bindResource(WrittenTypes.class, written);
+        }
+        // Runs after the flush on commit, not at all on rollback
+        ActionQueue actionQueue = change.session().getActionQueue();
+        actionQueue.registerProcess((BeforeTransactionCompletionProcess) session -> {
+            cache.beforeCommit(written.types);
+            written.inFlight.addAll(written.types);
+            written.committing = true;
+        });
+        actionQueue.registerProcess((AfterTransactionCompletionProcess) (success, session) -> {
+            cache.afterCompletion(written.types, written.inFlight);
+            if (synchronizationActive) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WrittenTypes.class);
+            }
+        });
+        return written;
+    }
+
+    private static final class WrittenTypes {
+        final Set<Class<?>> types = new HashSet<>();
+        final Set<Class<?>> inFlight = new HashSet<>();
+        boolean committing;
+    }
+}
@@ -1,6 +1,10 @@
 package com.test.memory.demo.repositories;
 
 import com.test.memory.demo.entities.Address;
+import com.test.memory.demo.projections.CityAddressCount;
+import com.test.memory.demo.query.CachedQuery;
+import com.test.memory.demo.search.SubstringSearch;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -31,6 +35,7 @@ public interface AddressRepository extends JpaRepository<Address, Long>, JpaSpec
     List<Address> findAllAddressesOrderByCity();
 
     // 6. Count addresses grouped by city.
+    @CachedQuery(Address.class)
     @Query("SELECT a.city, COUNT(a) FROM Address a GROUP BY a.city")
     List<Object[]> countAddressesByCity();
 
@@ -50,4 +55,25 @@ public interface AddressRepository extends JpaRepository<Address, Long>, JpaSpec
     @Query("SELECT DISTINCT a FROM Address a JOIN a.appUser u JOIN CustomerOrder o ON o.appUser = u WHERE o IS NOT NULL")
     List<Address> findAddressesWithOrders();
 
+    // 11. Count addresses grouped by city, as typed rows (see 6).
+    @Query("SELECT new com.test.memory.demo.projections.CityAddressCount(a.city, COUNT(a)) FROM Address a GROUP BY a.city")
+    List<CityAddressCount> findCityAddressCounts();
+
+    // 12. Find addresses whose city contains the pattern, ignoring case (trigram index, see SubstringSearch).
+    @Query("SELECT a FROM Address a WHERE a.city ILIKE :pattern ESCAPE '\\'")
+    List<Address> findByCityPattern(@Param("pattern") String pattern, Limit limit);
+
+    // 13. Find addresses whose street contains the pattern, ignoring case (trigram index, see SubstringSearch).
+    @Query("SELECT a FROM Address a WHERE a.street ILIKE :pattern ESCAPE '\\'")
+    List<Address> findByStreetPattern(@Param("pattern") String pattern, Limit limit);
+
+    // Index-driven counterpart of findAddressesByCity: at most maxResults addresses whose city contains the text.
+    default List<Address> searchByCity(String text, int maxResults) {
+        return findByCityPattern(SubstringSearch.pattern(text), SubstringSearch.limit(maxResults));
+    }
+
+    // Index-driven counterpart of findAddressesByStreet: at most maxResults addresses whose street contains the text.
+    default List<Address> searchByStreet(String text, int maxResults) {
+        return findByStreetPattern(SubstringSearch.pattern(text), SubstringSearch.limit(maxResults));
+    }
 }
@@ -1,6 +1,12 @@
 package com.test.memory.demo.repositories;
 
 import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.pagination.KeysetPage;
+import com.test.memory.demo.pagination.KeysetPagination;
+import com.test.memory.demo.projections.UserOrderCount;
+import com.test.memory.demo.search.SubstringSearch;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -125,4 +131,37 @@ public interface AppUserRepository extends JpaRepository<AppUser, Long>, JpaSpec
             )
             """)
     List<Long> findComplexAppUserByUserId(@Param("userId") Long userId);
+
+    // Same result as findComplexAppUserByUserId, read from the eligibility maintained by UserEligibilityMaintainer.
+    @Query("SELECT e.userId FROM UserEligibility e WHERE e.userId = :userId AND e.eligible = true")
+    List<Long> findEligibleAppUserByUserId(@Param("userId") Long userId);
+
+    // Keyset pagination: users after the given id, in id order.
+    @Query("SELECT u FROM AppUser u WHERE u.id > :afterId ORDER BY u.id")
+    List<AppUser> findByIdAfter(@Param("afterId") long afterId, Limit limit);
+
+    // Page of users in id order, token from the previous page or null.
+    default KeysetPage<AppUser> findAppUserPage(String token, int size) {
+        return KeysetPagination.ascending("AppUser", token, size,
+                (afterId, limit) -> findByIdAfter(afterId, Limit.of(limit)), AppUser::getId);
+    }
+
+    // Same as findUsersWithOrders, with the orders fetched by the AppUser.orders entity graph.
+    @EntityGraph(AppUser.GRAPH_ORDERS)
+    @Query("SELECT DISTINCT u FROM AppUser u JOIN u.orders o")
+    List<AppUser> findUsersWithOrdersFetched();
+
+    // 21. Count the number of orders for each user, as typed rows without loading the users (see 9).
+    @Query("SELECT new com.test.memory.demo.projections.UserOrderCount(u.id, u.name, COUNT(o)) " +
+            "FROM AppUser u LEFT JOIN u.orders o GROUP BY u.id, u.name")
+    List<UserOrderCount> findUserOrderCounts();
+
+    // 22. Find users whose name contains the pattern, ignoring case (trigram index, see SubstringSearch).
+    @Query("SELECT u FROM AppUser u WHERE u.name ILIKE :pattern ESCAPE '\\'")
+    List<AppUser> findByNamePattern(@Param("pattern") String pattern, Limit limit);
+
+    // Index-driven counterpart of findByNameContains: at most maxResults users whose name contains the text.
+    default List<AppUser> searchByName(String text, int maxResults) {
+        return findByNamePattern(SubstringSearch.pattern(text), SubstringSearch.limit(maxResults));
+    }
 }
@@ -1,6 +1,7 @@
 package com.test.memory.demo.repositories;
 
 import com.test.memory.demo.entities.CustomerOrder;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -9,4 +10,9 @@ import java.util.List;
 public interface CustomerOrderRepository extends JpaRepository<CustomerOrder, Long>, JpaSpecificationExecutor<CustomerOrder> {
     @Query("SELECT o FROM CustomerOrder o WHERE o.appUser.id = :userId")
     List<CustomerOrder> findByUserId(Long userId);
+
+    // Payment and shipment are inverse one-to-ones, loaded one row at a time unless fetched by the graph
+    @EntityGraph(CustomerOrder.GRAPH_PAYMENT_SHIPMENT)
+    @Query("SELECT o FROM CustomerOrder o")
+    List<CustomerOrder> findAllWithPaymentAndShipment();
 }
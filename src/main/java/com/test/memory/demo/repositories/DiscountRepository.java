@@ -1,6 +1,9 @@
 package com.test.memory.demo.repositories;
 
 import com.test.memory.demo.entities.Discount;
+import com.test.memory.demo.projections.ProductDiscountCount;
+import com.test.memory.demo.search.SubstringSearch;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -50,4 +53,23 @@ public interface DiscountRepository extends JpaRepository<Discount, Long>, JpaSp
     @Query("SELECT DISTINCT d FROM Discount d JOIN d.product p WHERE d.code IS NOT NULL")
     List<Discount> findDistinctDiscountsWithCode();
 
+    // 11. Count the discounts for each product, as typed rows (see 9).
+    @Query("SELECT new com.test.memory.demo.projections.ProductDiscountCount(p.name, COUNT(d)) " +
+            "FROM Discount d JOIN d.product p GROUP BY p.name")
+    List<ProductDiscountCount> findProductDiscountCounts();
+
+    // 12. Find discounts whose code contains the pattern, ignoring case (trigram index, see SubstringSearch).
+    @Query("SELECT d FROM Discount d WHERE d.code ILIKE :pattern ESCAPE '\\'")
+    List<Discount> findByCodePattern(@Param("pattern") String pattern, Limit limit);
+
+    // Index-driven counterpart of findDiscountsByCodePattern: at most maxResults discounts whose code contains the text.
+    default List<Discount> searchByCode(String text, int maxResults) {
+        return findByCodePattern(SubstringSearch.pattern(text), SubstringSearch.limit(maxResults));
+    }
+
+    // 13. Find discounts for products whose average review rating is above a given value, with the average read from
+    //     the rollup maintained by RollupMaintainer (see 8).
+    @Query("SELECT d FROM Discount d JOIN ProductRollup r ON r.productId = d.product.id " +
+            "WHERE r.ratingCount <> 0 AND r.ratingSum > :minAvgRating * r.ratingCount")
+    List<Discount> findDiscountsByProductAvgReviewRatingFromRollup(@Param("minAvgRating") Double minAvgRating);
 }
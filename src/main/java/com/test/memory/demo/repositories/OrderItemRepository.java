@@ -1,12 +1,22 @@
 package com.test.memory.demo.repositories;
 
 import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.pagination.KeysetPage;
+import com.test.memory.demo.pagination.KeysetPagination;
+import com.test.memory.demo.projections.OrderItemRow;
+import com.test.memory.demo.projections.ProductItemCount;
+import com.test.memory.demo.search.SubstringSearch;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, JpaSpecificationExecutor<OrderItem> {
     // 1. Find order items by customer order id.
@@ -173,4 +183,52 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, Jpa
     @Query("SELECT oi FROM OrderItem oi WHERE MOD(oi.quantity, 2) = 1")
     List<OrderItem> findByOddQuantity();
 
+    // 42. Stream order items with an even quantity: projections rather than entities, so the persistence context does
+    // not grow; fetched in chunks, must run in a transaction and be closed.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.test.memory.demo.projections.OrderItemRow("
+            + "oi.id, oi.customerOrder.id, oi.product.id, oi.quantity) FROM OrderItem oi WHERE MOD(oi.quantity, 2) = 0")
+    Stream<OrderItemRow> streamByEvenQuantity();
+
+    // 43. Stream order items with quantity not equal to a specific value, see streamByEvenQuantity.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.test.memory.demo.projections.OrderItemRow("
+            + "oi.id, oi.customerOrder.id, oi.product.id, oi.quantity) FROM OrderItem oi WHERE oi.quantity <> :quantity")
+    Stream<OrderItemRow> streamByQuantityNotEqual(@Param("quantity") Integer quantity);
+
+    // 44. Keyset pagination: order items after the given id, in id order.
+    @Query("SELECT oi FROM OrderItem oi WHERE oi.id > :afterId ORDER BY oi.id")
+    List<OrderItem> findByIdAfter(@Param("afterId") long afterId, Limit limit);
+
+    // Page of order items in id order, token from the previous page or null.
+    default KeysetPage<OrderItem> findOrderItemPage(String token, int size) {
+        return KeysetPagination.ascending("OrderItem", token, size,
+                (afterId, limit) -> findByIdAfter(afterId, Limit.of(limit)), OrderItem::getId);
+    }
+
+    // 45. Group order items by product id and count them, as typed rows (see 22).
+    @Query("SELECT new com.test.memory.demo.projections.ProductItemCount(oi.product.id, COUNT(oi)) " +
+            "FROM OrderItem oi GROUP BY oi.product.id")
+    List<ProductItemCount> findProductItemCounts();
+
+    // 46. Find order items whose product name contains the pattern, ignoring case (trigram index, see SubstringSearch).
+    @Query("SELECT oi FROM OrderItem oi JOIN oi.product p WHERE p.name ILIKE :pattern ESCAPE '\\'")
+    List<OrderItem> findByProductNamePattern(@Param("pattern") String pattern, Limit limit);
+
+    // Index-driven counterpart of findByProductNameLike: at most maxResults items whose product name contains the text.
+    default List<OrderItem> searchByProductName(String text, int maxResults) {
+        return findByProductNamePattern(SubstringSearch.pattern(text), SubstringSearch.limit(maxResults));
+    }
+
+    // 47. Count order items for a given order, read from the rollup maintained by RollupMaintainer (see 7).
+    @Query("SELECT COALESCE(MAX(r.itemCount), 0) FROM OrderItemRollup r WHERE r.orderId = :orderId")
+    Long countByOrderIdFromRollup(@Param("orderId") Long orderId);
+
+    // 48. Sum quantities of order items for a given order, read from the rollup (see 8).
+    @Query("SELECT CASE WHEN r.quantityCount > 0 THEN r.quantitySum END FROM OrderItemRollup r WHERE r.orderId = :orderId")
+    Long sumQuantitiesByOrderIdFromRollup(@Param("orderId") Long orderId);
+
+    // 49. Order item count per product id, read from the rollup (see 22).
+    @Query("SELECT r.productId, r.itemCount FROM ProductRollup r WHERE r.itemCount <> 0")
+    List<Object[]> groupByProductIdCountFromRollup();
 }
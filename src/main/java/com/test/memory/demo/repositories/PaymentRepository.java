@@ -1,13 +1,29 @@
 package com.test.memory.demo.repositories;
 
 import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.pagination.KeysetPage;
+import com.test.memory.demo.pagination.KeysetPagination;
+import com.test.memory.demo.projections.PaymentCompletion;
+import com.test.memory.demo.projections.PaymentExportRow;
+import com.test.memory.demo.projections.PaymentOrderRow;
+import com.test.memory.demo.projections.PaymentStatusCount;
+import com.test.memory.demo.query.CachedQuery;
+import com.test.memory.demo.query.LazyQueries;
+import com.test.memory.demo.query.ReadOnlyQueries;
+import com.test.memory.demo.search.SubstringSearch;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+@LazyQueries
+@ReadOnlyQueries
 public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment> {
 
     // 1. Retrieve all payments.
@@ -27,6 +43,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpec
     List<Payment> findPaymentsByOrderIdNative(@Param("orderId") Long orderId);
 
     // 5. Count all payments.
+    @CachedQuery(Payment.class)
     @Query(value = "SELECT COUNT(*) FROM payment", nativeQuery = true)
     Long countPaymentsNative();
 
@@ -35,6 +52,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpec
     Long sumPaymentIdsNative();
 
     // 7. Retrieve distinct statuses from payments.
+    @CachedQuery(Payment.class)
     @Query(value = "SELECT DISTINCT status FROM payment", nativeQuery = true)
     List<String> findDistinctStatusesNative();
 
@@ -232,4 +250,72 @@ public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpec
             "WHERE ou.userName LIKE CONCAT('%', :userNamePattern, '%')", nativeQuery = true)
     List<Payment> findPaymentsByUserNamePatternUsingCTE(@Param("userNamePattern") String userNamePattern);
 
+    // 51. Stream the id, status and order id of all payments (exports, PaymentExportService): projections rather
+    // than entities, so neither the eager order and user loads nor persistence context growth; fetched in chunks,
+    // must run in a transaction and be closed.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT id, status, order_id AS orderId FROM payment", nativeQuery = true)
+    Stream<PaymentExportRow> streamAllPaymentsNative();
+
+    // 52. Stream payments with their order's user id, see streamAllPaymentsNative.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT p.id, p.status, p.order_id AS orderId, co.user_id AS userId FROM payment p "
+            + "JOIN customer_order co ON p.order_id = co.id", nativeQuery = true)
+    Stream<PaymentOrderRow> streamPaymentsWithOrderDetailsNative();
+
+    // 53. Keyset pagination: payments after the given id, in id order (replaces LIMIT/OFFSET for deep pages).
+    @Query(value = "SELECT * FROM payment WHERE id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Payment> findPaymentsAfterIdNative(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    // 54. Keyset pagination: payments before the given id, newest first (replaces the ROW_NUMBER top N).
+    @Query(value = "SELECT * FROM payment WHERE id < :beforeId ORDER BY id DESC LIMIT :limit", nativeQuery = true)
+    List<Payment> findPaymentsBeforeIdNative(@Param("beforeId") long beforeId, @Param("limit") int limit);
+
+    // Page of payments in id order, token from the previous page or null.
+    default KeysetPage<Payment> findPaymentPage(String token, int size) {
+        return KeysetPagination.ascending("Payment", token, size, this::findPaymentsAfterIdNative, Payment::getId);
+    }
+
+    // Page of payments newest first, token from the previous page or null.
+    default KeysetPage<Payment> findLatestPaymentPage(String token, int size) {
+        return KeysetPagination.descending("Payment", token, size, this::findPaymentsBeforeIdNative, Payment::getId);
+    }
+
+    // 55. Group payments by status, as typed rows (see 24).
+    @Query(value = "SELECT status, COUNT(*) AS total FROM payment GROUP BY status", nativeQuery = true)
+    List<PaymentStatusCount> findPaymentStatusCountsNative();
+
+    // 56. Statuses with more than minCount payments, as typed rows (see 13).
+    @Query(value = "WITH status_cte AS (SELECT status, COUNT(*) AS total FROM payment GROUP BY status) " +
+            "SELECT status, total FROM status_cte WHERE total > :minCount", nativeQuery = true)
+    List<PaymentStatusCount> findPaymentStatusCountsAboveNative(@Param("minCount") int minCount);
+
+    // 57. Whether each payment is completed, as typed rows (see 23); false, not NULL, when the status is NULL.
+    @Query(value = "SELECT id, CASE WHEN status = 'COMPLETED' THEN TRUE ELSE FALSE END AS completed FROM payment", nativeQuery = true)
+    List<PaymentCompletion> findPaymentCompletionsNative();
+
+    // 58. Find payments whose user name contains the pattern, ignoring case (trigram index, see SubstringSearch).
+    @Query(value = "SELECT p.* FROM payment p " +
+            "JOIN customer_order co ON p.order_id = co.id " +
+            "JOIN app_user au ON co.user_id = au.id " +
+            "WHERE au.name ILIKE :pattern ESCAPE '\\' LIMIT :limit", nativeQuery = true)
+    List<Payment> findPaymentsByUserNamePatternNative(@Param("pattern") String pattern, @Param("limit") int limit);
+
+    // Index-driven counterpart of findPaymentsByUserNamePatternUsingCTE: at most maxResults payments whose user name contains the text.
+    default List<Payment> searchByUserName(String text, int maxResults) {
+        return findPaymentsByUserNamePatternNative(SubstringSearch.pattern(text), SubstringSearch.maxResults(maxResults));
+    }
+
+    // 59. Payment count per status, read from the rollup maintained by RollupMaintainer (see 24).
+    @Query("SELECT r.status, r.paymentCount FROM PaymentStatusRollup r")
+    List<Object[]> groupPaymentsByStatusFromRollup();
+
+    // Statuses with more than minCount payments, read from the rollup (see 13). One row per status, filtered here
+    // instead of indexing a counter that changes with every payment.
+    default List<Object[]> findPaymentStatusCountsFromRollup(int minCount) {
+        return groupPaymentsByStatusFromRollup().stream()
+                .filter(row -> ((Number) row[1]).longValue() > minCount)
+                .toList();
+    }
+
 }
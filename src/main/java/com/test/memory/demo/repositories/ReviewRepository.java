@@ -1,12 +1,17 @@
 package com.test.memory.demo.repositories;
 
 import com.test.memory.demo.entities.Review;
+import com.test.memory.demo.query.CachedQuery;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 
 public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecificationExecutor<Review> {
+    @CachedQuery(Review.class)
     @Query("SELECT r FROM Review r WHERE r.product.id = :productId AND r.rating >= :minRating")
     List<Review> findByProductAndMinRating(Long productId, Integer minRating);
+
+    @Query("SELECT r FROM Review r WHERE r.appUser.id = :userId")
+    List<Review> findByUserId(Long userId);
 }
@@ -0,0 +1,135 @@
+package com.test.memory.demo.repositories;
+
+import com.test.memory.demo.entities.OrderItemRollup;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+/**
+ * Cleanup, rebuild and consistency queries of the rollup tables maintained by
+ * {@code RollupMaintainer}, which adds to the counters with multi-row upserts of its own.
+ */
+public interface RollupRepository extends Repository<OrderItemRollup, Long> {
+
+    // 1. Remove the order rows left without items.
+    @Modifying
+    @Query("DELETE FROM OrderItemRollup r WHERE r.orderId IN :orderIds AND r.itemCount = 0")
+    void deleteEmptyOrderRollups(@Param("orderIds") Collection<Long> orderIds);
+
+    // 2. Remove the product rows left without items and reviews.
+    @Modifying
+    @Query("DELETE FROM ProductRollup r WHERE r.productId IN :productIds AND r.itemCount = 0 AND r.reviewCount = 0")
+    void deleteEmptyProductRollups(@Param("productIds") Collection<Long> productIds);
+
+    // 3. Remove the status rows left without payments.
+    @Modifying
+    @Query("DELETE FROM PaymentStatusRollup r WHERE r.status IN :statuses AND r.paymentCount = 0")
+    void deleteEmptyPaymentStatusRollups(@Param("statuses") Collection<String> statuses);
+
+    // 4. Remove all order rows, for rebuilds.
+    @Modifying
+    @Query("DELETE FROM OrderItemRollup")
+    void deleteAllOrderRollups();
+
+    // 5. Remove all product rows, for rebuilds.
+    @Modifying
+    @Query("DELETE FROM ProductRollup")
+    void deleteAllProductRollups();
+
+    // 6. Remove all status rows, for rebuilds.
+    @Modifying
+    @Query("DELETE FROM PaymentStatusRollup")
+    void deleteAllPaymentStatusRollups();
+
+    // 7. Item totals of every order, for rebuilds.
+    @Modifying
+    @Query("""
+            INSERT INTO OrderItemRollup (orderId, itemCount, quantitySum, quantityCount)
+            SELECT oi.customerOrder.id, COUNT(oi), COALESCE(SUM(oi.quantity), 0), COUNT(oi.quantity)
+            FROM OrderItem oi
+            WHERE oi.customerOrder.id IS NOT NULL
+            GROUP BY oi.customerOrder.id
+            """)
+    int insertOrderRollups();
+
+    // 8. Item and review totals of every product with items or reviews, for rebuilds.
+    @Modifying
+    @Query("""
+            INSERT INTO ProductRollup (productId, itemCount, reviewCount, ratingSum, ratingCount)
+            SELECT p.id,
+                (SELECT COUNT(oi) FROM OrderItem oi WHERE oi.product.id = p.id),
+                (SELECT COUNT(r) FROM Review r WHERE r.product.id = p.id),
+                (SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.product.id = p.id),
+                (SELECT COUNT(r.rating) FROM Review r WHERE r.product.id = p.id)
+            FROM Product p
+            WHERE EXISTS (SELECT oi.id FROM OrderItem oi WHERE oi.product.id = p.id)
+            OR EXISTS (SELECT r.id FROM Review r WHERE r.product.id = p.id)
+            """)
+    int insertProductRollups();
+
+    // 9. Payment count of every status, for rebuilds.
+    @Modifying
+    @Query("""
+            INSERT INTO PaymentStatusRollup (status, paymentCount)
+            SELECT p.status, COUNT(p) FROM Payment p WHERE p.status IS NOT NULL GROUP BY p.status
+            """)
+    int insertPaymentStatusRollups();
+
+    // 10. Orders whose row differs from their items, or that have items but no row.
+    @Query("""
+            SELECT
+                (SELECT COUNT(r) FROM OrderItemRollup r
+                 WHERE r.itemCount <> (SELECT COUNT(oi) FROM OrderItem oi WHERE oi.customerOrder.id = r.orderId)
+                 OR r.quantitySum <> (SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi WHERE oi.customerOrder.id = r.orderId)
+                 OR r.quantityCount <> (SELECT COUNT(oi.quantity) FROM OrderItem oi WHERE oi.customerOrder.id = r.orderId))
+              + (SELECT COUNT(DISTINCT oi.customerOrder.id) FROM OrderItem oi
+                 WHERE oi.customerOrder.id IS NOT NULL
+                 AND NOT EXISTS (SELECT r.orderId FROM OrderItemRollup r WHERE r.orderId = oi.customerOrder.id))
+            """)
+    long countStaleOrderRollups();
+
+    // 11. Products whose row differs from their items and reviews, or that have either but no row.
+    @Query("""
+            SELECT
+                (SELECT COUNT(r) FROM ProductRollup r
+                 WHERE r.itemCount <> (SELECT COUNT(oi) FROM OrderItem oi WHERE oi.product.id = r.productId)
+                 OR r.reviewCount <> (SELECT COUNT(rv) FROM Review rv WHERE rv.product.id = r.productId)
+                 OR r.ratingSum <> (SELECT COALESCE(SUM(rv.rating), 0) FROM Review rv WHERE rv.product.id = r.productId)
+                 OR r.ratingCount <> (SELECT COUNT(rv.rating) FROM Review rv WHERE rv.product.id = r.productId))
+              + (SELECT COUNT(p) FROM Product p
+                 WHERE (EXISTS (SELECT oi.id FROM OrderItem oi WHERE oi.product.id = p.id)
+                     OR EXISTS (SELECT rv.id FROM Review rv WHERE rv.product.id = p.id))
+                 AND NOT EXISTS (SELECT r.productId FROM ProductRollup r WHERE r.productId = p.id))
+            """)
+    long countStaleProductRollups();
+
+    // 12. Statuses whose row differs from their payments, or that have payments but no row.
+    @Query("""
+            SELECT
+                (SELECT COUNT(r) FROM PaymentStatusRollup r
+                 WHERE r.paymentCount <> (SELECT COUNT(p) FROM Payment p WHERE p.status = r.status))
+              + (SELECT COUNT(DISTINCT p.status) FROM Payment p
+                 WHERE p.status IS NOT NULL
+                 AND NOT EXISTS (SELECT r.status FROM PaymentStatusRollup r WHERE r.status = p.status))
+            """)
+    long countStalePaymentStatusRollups();
+
+    // 13. Whether any rollup row exists, to build them on first start.
+    @Query("""
+            SELECT CASE WHEN EXISTS (SELECT r.orderId FROM OrderItemRollup r)
+                OR EXISTS (SELECT r.productId FROM ProductRollup r)
+                OR EXISTS (SELECT r.status FROM PaymentStatusRollup r) THEN true ELSE false END
+            """)
+    boolean existsAny();
+
+    // 14. Whether any row the rollups are computed from exists.
+    @Query("""
+            SELECT CASE WHEN EXISTS (SELECT oi.id FROM OrderItem oi)
+                OR EXISTS (SELECT r.id FROM Review r)
+                OR EXISTS (SELECT p.id FROM Payment p) THEN true ELSE false END
+            """)
+    boolean existsSource();
+}
@@ -0,0 +1,65 @@
+package com.test.memory.demo.repositories;
+
+import com.test.memory.demo.entities.UserEligibility;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserEligibilityRepository extends JpaRepository<UserEligibility, Long> {
+
+    // 1. Users among the given ids matching the criteria of AppUserRepository.findComplexAppUserByUserId,
+    //    with the average product price passed in instead of recomputed.
+    @Query("""
+            SELECT u.id
+            FROM AppUser u
+            WHERE u.id IN :userIds
+            AND (
+                u.name = 'SPECIAL_USER'
+                OR EXISTS (SELECT a.id FROM Address a WHERE a.appUser = u AND a.city = 'New York')
+                OR EXISTS (
+                    SELECT oi.id
+                    FROM OrderItem oi
+                    JOIN oi.product p
+                    LEFT JOIN p.category c
+                    LEFT JOIN p.discounts d
+                    WHERE oi.customerOrder.appUser = u
+                    AND (c.name = 'Electronics' OR d.code LIKE '%DISC%' OR p.price > :averagePrice)
+                )
+            )
+            """)
+    List<Long> findEligibleUserIds(@Param("userIds") Collection<Long> userIds, @Param("averagePrice") Double averagePrice);
+
+    // 2. Users among the given ids that still exist.
+    @Query("SELECT u.id FROM AppUser u WHERE u.id IN :userIds")
+    List<Long> findExistingUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // 3. Users who ordered any of the given products.
+    @Query("SELECT DISTINCT o.appUser.id FROM OrderItem oi JOIN oi.customerOrder o WHERE oi.product.id IN :productIds")
+    List<Long> findUserIdsByOrderedProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // 4. Users who ordered products of any of the given categories.
+    @Query("SELECT DISTINCT o.appUser.id FROM OrderItem oi JOIN oi.customerOrder o WHERE oi.product.category.id IN :categoryIds")
+    List<Long> findUserIdsByOrderedCategoryIds(@Param("categoryIds") Collection<Long> categoryIds);
+
+    // 5. Products whose price lies in (lower, upper], i.e. whose "above average" status flips when the
+    //    average moves between the two bounds.
+    @Query("SELECT p.id FROM Product p WHERE p.price > :lower AND p.price <= :upper")
+    List<Long> findProductIdsByPriceAboveAndAtMost(@Param("lower") Double lower, @Param("upper") Double upper);
+
+    // 6. All user ids, for rebuilds.
+    @Query("SELECT u.id FROM AppUser u ORDER BY u.id")
+    List<Long> findAllUserIds();
+
+    // 7. Sum and count of product prices, for rebuilds.
+    @Query("SELECT COALESCE(SUM(p.price), 0), COUNT(p.price) FROM Product p")
+    List<Object[]> sumAndCountProductPrices();
+
+    // 8. Remove all materialized rows, for rebuilds.
+    @Modifying
+    @Query("DELETE FROM UserEligibility")
+    void deleteAllInBulk();
+}
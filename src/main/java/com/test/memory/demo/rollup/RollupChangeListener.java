@@ -0,0 +1,97 @@
+package com.test.memory.demo.rollup;
+
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.entities.Product;
+import com.test.memory.demo.entities.Review;
+import com.test.memory.demo.events.EntityChange;
+import com.test.memory.demo.events.EntityChangeListener;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+
+/**
+ * Turns order item, review and payment writes into counter deltas: the row before the write is
+ * counted out, the row after it counted in. The transaction's deltas are handed to
+ * {@link RollupMaintainer} before it commits, after the final flush.
+ */
+class RollupChangeListener implements EntityChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupChangeListener.class);
+    private static final Set<Class<?>> SOURCES = Set.of(OrderItem.class, Review.class, Payment.class);
+
+    private final ObjectProvider<RollupMaintainer> maintainer;
+
+    RollupChangeListener(ObjectProvider<RollupMaintainer> maintainer) {
+        this.maintainer = maintainer;
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        if (change.type() == EntityChange.Type.BULK) {
+            if (SOURCES.contains(change.persister().getMappedClass())) {
+                // The written rows are unknown, rebuild() catches up
+                log.warn("Bulk write to {}, rollups not updated until rebuilt", change.persister().getEntityName());
+            }
+            return;
+        }
+        if (change.is(OrderItem.class)) {
+            if (change.changed("customerOrder") || change.changed("quantity")) {
+                changes(change).orderItem(orderId(change.oldValue("customerOrder")), (Integer) change.oldValue("quantity"), -1);
+                changes(change).orderItem(orderId(change.value("customerOrder")), (Integer) change.value("quantity"), 1);
+            }
+            if (change.changed("product")) {
+                changes(change).productItem(productId(change.oldValue("product")), -1);
+                changes(change).productItem(productId(change.value("product")), 1);
+            }
+        } else if (change.is(Review.class)) {
+            if (change.changed("product") || change.changed("rating")) {
+                changes(change).review(productId(change.oldValue("product")), (Integer) change.oldValue("rating"), -1);
+                changes(change).review(productId(change.value("product")), (Integer) change.value("rating"), 1);
+            }
+        } else if (change.is(Payment.class)) {
+            if (change.changed("status")) {
+                changes(change).payment((String) change.oldValue("status"), -1);
+                changes(change).payment((String) change.value("status"), 1);
+            }
+        }
+    }
+
+    private RollupChanges changes(EntityChange change) {
+        RollupChanges changes = (RollupChanges) TransactionSynchronizationManager.getResource(RollupChanges.class);
+        if (changes != null) {
+            return changes;
+        }
+        changes = new RollupChanges();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Not written through a Spring managed transaction, the consistency check catches up
+            log.warn("{} {} outside of a Spring transaction, rollups not updated",
+                    change.type(), change.persister().getEntityName());
+            return changes;
+        }
+        TransactionSynchronizationManager.bindResource(RollupChanges.class, changes);
+        RollupChanges registered = changes;
+        // Runs after the flush on commit, which a Spring beforeCommit callback would precede
+        ActionQueue actionQueue = change.session().getActionQueue();
+        actionQueue.registerProcess((BeforeTransactionCompletionProcess) session ->
+                maintainer.getObject().apply(registered));
+        actionQueue.registerProcess((AfterTransactionCompletionProcess) (success, session) ->
+                TransactionSynchronizationManager.unbindResourceIfPossible(RollupChanges.class));
+        return changes;
+    }
+
+    private static Long orderId(Object order) {
+        return order == null ? null : ((CustomerOrder) order).getId();
+    }
+
+    private static Long productId(Object product) {
+        return product == null ? null : ((Product) product).getId();
+    }
+}
@@ -0,0 +1,75 @@
+package com.test.memory.demo.rollup;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counter deltas of the current transaction, per rollup row. Sorted maps, so that concurrent
+ * transactions lock the rows they share in the same order.
+ */
+class RollupChanges {
+
+    // items, quantity sum, quantity count
+    final Map<Long, long[]> orders = new TreeMap<>();
+    // items, reviews, rating sum, rating count
+    final Map<Long, long[]> products = new TreeMap<>();
+    // payments
+    final Map<String, long[]> statuses = new TreeMap<>();
+
+    /**
+     * Counts an order item in ({@code sign} 1) or out ({@code sign} -1) of its order's totals.
+     */
+    void orderItem(Long orderId, Integer quantity, int sign) {
+        if (orderId == null) {
+            return;
+        }
+        long[] totals = orders.computeIfAbsent(orderId, id -> new long[3]);
+        totals[0] += sign;
+        if (quantity != null) {
+            totals[1] += (long) sign * quantity;
+            totals[2] += sign;
+        }
+    }
+
+    void productItem(Long productId, int sign) {
+        if (productId != null) {
+            products.computeIfAbsent(productId, id -> new long[4])[0] += sign;
+        }
+    }
+
+    void review(Long productId, Integer rating, int sign) {
+        if (productId == null) {
+            return;
+        }
+        long[] totals = products.computeIfAbsent(productId, id -> new long[4]);
+        totals[1] += sign;
+        if (rating != null) {
+            totals[2] += (long) sign * rating;
+            totals[3] += sign;
+        }
+    }
+
+    void payment(String status, int sign) {
+        if (status != null) {
+            statuses.computeIfAbsent(status, s -> new long[1])[0] += sign;
+        }
+    }
+
+    boolean isEmpty() {
+        return orders.isEmpty() && products.isEmpty() && statuses.isEmpty();
+    }
+
+    /**
+     * Moves the recorded changes into a new instance, leaving this one empty.
+     */
+    RollupChanges drain() {
+        RollupChanges drained = new RollupChanges();
+        drained.orders.putAll(orders);
+        drained.products.putAll(products);
+        drained.statuses.putAll(statuses);
+        orders.clear();
+        products.clear();
+        statuses.clear();
+        return drained;
+    }
+}
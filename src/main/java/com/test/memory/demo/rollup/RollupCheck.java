@@ -0,0 +1,16 @@
+package com.test.memory.demo.rollup;
+
+/**
+ * Result of {@link RollupMaintainer#check()}: rollup rows that differ from the rows they are
+ * computed from, or are missing.
+ *
+ * @param staleOrders   orders whose item totals are off
+ * @param staleProducts products whose item or review totals are off
+ * @param staleStatuses payment statuses whose count is off
+ */
+public record RollupCheck(long staleOrders, long staleProducts, long staleStatuses) {
+
+    public boolean isConsistent() {
+        return staleOrders == 0 && staleProducts == 0 && staleStatuses == 0;
+    }
+}
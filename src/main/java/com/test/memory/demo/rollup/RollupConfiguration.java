@@ -0,0 +1,56 @@
+package com.test.memory.demo.rollup;
+
+import com.test.memory.demo.repositories.RollupRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Order item, review and payment rollups maintained on writes, read by the {@code ...FromRollup}
+ * repository methods; disabled with {@code demo.rollup.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.rollup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RollupConfiguration {
+
+    @Bean
+    static RollupChangeListener rollupChangeListener(ObjectProvider<RollupMaintainer> maintainer) {
+        return new RollupChangeListener(maintainer);
+    }
+
+    @Bean
+    RollupMaintainer rollupMaintainer(RollupRepository repository, EntityManager entityManager) {
+        return new RollupMaintainer(repository, entityManager);
+    }
+
+    @Bean
+    RollupEndpoint rollupEndpoint(RollupMaintainer maintainer) {
+        return new RollupEndpoint(maintainer);
+    }
+
+    /**
+     * Checks the rollups every {@code demo.rollup.check-interval} and rebuilds them when they drifted.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "demo.rollup", name = "check-interval")
+    @EnableScheduling
+    static class ConsistencyCheckConfiguration {
+
+        @Bean
+        ConsistencyCheck rollupConsistencyCheck(RollupMaintainer maintainer) {
+            return new ConsistencyCheck(maintainer);
+        }
+    }
+
+    record ConsistencyCheck(RollupMaintainer maintainer) {
+
+        @Scheduled(fixedDelayString = "${demo.rollup.check-interval}", initialDelayString = "${demo.rollup.check-interval}")
+        void run() {
+            maintainer.checkAndRepair();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.test.memory.demo.rollup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * Checks the rollups as {@code GET /actuator/rollups} and rebuilds them with
+ * {@code POST /actuator/rollups}.
+ */
+@Endpoint(id = "rollups")
+public class RollupEndpoint {
+
+    private final RollupMaintainer maintainer;
+
+    public RollupEndpoint(RollupMaintainer maintainer) {
+        this.maintainer = maintainer;
+    }
+
+    @ReadOperation
+    public RollupCheck check() {
+        return maintainer.check();
+    }
+
+    @WriteOperation
+    public RollupCheck rebuild() {
+        maintainer.rebuild();
+        return maintainer.check();
+    }
+}
@@ -0,0 +1,136 @@
+package com.test.memory.demo.rollup;
+
+import com.test.memory.demo.entities.OrderItemRollup;
+import com.test.memory.demo.entities.PaymentStatusRollup;
+import com.test.memory.demo.entities.ProductRollup;
+import com.test.memory.demo.repositories.RollupRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps {@link OrderItemRollup}, {@link ProductRollup} and {@link PaymentStatusRollup} in line
+ * with the order items, reviews and payments, so that item totals, review averages and payment
+ * counts are read from one row instead of aggregated per request.
+ * <p>
+ * Writes through the entity model add their deltas in the same transaction. Bulk loads bypass
+ * them: {@link #check()} counts the rows that drifted and {@link #rebuild()} recomputes
+ * everything. Payments without a status are not counted.
+ */
+public class RollupMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupMaintainer.class);
+    private static final int CHUNK_SIZE = 1_000;
+    private static final RollupUpsert<Long> ORDERS =
+            new RollupUpsert<>("OrderItemRollup", "orderId", "itemCount", "quantitySum", "quantityCount");
+    private static final RollupUpsert<Long> PRODUCTS = new RollupUpsert<>("ProductRollup", "productId",
+            "itemCount", "reviewCount", "ratingSum", "ratingCount");
+    private static final RollupUpsert<String> STATUSES =
+            new RollupUpsert<>("PaymentStatusRollup", "status", "paymentCount");
+
+    private final RollupRepository repository;
+    private final EntityManager entityManager;
+
+    public RollupMaintainer(RollupRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Applies the deltas recorded for the current transaction, called before it commits: one
+     * multi-row upsert per rollup table and {@value RollupUpsert#MAX_ROWS} rows. Rows left at zero
+     * are removed, like the groups an aggregate query would no longer return.
+     */
+    void apply(RollupChanges pending) {
+        RollupChanges changes = pending.drain();
+        ORDERS.apply(entityManager, changes.orders);
+        PRODUCTS.apply(entityManager, changes.products);
+        STATUSES.apply(entityManager, changes.statuses);
+        List<Long> emptiedOrders = new ArrayList<>();
+        changes.orders.forEach((orderId, delta) -> {
+            if (delta[0] < 0) {
+                emptiedOrders.add(orderId);
+            }
+        });
+        List<Long> emptiedProducts = new ArrayList<>();
+        changes.products.forEach((productId, delta) -> {
+            if (delta[0] < 0 || delta[1] < 0) {
+                emptiedProducts.add(productId);
+            }
+        });
+        List<String> emptiedStatuses = new ArrayList<>();
+        changes.statuses.forEach((status, delta) -> {
+            if (delta[0] < 0) {
+                emptiedStatuses.add(status);
+            }
+        });
+        // Only rows whose count went down can have reached zero
+        inChunks(emptiedOrders, repository::deleteEmptyOrderRollups);
+        inChunks(emptiedProducts, repository::deleteEmptyProductRollups);
+        inChunks(emptiedStatuses, repository::deleteEmptyPaymentStatusRollups);
+    }
+
+    /**
+     * Rollup rows that differ from the data, e.g. after a bulk load; a full scan of the source
+     * tables.
+     */
+    @Transactional(readOnly = true)
+    public RollupCheck check() {
+        return new RollupCheck(repository.countStaleOrderRollups(), repository.countStaleProductRollups(),
+                repository.countStalePaymentStatusRollups());
+    }
+
+    /**
+     * Recomputes every rollup from scratch. Meant for quiet periods: a transaction writing order
+     * items, reviews or payments while the rollups are rebuilt may fail on a duplicate row.
+     */
+    @Transactional
+    public void rebuild() {
+        repository.deleteAllOrderRollups();
+        repository.deleteAllProductRollups();
+        repository.deleteAllPaymentStatusRollups();
+        int orders = repository.insertOrderRollups();
+        int products = repository.insertProductRollups();
+        int statuses = repository.insertPaymentStatusRollups();
+        log.info("Rebuilt rollups of {} orders, {} products and {} payment statuses", orders, products, statuses);
+    }
+
+    /**
+     * Rebuilds the rollups when {@link #check()} finds drift, run every
+     * {@code demo.rollup.check-interval} when set.
+     */
+    @Transactional
+    public RollupCheck checkAndRepair() {
+        RollupCheck check = check();
+        if (!check.isConsistent()) {
+            log.warn("Rollups out of date ({}), rebuilding", check);
+            rebuild();
+        }
+        return check;
+    }
+
+    /**
+     * Builds everything on first start, before runners and ready listeners can write.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional
+    public void rebuildIfMissing() {
+        if (!repository.existsAny() && repository.existsSource()) {
+            rebuild();
+        }
+    }
+
+    private static <T> void inChunks(List<T> keys, Consumer<Collection<T>> action) {
+        for (int from = 0; from < keys.size(); from += CHUNK_SIZE) {
+            action.accept(keys.subList(from, Math.min(from + CHUNK_SIZE, keys.size())));
+        }
+    }
+}
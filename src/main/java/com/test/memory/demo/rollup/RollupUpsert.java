@@ -0,0 +1,92 @@
+package com.test.memory.demo.rollup;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds counter deltas to the rows of one rollup entity with multi-row upserts
+ * ({@code INSERT ... VALUES (...), (...) ON CONFLICT ... DO UPDATE}), so concurrent transactions
+ * adding to the same row neither lose updates nor race on creating it. A transaction's deltas go
+ * out as one statement per {@value #MAX_ROWS} rows instead of one per row; the remainder is split
+ * into power-of-two row counts, so that at most nine statement shapes per entity are compiled and
+ * cached.
+ */
+final class RollupUpsert<K> {
+
+    static final int MAX_ROWS = 256;
+
+    private final String entityName;
+    private final String key;
+    private final List<String> counters;
+    private final String[] statements = new String[Integer.numberOfTrailingZeros(MAX_ROWS) + 1];
+
+    RollupUpsert(String entityName, String key, String... counters) {
+        this.entityName = entityName;
+        this.key = key;
+        this.counters = List.of(counters);
+    }
+
+    /**
+     * Adds the deltas in key order, skipping rows whose deltas are all zero.
+     */
+    void apply(EntityManager entityManager, Map<K, long[]> deltas) {
+        List<Map.Entry<K, long[]>> rows = new ArrayList<>(deltas.size());
+        for (Map.Entry<K, long[]> delta : deltas.entrySet()) {
+            for (long value : delta.getValue()) {
+                if (value != 0) {
+                    rows.add(delta);
+                    break;
+                }
+            }
+        }
+        for (int from = 0; from < rows.size(); ) {
+            int remaining = rows.size() - from;
+            int size = remaining >= MAX_ROWS ? MAX_ROWS : Integer.highestOneBit(remaining);
+            Query upsert = entityManager.createQuery(statement(size));
+            int position = 1;
+            for (Map.Entry<K, long[]> row : rows.subList(from, from + size)) {
+                upsert.setParameter(position++, row.getKey());
+                for (long value : row.getValue()) {
+                    upsert.setParameter(position++, value);
+                }
+            }
+            upsert.executeUpdate();
+            from += size;
+        }
+    }
+
+    private String statement(int rowCount) {
+        int shape = Integer.numberOfTrailingZeros(rowCount);
+        String statement = statements[shape];
+        if (statement == null) {
+            statement = build(rowCount);
+            statements[shape] = statement;
+        }
+        return statement;
+    }
+
+    private String build(int rowCount) {
+        StringBuilder hql = new StringBuilder("INSERT INTO ").append(entityName).append(" r (").append(key);
+        counters.forEach(counter -> hql.append(", ").append(counter));
+        hql.append(") VALUES ");
+        int position = 1;
+        for (int row = 0; row < rowCount; row++) {
+            hql.append(row == 0 ? "(" : ", (").append('?').append(position++);
+            for (int column = 0; column < counters.size(); column++) {
+                hql.append(", ?").append(position++);
+            }
+            hql.append(')');
+        }
+        hql.append(" ON CONFLICT (").append(key).append(") DO UPDATE SET ");
+        for (int column = 0; column < counters.size(); column++) {
+            String counter = counters.get(column);
+            hql.append(column == 0 ? "" : ", ").append(counter)
+                    .append(" = r.").append(counter).append(" + excluded.").append(counter);
+        }
+        return hql.toString();
+    }
+}
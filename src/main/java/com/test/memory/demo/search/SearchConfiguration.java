@@ -0,0 +1,21 @@
+package com.test.memory.demo.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates the indexes behind {@link SubstringSearch} on PostgreSQL after startup, disabled with
+ * {@code demo.search.create-indexes=false} (e.g. when a migration tool owns the schema).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "demo.search", name = "create-indexes", havingValue = "true", matchIfMissing = true)
+public class SearchConfiguration {
+
+    @Bean
+    SearchIndexInitializer searchIndexInitializer(DataSource dataSource) {
+        return new SearchIndexInitializer(dataSource);
+    }
+}
@@ -0,0 +1,78 @@
+package com.test.memory.demo.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptException;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Applies {@value #SCRIPT} once the application is ready when the database is PostgreSQL: the
+ * {@code pg_trgm} extension and every index recommended for the repository queries, the plain
+ * B-trees included. None is declared with {@code @Index}, which {@code ddl-auto} would build with
+ * a plain {@code CREATE INDEX} that blocks writes to the table during startup. The indexes are
+ * built {@code CONCURRENTLY} on a background thread, in autocommit mode, so neither startup nor
+ * writes to the tables wait for them; every statement is {@code IF NOT EXISTS}, only the first
+ * start on a database builds them. Without the rights to create the extension the application
+ * still runs, and {@link SubstringSearch} lookups fall back to scanning.
+ * <p>
+ * A concurrent build that fails leaves an invalid index behind, which {@code IF NOT EXISTS} then
+ * skips; such indexes are logged and have to be dropped before the next start rebuilds them.
+ */
+public class SearchIndexInitializer {
+
+    public static final String SCRIPT = "db/recommended-indexes.sql";
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    private static final String INVALID_INDEXES = """
+            SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+            WHERE NOT i.indisvalid AND c.relname LIKE 'idx\\_%'
+            """;
+
+    private final DataSource dataSource;
+    private final Resource script = new ClassPathResource(SCRIPT);
+
+    public SearchIndexInitializer(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIndexBuild() throws MetaDataAccessException {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        if (DatabaseDriver.fromProductName(product) != DatabaseDriver.POSTGRESQL) {
+            log.debug("Not creating search indexes on {}", product);
+            return;
+        }
+        Thread thread = new Thread(this::createIndexes, "search-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void createIndexes() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            ScriptUtils.executeSqlScript(connection, script);
+            log.info("Search indexes of {} are in place", SCRIPT);
+        } catch (SQLException | ScriptException e) {
+            log.warn("Could not create the indexes of {}, substring searches will scan their tables", SCRIPT, e);
+        }
+        List<String> invalid = new JdbcTemplate(dataSource).queryForList(INVALID_INDEXES, String.class);
+        if (!invalid.isEmpty()) {
+            log.warn("Invalid indexes left by a failed concurrent build, drop them to rebuild: {}", invalid);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.test.memory.demo.search;
+
+import org.springframework.data.domain.Limit;
+
+/**
+ * Case-insensitive substring search over the {@code pg_trgm} GIN indexes of
+ * {@code db/recommended-indexes.sql}. The {@code search*} methods of the repositories run
+ * {@code column ILIKE :pattern ESCAPE '\'} with the pattern built here: the fragment matches
+ * literally ({@code %}, {@code _} and {@code \} are escaped) anywhere in the column.
+ * <p>
+ * A trigram index only narrows the search when the fragment holds a trigram, so fragments
+ * shorter than {@value #MIN_LENGTH} characters are rejected instead of scanning the table. Results
+ * are capped and come in no particular order, which keeps the plan driven by the index rather
+ * than by a sort key.
+ */
+public final class SubstringSearch {
+
+    public static final int MIN_LENGTH = 3;
+    public static final int MAX_RESULTS = 1_000;
+
+    private static final char ESCAPE = '\\';
+
+    private SubstringSearch() {
+    }
+
+    public static String pattern(String fragment) {
+        if (fragment == null || fragment.length() < MIN_LENGTH) {
+            throw new IllegalArgumentException("Search text must have at least " + MIN_LENGTH + " characters: "
+                    + fragment);
+        }
+        StringBuilder pattern = new StringBuilder(fragment.length() + 2).append('%');
+        for (char c : fragment.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                pattern.append(ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    public static int maxResults(int maxResults) {
+        if (maxResults < 1 || maxResults > MAX_RESULTS) {
+            throw new IllegalArgumentException("Search results must be between 1 and " + MAX_RESULTS + ": " + maxResults);
+        }
+        return maxResults;
+    }
+
+    public static Limit limit(int maxResults) {
+        return Limit.of(maxResults(maxResults));
+    }
+}
@@ -0,0 +1,175 @@
+-- Indexes recommended by IndexAdvisor for the @Query methods of com.test.memory.demo.repositories
+-- CONCURRENTLY builds do not block writes but cannot run in a transaction: run with autocommit
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- AddressRepository.findAllAddressesOrderByCity AppUserRepository.findComplexAppUserByUserId
+-- AppUserRepository.findUsersByAddressCity UserEligibilityRepository.findEligibleUserIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_address_city ON address (city);
+
+-- AddressRepository.findAddressesByUserId AddressRepository.findAddressesByUserName
+-- AddressRepository.findAddressesByUsersWithReviews
+-- AddressRepository.findAddressesOfUsersWithOrders AddressRepository.findAddressesWithOrders
+-- AddressRepository.findDistinctAddressesByUser AppUserRepository.findComplexAppUserByUserId
+-- AppUserRepository.findUsersByAddressCity UserEligibilityRepository.findEligibleUserIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_address_user_id ON address (user_id);
+
+-- AddressRepository.findAddressesByCity AddressRepository.findByCityPattern
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_address_city_trgm ON address USING gin (city gin_trgm_ops);
+
+-- AddressRepository.findAddressesByStreet AddressRepository.findByStreetPattern
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_address_street_trgm ON address USING gin (street gin_trgm_ops);
+
+-- AddressRepository.findAddressesByUserName AppUserRepository.findByExactName
+-- AppUserRepository.findUsersByNameAndOrderCount AppUserRepository.findUsersOrderedByNameAsc
+-- AppUserRepository.findUsersOrderedByNameDesc OrderItemRepository.findByCustomerOrderUserName
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_app_user_name ON app_user (name);
+
+-- AppUserRepository.findByNameStartingWith
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_app_user_name_pattern ON app_user (name text_pattern_ops);
+
+-- AppUserRepository.findByNameContains AppUserRepository.findByNameEndingWith
+-- AppUserRepository.findByNamePattern AppUserRepository.findUsersByMultipleCriteria
+-- PaymentRepository.findPaymentsByUserNamePatternNative
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_app_user_name_trgm ON app_user USING gin (name gin_trgm_ops);
+
+-- AppUserRepository.findComplexAppUserByUserId AppUserRepository.findUsersByCategory
+-- DiscountRepository.findDiscountsByProductCategory OrderItemRepository.findByProductCategoryName
+-- UserEligibilityRepository.findEligibleUserIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_category_name ON category (name);
+
+-- AddressRepository.findAddressesOfUsersWithOrders AddressRepository.findAddressesWithOrders
+-- AppUserRepository.countUsersWithOrders AppUserRepository.findComplexAppUserByUserId
+-- AppUserRepository.findUserOrderCounts AppUserRepository.findUsersByCategory
+-- AppUserRepository.findUsersByDiscount AppUserRepository.findUsersByNameAndOrderCount
+-- AppUserRepository.findUsersWithAtLeastNOrders AppUserRepository.findUsersWithOrderItems
+-- AppUserRepository.findUsersWithOrders AppUserRepository.findUsersWithOrdersFetched
+-- AppUserRepository.findUsersWithPayment AppUserRepository.findUsersWithReviewsAndOrders
+-- AppUserRepository.findUsersWithShipment CustomerOrderRepository.findByUserId
+-- OrderItemRepository.findByCustomerOrderUserId OrderItemRepository.findByCustomerOrderUserName
+-- PaymentRepository.findPaymentsByUserNamePatternNative
+-- PaymentRepository.findPaymentsByUserNamePatternUsingCTE
+-- PaymentRepository.findPaymentsWithOrderAndUserNative
+-- PaymentRepository.findPaymentsWithValidUserNative UserEligibilityRepository.findEligibleUserIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customer_order_user_id ON customer_order (user_id);
+
+-- DiscountRepository.findDiscountsByPercentageRange
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_discount_percentage ON discount (percentage);
+
+-- AppUserRepository.findComplexAppUserByUserId AppUserRepository.findUsersByDiscount
+-- DiscountRepository.countDiscountsByProduct DiscountRepository.findAllDiscountsWithProduct
+-- DiscountRepository.findDiscountsByProductAvgReviewRating
+-- DiscountRepository.findDiscountsByProductAvgReviewRatingFromRollup
+-- DiscountRepository.findDiscountsByProductCategory DiscountRepository.findDiscountsByProductName
+-- DiscountRepository.findDiscountsByProductPriceGreaterThan
+-- DiscountRepository.findDiscountsForProductsWithOrderItems
+-- DiscountRepository.findDistinctDiscountsWithCode DiscountRepository.findProductDiscountCounts
+-- UserEligibilityRepository.findEligibleUserIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_discount_product_id ON discount (product_id);
+
+-- AppUserRepository.findComplexAppUserByUserId AppUserRepository.findUsersByDiscount
+-- DiscountRepository.findByCodePattern DiscountRepository.findDiscountsByCodePattern
+-- UserEligibilityRepository.findEligibleUserIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_discount_code_trgm ON discount USING gin (code gin_trgm_ops);
+
+-- AppUserRepository.findComplexAppUserByUserId AppUserRepository.findUsersByCategory
+-- AppUserRepository.findUsersByDiscount AppUserRepository.findUsersWithOrderItems
+-- OrderItemRepository.countByOrderId OrderItemRepository.findByCustomerOrderUserId
+-- OrderItemRepository.findByCustomerOrderUserName OrderItemRepository.findByOrderId
+-- OrderItemRepository.findByOrderIdAndProductId OrderItemRepository.findByOrderIdAndProductName
+-- OrderItemRepository.findByOrderIdAndProductNameLike
+-- OrderItemRepository.findByOrderIdWithNonNullQuantity OrderItemRepository.findByOrderIds
+-- OrderItemRepository.findDistinctByOrderId OrderItemRepository.findMaxQuantityInOrder
+-- OrderItemRepository.findMinQuantityInOrder OrderItemRepository.sumQuantitiesByOrderId
+-- RollupRepository.countStaleOrderRollups UserEligibilityRepository.findEligibleUserIds
+-- UserEligibilityRepository.findUserIdsByOrderedCategoryIds
+-- UserEligibilityRepository.findUserIdsByOrderedProductIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_item_order_id_product_id ON order_item (order_id, product_id);
+
+-- OrderItemRepository.findByOrderIdAndQuantityGreaterThan
+-- OrderItemRepository.findByOrderIdAndQuantityLessThan
+-- OrderItemRepository.findByOrderIdOrderByQuantityAsc
+-- OrderItemRepository.findByOrderIdOrderByQuantityDesc OrderItemRepository.findMaxQuantityInOrder
+-- OrderItemRepository.findMinQuantityInOrder
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_item_order_id_quantity ON order_item (order_id, quantity);
+
+-- AppUserRepository.findComplexAppUserByUserId AppUserRepository.findUsersByCategory
+-- AppUserRepository.findUsersByDiscount DiscountRepository.findDiscountsForProductsWithOrderItems
+-- OrderItemRepository.findByOrderIdAndProductName
+-- OrderItemRepository.findByOrderIdAndProductNameLike OrderItemRepository.findByProductCategoryName
+-- OrderItemRepository.findByProductIdAndQuantityBetween
+-- OrderItemRepository.findByProductIdOrderByQuantity
+-- OrderItemRepository.findByProductIdWithNonNullQuantity OrderItemRepository.findByProductIds
+-- OrderItemRepository.findByProductName OrderItemRepository.findByProductNameAndQuantity
+-- OrderItemRepository.findByProductNameEndingWith OrderItemRepository.findByProductNameLike
+-- OrderItemRepository.findByProductNamePattern OrderItemRepository.findByProductNameStartingWith
+-- OrderItemRepository.findByProductPriceGreaterThan OrderItemRepository.findByProductPriceLessThan
+-- OrderItemRepository.findDistinctByProductId RollupRepository.countStaleProductRollups
+-- UserEligibilityRepository.findEligibleUserIds
+-- UserEligibilityRepository.findUserIdsByOrderedCategoryIds
+-- UserEligibilityRepository.findUserIdsByOrderedProductIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_item_product_id_quantity ON order_item (product_id, quantity);
+
+-- OrderItemRepository.findByProductNameAndQuantity OrderItemRepository.findByQuantity
+-- OrderItemRepository.findByQuantityBetween OrderItemRepository.findByQuantityGreaterThan
+-- OrderItemRepository.findByQuantityLessThan OrderItemRepository.findByQuantityMinAndMax
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_item_quantity ON order_item (quantity);
+
+-- PaymentRepository.findPaymentsUsingLowerNative
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_lower_status ON payment ((lower(status)));
+
+-- PaymentRepository.findPaymentsByNestedSubqueryNative
+-- PaymentRepository.findPaymentsByStatusAndOrderIdNative
+-- PaymentRepository.findPaymentsByStatusNative
+-- PaymentRepository.findPaymentsByStatusWithLimitNative
+-- PaymentRepository.findPaymentsByStatusesNative
+-- PaymentRepository.findPaymentsHavingCountGreaterThanNative
+-- PaymentRepository.findPaymentsOrderByStatusAscNative
+-- PaymentRepository.findPaymentsOrderByStatusDescNative
+-- PaymentRepository.findPaymentsUsingInSubqueryNative
+-- PaymentRepository.findPaymentsUsingUnionNative RollupRepository.countStalePaymentStatusRollups
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_status_order_id ON payment (status, order_id);
+
+-- PaymentRepository.findPaymentsUsingUpperNative
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_upper_status ON payment ((upper(status)));
+
+-- PaymentRepository.findPaymentsByStatusPatternNative
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_status_trgm ON payment USING gin (status gin_trgm_ops);
+
+-- AppUserRepository.findComplexAppUserByUserId AppUserRepository.findUsersByCategory
+-- DiscountRepository.findDiscountsByProductCategory OrderItemRepository.findByProductCategoryName
+-- UserEligibilityRepository.findEligibleUserIds
+-- UserEligibilityRepository.findUserIdsByOrderedCategoryIds
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_category_id ON product (category_id);
+
+-- DiscountRepository.findDiscountsByProductName OrderItemRepository.findByOrderIdAndProductName
+-- OrderItemRepository.findByProductName OrderItemRepository.findByProductNameAndQuantity
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_name ON product (name);
+
+-- AppUserRepository.findComplexAppUserByUserId
+-- DiscountRepository.findDiscountsByProductPriceGreaterThan
+-- OrderItemRepository.findByProductPriceGreaterThan OrderItemRepository.findByProductPriceLessThan
+-- ProductRepository.findByPriceRange UserEligibilityRepository.findEligibleUserIds
+-- UserEligibilityRepository.findProductIdsByPriceAboveAndAtMost
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_price ON product (price);
+
+-- OrderItemRepository.findByProductNameStartingWith
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_name_pattern ON product (name text_pattern_ops);
+
+-- OrderItemRepository.findByOrderIdAndProductNameLike
+-- OrderItemRepository.findByProductNameEndingWith OrderItemRepository.findByProductNameLike
+-- OrderItemRepository.findByProductNamePattern
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_name_trgm ON product USING gin (name gin_trgm_ops);
+
+-- DiscountRepository.findDiscountsByProductAvgReviewRating
+-- ReviewRepository.findByProductAndMinRating RollupRepository.countStaleProductRollups
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_review_product_id_rating ON review (product_id, rating);
+
+-- AppUserRepository.findUsersByMultipleCriteria
+-- AppUserRepository.findUsersByReviewRatingGreaterThan
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_review_rating ON review (rating);
+
+-- AddressRepository.findAddressesByUsersWithReviews AppUserRepository.findUsersByMultipleCriteria
+-- AppUserRepository.findUsersByReviewRatingGreaterThan
+-- AppUserRepository.findUsersWithReviewsAndOrders ReviewRepository.findByUserId
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_review_user_id ON review (user_id);
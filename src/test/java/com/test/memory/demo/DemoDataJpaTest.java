@@ -0,0 +1,35 @@
+package com.test.memory.demo;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@link DataJpaTest} with the settings shared by the repository and feature tests: the
+ * {@code test} profile ({@code application-test.properties}, H2 instead of PostgreSQL), the
+ * {@link TestData} seeding helper and a second-level cache of its own
+ * ({@link TestCacheConfiguration}).
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({TestData.class, TestCacheConfiguration.class})
+public @interface DemoDataJpaTest {
+
+    /**
+     * Properties of this test only, added to the shared ones.
+     */
+    @AliasFor(annotation = DataJpaTest.class)
+    String[] properties() default {};
+}
@@ -0,0 +1,30 @@
+package com.test.memory.demo;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Gives each test context its own second-level cache manager. The caching provider shares one
+ * manager per URI across the JVM and Hibernate closes it with the session factory, so a context
+ * that fails to start would otherwise close the caches of the contexts kept for the next tests.
+ * The URI names no file or classpath resource: the regions are still read from
+ * {@code application.conf}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class TestCacheConfiguration {
+
+    @Bean
+    static HibernatePropertiesCustomizer testCacheManager() {
+        URI uri = URI.create("demo-test:" + UUID.randomUUID());
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER,
+                Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                        .getCacheManager(uri, TestCacheConfiguration.class.getClassLoader()));
+    }
+}
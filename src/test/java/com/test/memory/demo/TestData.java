@@ -0,0 +1,62 @@
+package com.test.memory.demo;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Seed rows shared by the {@link DemoDataJpaTest} tests. Rows are inserted with plain JDBC, so no
+ * entity is loaded, cached or counted in the statistics before a test starts.
+ */
+public class TestData {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public TestData(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Category 1 {@code Books} with products 1 {@code novel} (10.0) and 2 {@code atlas} (30.0).
+     */
+    public TestData books() {
+        jdbcTemplate.execute("INSERT INTO category (id, name) VALUES (1, 'Books')");
+        jdbcTemplate.execute("INSERT INTO product (id, name, price, category_id) VALUES (1, 'novel', 10.0, 1), (2, 'atlas', 30.0, 1)");
+        return this;
+    }
+
+    /**
+     * Users 1 to {@code count}, named {@code user 1}, {@code user 2}...
+     */
+    public TestData users(int count) {
+        return insert("INSERT INTO app_user (id, name) VALUES (?, ?)", count, i -> new Object[]{i, "user " + i});
+    }
+
+    /**
+     * Runs {@code sql} as one JDBC batch, with the parameters of {@code row} for 1 to {@code count}.
+     */
+    public TestData insert(String sql, int count, IntFunction<Object[]> row) {
+        List<Object[]> batch = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            batch.add(row.apply(i));
+        }
+        jdbcTemplate.batchUpdate(sql, batch);
+        return this;
+    }
+
+    /**
+     * The Hibernate statistics, cleared: they count from here on.
+     */
+    public Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
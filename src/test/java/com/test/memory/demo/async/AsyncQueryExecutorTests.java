@@ -0,0 +1,184 @@
+package com.test.memory.demo.async;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.repositories.PaymentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link AsyncQueryExecutor} runs repository calls on other threads, never more at once than its
+ * permits. Runs without the test transaction, the calls cannot see uncommitted rows.
+ */
+@DemoDataJpaTest(properties = {
+        "demo.async.max-concurrency=2",
+        "demo.async.acquire-timeout=1s"
+})
+@Import(AsyncConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AsyncQueryExecutorTests {
+
+    @Autowired
+    AsyncQueryExecutor async;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO payment (id, status) VALUES (1, 'PAID'), (2, 'PAID'), (3, 'PENDING')");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("DELETE FROM payment");
+    }
+
+    @Test
+    void callsCompleteWithRepositoryResults() {
+        CompletableFuture<Long> count = async.supply(paymentRepository::countPaymentsNative);
+        CompletableFuture<List<String>> statuses = async.supply(paymentRepository::findDistinctStatusesNative);
+
+        assertThat(count.join()).isEqualTo(3);
+        assertThat(statuses.join()).containsExactlyInAnyOrder("PAID", "PENDING");
+    }
+
+    @Test
+    void concurrencyIsBoundedByPermits() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Long>> calls = IntStream.range(0, 8)
+                .mapToObj(i -> async.supply(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                        return paymentRepository.countPaymentsNative();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }))
+                .toList();
+
+        assertThat(calls).allSatisfy(call -> assertThat(call.join()).isEqualTo(3));
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    void callWithoutPermitInTimeIsRejected() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> holders = IntStream.range(0, 2)
+                .mapToObj(i -> async.supply(() -> {
+                    started.countDown();
+                    return await(release);
+                }))
+                .toList();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Long> rejected = async.supply(paymentRepository::countPaymentsNative);
+
+        try {
+            assertThat(rejected).failsWithin(5, TimeUnit.SECONDS).withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(TaskRejectedException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(holders).allSatisfy(holder -> assertThat(holder.join()).isTrue());
+        assertThat(async.supply(paymentRepository::countPaymentsNative).join()).isEqualTo(3);
+    }
+
+    @Test
+    void callsCarryTheTimeLeftUntilTheirDeadlineAsTransactionTimeout() {
+        CompletableFuture<Long> timeToLive = async.supply(() -> ((EntityManagerHolder) TransactionSynchronizationManager
+                .getResource(entityManagerFactory)).getTimeToLiveInMillis(), Instant.now().plusMillis(2500));
+
+        assertThat(timeToLive.join()).isPositive().isLessThanOrEqualTo(3000);
+        assertThat(async.supply(() -> ((EntityManagerHolder) TransactionSynchronizationManager
+                .getResource(entityManagerFactory)).hasTimeout()).join()).isFalse();
+    }
+
+    @Test
+    void callNotStartedByItsDeadlineFails() {
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<Long> late = async.supply(() -> {
+            calls.incrementAndGet();
+            return paymentRepository.countPaymentsNative();
+        }, Instant.now().minusMillis(1));
+
+        assertThat(late).failsWithin(5, TimeUnit.SECONDS).withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(QueryTimeoutException.class);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void callBeyondTheQueueIsRejectedAtOnce() throws InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        AsyncQueryExecutor bounded = new AsyncQueryExecutor(pool, 1, Duration.ofSeconds(1), transactionManager);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> holder = bounded.supply(() -> {
+                started.countDown();
+                return await(release);
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<Long> queued = bounded.supply(paymentRepository::countPaymentsNative);
+
+            CompletableFuture<Long> rejected = bounded.supply(paymentRepository::countPaymentsNative);
+
+            assertThat(rejected).isCompletedExceptionally().failsWithin(Duration.ZERO)
+                    .withThrowableOfType(ExecutionException.class).withCauseInstanceOf(TaskRejectedException.class);
+            release.countDown();
+            assertThat(holder.join()).isTrue();
+            assertThat(queued.join()).isEqualTo(3);
+        } finally {
+            release.countDown();
+            bounded.destroy();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.test.memory.demo.copy;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.entities.Product;
+import com.test.memory.demo.events.EntityChangeConfiguration;
+import com.test.memory.demo.query.resultcache.QueryResultCacheConfiguration;
+import com.test.memory.demo.repositories.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link BulkCopyService} loads and exports orders, items and payments with {@code COPY}. Needs a
+ * PostgreSQL database whose tables may be dropped, e.g.
+ * {@code DEMO_POSTGRES_URL=jdbc:postgresql://localhost:5432/demo_test DEMO_POSTGRES_USER=... mvn test}.
+ * Runs without the test transaction so that every step commits.
+ */
+@DemoDataJpaTest(properties = {
+        "spring.datasource.url=${DEMO_POSTGRES_URL}",
+        "spring.datasource.username=${DEMO_POSTGRES_USER:postgres}",
+        "spring.datasource.password=${DEMO_POSTGRES_PASSWORD:}",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BulkCopyService.class, EntityChangeConfiguration.class, QueryResultCacheConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "DEMO_POSTGRES_URL", matches = ".+")
+class BulkCopyTests {
+
+    static final int ORDERS = 10_000;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    BulkCopyService bulkCopyService;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @BeforeEach
+    void seed() {
+        cleanUp();
+        jdbcTemplate.execute("INSERT INTO category (id, name) VALUES (1, 'Books')");
+        jdbcTemplate.execute("INSERT INTO product (id, name, price, category_id) VALUES (1, 'novel', 10.0, 1)");
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'ann'), (2, 'bob')");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("order_item", "payment", "shipment", "customer_order", "product", "category", "app_user")) {
+            jdbcTemplate.execute("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void loadedRowsAreExportedBack() {
+        List<CustomerOrder> orders = IntStream.range(0, ORDERS).mapToObj(i -> order(i % 2 + 1)).toList();
+
+        assertThat(bulkCopyService.load(CustomerOrder.class, orders.stream())).isEqualTo(ORDERS);
+        assertThat(orders).allSatisfy(order -> assertThat(order.getId()).isNotNull());
+        bulkCopyService.load(OrderItem.class, orders.stream().map(order -> item(order, 3)));
+        bulkCopyService.load(Payment.class, Stream.of(
+                payment(orders.get(0), "PAID"),
+                payment(orders.get(1), "said \"no\", then\nyes"),
+                payment(orders.get(2), ""),
+                payment(orders.get(3), null)));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer_order WHERE user_id = 2", Long.class))
+                .isEqualTo(ORDERS / 2);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM order_item", Long.class)).isEqualTo(3L * ORDERS);
+
+        Map<Long, String> statuses = new HashMap<>();
+        long exported = bulkCopyService.export(Payment.class, payment ->
+                statuses.put(payment.getCustomerOrder().getId(), payment.getStatus()));
+        assertThat(exported).isEqualTo(4);
+        assertThat(statuses).containsEntry(orders.get(0).getId(), "PAID")
+                .containsEntry(orders.get(1).getId(), "said \"no\", then\nyes")
+                .containsEntry(orders.get(2).getId(), "")
+                .containsEntry(orders.get(3).getId(), null);
+
+        List<OrderItem> items = new ArrayList<>();
+        bulkCopyService.export(OrderItem.class, items::add);
+        assertThat(items).hasSize(ORDERS).allSatisfy(item -> {
+            assertThat(item.getProduct().getId()).isEqualTo(1L);
+            assertThat(item.getQuantity()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void cachedQueriesSeeLoadedRows() {
+        CustomerOrder order = order(1);
+        bulkCopyService.load(CustomerOrder.class, Stream.of(order));
+        assertThat(paymentRepository.countPaymentsNative()).isZero();
+
+        bulkCopyService.load(Payment.class, Stream.of(payment(order, "PAID")));
+
+        assertThat(paymentRepository.countPaymentsNative()).isEqualTo(1);
+    }
+
+    private CustomerOrder order(long userId) {
+        CustomerOrder order = new CustomerOrder();
+        order.setAppUser(entityManager.getReference(AppUser.class, userId));
+        return order;
+    }
+
+    private OrderItem item(CustomerOrder order, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setCustomerOrder(order);
+        item.setProduct(entityManager.getReference(Product.class, 1L));
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static Payment payment(CustomerOrder order, String status) {
+        Payment payment = new Payment();
+        payment.setCustomerOrder(order);
+        payment.setStatus(status);
+        return payment;
+    }
+}
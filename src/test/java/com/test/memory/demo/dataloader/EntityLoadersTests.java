@@ -0,0 +1,129 @@
+package com.test.memory.demo.dataloader;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.Product;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link EntityLoaders} turn lookups by id into one {@code IN} query per entity type and batch,
+ * for the ids found neither in the persistence context nor in the second-level cache.
+ */
+@DemoDataJpaTest
+class EntityLoadersTests {
+
+    static final int MAX_BATCH_SIZE = 4;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    EntityLoaders loaders;
+    Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        testData.users(10)
+                .insert("INSERT INTO product (id, name) VALUES (?, ?)", 10, i -> new Object[]{i, "product " + i})
+                .insert("INSERT INTO customer_order (id, user_id) VALUES (?, ?)", 10, i -> new Object[]{i, i});
+        entityManager.clear();
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        loaders = new EntityLoaders(entityManager, transactionManager, MAX_BATCH_SIZE);
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void loadsAreCoalescedIntoOneQuery() {
+        List<CompletableFuture<Product>> products = LongStream.of(3, 1, 2, 1).mapToObj(loaders.products()::load).toList();
+
+        assertThat(products).noneMatch(CompletableFuture::isDone);
+        assertThat(loaders.products().get(99L)).isNull();
+        assertThat(products).extracting(CompletableFuture::join).extracting(Product::getName)
+                .containsExactly("product 3", "product 1", "product 2", "product 1");
+        assertThat(loaders.products().queries()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void batchesAreChunkedAndCached() {
+        List<Long> ids = LongStream.rangeClosed(1, 10).boxed().toList();
+
+        assertThat(loaders.users().getAll(ids)).hasSize(10).containsKeys(ids.toArray(Long[]::new));
+        assertThat(loaders.users().queries()).isEqualTo(3);
+
+        assertThat(loaders.users().get(5L)).extracting(AppUser::getName).isEqualTo("user 5");
+        assertThat(loaders.users().getAll(List.of(2L, 11L))).containsOnlyKeys(2L);
+        assertThat(loaders.users().queries()).isEqualTo(4);
+    }
+
+    @Test
+    void managedEntitiesAreNotQueried() {
+        AppUser managed = entityManager.find(AppUser.class, 2L);
+        statistics.clear();
+
+        assertThat(loaders.users().getAll(List.of(1L, 2L, 3L))).hasSize(3).containsEntry(2L, managed);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(2);
+    }
+
+    // Outside the test transaction each batch runs in its own, like two requests: READ_WRITE cache
+    // entries are only readable by sessions started after they were put
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void cachedEntitiesAreNotQueried() {
+        try {
+            assertThat(loaders.products().getAll(List.of(1L, 2L))).hasSize(2);
+            EntityLoaders nextRequest = new EntityLoaders(entityManager, transactionManager, MAX_BATCH_SIZE);
+            statistics.clear();
+
+            assertThat(nextRequest.products().getAll(List.of(1L, 2L, 3L)).values()).extracting(Product::getName)
+                    .containsExactly("product 1", "product 2", "product 3");
+            assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+            assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        } finally {
+            for (String table : List.of("customer_order", "app_user", "product")) {
+                jdbcTemplate.execute("DELETE FROM " + table);
+            }
+        }
+    }
+
+    @Test
+    void dispatchLoadsEveryEntityType() {
+        CompletableFuture<CustomerOrder> order = loaders.orders().load(7L);
+        CompletableFuture<Product> product = loaders.products().load(7L);
+        CompletableFuture<AppUser> user = loaders.users().load(7L);
+
+        loaders.dispatch();
+
+        assertThat(order.join().getAppUser()).isSameAs(user.join());
+        assertThat(product.join().getId()).isEqualTo(7L);
+        assertThat(loaders.orders().queries() + loaders.products().queries() + loaders.users().queries()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,106 @@
+package com.test.memory.demo.diagnostics;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.query.DecoratingJpaRepositoryFactory;
+import com.test.memory.demo.query.QueryLookupStrategyDecorator;
+import com.test.memory.demo.query.RepositoryMethodContextDecorator;
+import com.test.memory.demo.query.aot.OfflineSessionFactory;
+import com.test.memory.demo.query.aot.PrecompiledQueries;
+import com.test.memory.demo.query.aot.PrecompiledQueryConfiguration;
+import com.test.memory.demo.query.aot.PrecompiledQueryLookup;
+import com.test.memory.demo.query.aot.QueryPlanCompiler;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link QueryPlanProfiler} records one profile per repository query method as the repositories
+ * are created, and ranks them by retained heap, then allocation. It wraps the stock lookup
+ * strategy directly, so methods served from precompiled plans are not profiled.
+ */
+@DemoDataJpaTest(properties = {
+        "demo.diagnostics.query-plans.enabled=true",
+        "demo.diagnostics.query-plans.measure-retained-heap=false",
+        "demo.query.precompiled.enabled=true"
+})
+@Import({QueryPlanDiagnosticsConfiguration.class, PrecompiledQueryConfiguration.class,
+        RepositoryMethodContextDecorator.class})
+class QueryPlanProfilerTests {
+
+    @Autowired
+    QueryPlanProfiler profiler;
+
+    @Autowired
+    ObjectProvider<QueryLookupStrategyDecorator> decorators;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Test
+    void everyQueryMethodIsProfiled() {
+        Map<String, QueryPlanProfile> profiles = profiler.ranked().stream()
+                .collect(Collectors.toMap(QueryPlanProfile::qualifiedName, Function.identity()));
+
+        assertThat(profiles).containsKeys("PaymentRepository.findPaymentsByIdListNative",
+                "OrderItemRepository.findByOrderIds", "AppUserRepository.findComplexAppUserByUserId");
+        QueryPlanProfile nativeQuery = profiles.get("PaymentRepository.findPaymentsByIdListNative");
+        assertThat(nativeQuery.nativeQuery()).isTrue();
+        assertThat(nativeQuery.parseTreeNodes()).isEqualTo(-1);
+        assertThat(nativeQuery.retainedBytes()).isEqualTo(-1);
+
+        QueryPlanProfile simple = profiles.get("OrderItemRepository.findByOrderIds");
+        QueryPlanProfile complex = profiles.get("AppUserRepository.findComplexAppUserByUserId");
+        assertThat(simple.nativeQuery()).isFalse();
+        assertThat(simple.parseTreeNodes()).isPositive();
+        assertThat(complex.parseTreeNodes()).isGreaterThan(simple.parseTreeNodes());
+        assertThat(profiles.values()).allSatisfy(profile -> assertThat(profile.compileMillis()).isNotNegative());
+    }
+
+    @Test
+    void profilesAreRankedMostExpensiveFirst() {
+        List<QueryPlanProfile> ranked = profiler.ranked();
+
+        assertThat(ranked).isSortedAccordingTo(Comparator.comparingLong(QueryPlanProfile::retainedBytes)
+                .thenComparingLong(QueryPlanProfile::allocatedBytes)
+                .reversed());
+        assertThat(ranked.get(0).allocatedBytes()).isGreaterThanOrEqualTo(ranked.get(ranked.size() - 1).allocatedBytes());
+    }
+
+    // Decorators are applied in order, the first one wraps the stock strategy
+    @Test
+    void precompiledMethodsAreNotProfiled() {
+        assertThat(decorators.orderedStream().map(Object::getClass).toList())
+                .containsSubsequence(QueryPlanProfiler.class, PrecompiledQueryLookup.class,
+                        RepositoryMethodContextDecorator.class);
+
+        SessionFactoryImplementor offlineSessionFactory = OfflineSessionFactory.build(H2Dialect.class.getName());
+        try {
+            PrecompiledQueryLookup lookup = new PrecompiledQueryLookup(new PrecompiledQueries(H2Dialect.class.getName(),
+                    new QueryPlanCompiler(offlineSessionFactory).compileAll(List.of(OrderItemRepository.class))));
+            QueryPlanProfiler precompiledProfiler = new QueryPlanProfiler(false);
+            new DecoratingJpaRepositoryFactory(entityManager, List.of(precompiledProfiler, lookup))
+                    .getRepository(OrderItemRepository.class);
+
+            assertThat(precompiledProfiler.ranked()).extracting(QueryPlanProfile::qualifiedName)
+                    .contains("OrderItemRepository.findByProductIds")
+                    .doesNotContain("OrderItemRepository.findByOrderId", "OrderItemRepository.countByOrderId");
+        } finally {
+            offlineSessionFactory.close();
+        }
+    }
+}
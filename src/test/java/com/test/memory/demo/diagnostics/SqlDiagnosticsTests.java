@@ -0,0 +1,89 @@
+package com.test.memory.demo.diagnostics;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.query.RepositoryMethodContextDecorator;
+import com.test.memory.demo.repositories.PaymentRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Statements are timed per repository method through the instrumented data source, and slow
+ * queries are logged with their plan (every statement is slow here, the plan is H2's).
+ */
+@DemoDataJpaTest(properties = {
+        "demo.diagnostics.sql.slow-threshold=0ms",
+        "demo.diagnostics.sql.explain=EXPLAIN ANALYZE"
+})
+@Import({SqlDiagnosticsConfiguration.class, RepositoryMethodContextDecorator.class, SimpleMeterRegistry.class})
+class SqlDiagnosticsTests {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    SlowQueryLog slowQueryLog;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'ann')");
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (1, 1), (2, 1), (3, 1)");
+        jdbcTemplate.execute("INSERT INTO payment (id, status, order_id) VALUES (1, 'PAID', 1), (2, 'PAID', 2), (3, 'PENDING', 3)");
+    }
+
+    @Test
+    void executionsAreRecordedPerRepositoryMethod() {
+        String method = "PaymentRepository.findDistinctStatusesNative";
+        Timer before = registry.find("demo.sql.execution").tag("method", method).timer();
+        long executions = before == null ? 0 : before.count();
+        DistributionSummary rowsBefore = registry.find("demo.sql.rows").tag("method", method).summary();
+        double rows = rowsBefore == null ? 0 : rowsBefore.totalAmount();
+
+        paymentRepository.findDistinctStatusesNative();
+        paymentRepository.findDistinctStatusesNative();
+
+        Timer execution = timer("demo.sql.execution", method);
+        assertThat(execution.count()).isEqualTo(executions + 2);
+        assertThat(execution.takeSnapshot().percentileValues()).hasSize(2);
+        assertThat(timer("demo.sql.fetch", method).count()).isEqualTo(executions + 2);
+        assertThat(registry.get("demo.sql.rows").tag("method", method).summary().totalAmount()).isEqualTo(rows + 4);
+        // The seed statements ran outside of any repository method
+        assertThat(timer("demo.sql.execution", "none").count()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void slowQueriesAreLoggedWithTheirPlan() {
+        paymentRepository.findPaymentStatusCountsUsingCTE(0);
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(slowQueryLog.recent())
+                .filteredOn(slowQuery -> slowQuery.method().equals("PaymentRepository.findPaymentStatusCountsUsingCTE"))
+                .singleElement()
+                .satisfies(slowQuery -> {
+                    assertThat(slowQuery.rows()).isEqualTo(2);
+                    assertThat(slowQuery.plan()).containsIgnoringCase("status_cte").doesNotContain("plan not captured");
+                }));
+        assertThat(slowQueryLog.recent()).filteredOn(slowQuery -> slowQuery.sql().startsWith("INSERT"))
+                .allSatisfy(slowQuery -> assertThat(slowQuery.plan()).isNull());
+    }
+
+    private Timer timer(String name, String method) {
+        return registry.get(name).tag("method", method).timer();
+    }
+}
@@ -0,0 +1,311 @@
+package com.test.memory.demo.eligibility;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.Address;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.Category;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.Discount;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Product;
+import com.test.memory.demo.events.EntityChangeConfiguration;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.UserEligibilityRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * {@code findEligibleAppUserByUserId} and {@code findEligibleUserIds} return what
+ * {@code findComplexAppUserByUserId} returns for every user, after each kind of write that can
+ * change it. Runs without the test transaction so that every step commits.
+ */
+@DemoDataJpaTest
+@Import({EntityChangeConfiguration.class, EligibilityConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EligibilityTests {
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UserEligibilityMaintainer maintainer;
+
+    @Autowired
+    AppUserRepository appUserRepository;
+
+    @Autowired
+    UserEligibilityRepository userEligibilityRepository;
+
+    TransactionTemplate transaction;
+    Long ann;
+    Long bob;
+    Long carl;
+    Long dora;
+    Long books;
+    Long cheap;
+    Long mid;
+    Long pricey;
+
+    // Ann bought the cheap book, Bob the mid priced one, Carl the one above the average, Dora nothing
+    @BeforeEach
+    void seed() {
+        await().atMost(Duration.ofSeconds(10)).until(maintainer::isReady);
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Category category = persist(category("Books"));
+            Product cheapBook = persist(product("cheap", 10.0, category));
+            Product midBook = persist(product("mid", 20.0, category));
+            Product priceyBook = persist(product("pricey", 60.0, category));
+            ann = buyer("ann", cheapBook);
+            bob = buyer("bob", midBook);
+            carl = buyer("carl", priceyBook);
+            dora = persist(user("dora")).getId();
+            books = category.getId();
+            cheap = cheapBook.getId();
+            mid = midBook.getId();
+            pricey = priceyBook.getId();
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("order_item", "discount", "address", "customer_order", "product", "category",
+                "app_user")) {
+            jdbcTemplate.execute("DELETE FROM " + table);
+        }
+        maintainer.rebuild();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_eligibility", Long.class)).isZero();
+    }
+
+    @Test
+    void firstBuildRanInTheBackground() {
+        assertThat(maintainer.status().ready()).isTrue();
+        assertThat(maintainer.status().averagePrice()).isEqualTo(30.0);
+        assertEligible(carl);
+    }
+
+    @Test
+    void addressWrites() {
+        Long address = write(em -> {
+            Address newYork = new Address();
+            newYork.setCity("New York");
+            newYork.setAppUser(em.find(AppUser.class, ann));
+            em.persist(newYork);
+        }, () -> entityManager.createQuery("SELECT a.id FROM Address a", Long.class).getSingleResult());
+        assertEligible(ann, carl);
+
+        write(em -> em.find(Address.class, address).setAppUser(em.find(AppUser.class, dora)));
+        assertEligible(carl, dora);
+
+        write(em -> em.find(Address.class, address).setCity("Boston"));
+        assertEligible(carl);
+
+        write(em -> em.find(Address.class, address).setCity("New York"));
+        write(em -> em.remove(em.find(Address.class, address)));
+        assertEligible(carl);
+    }
+
+    @Test
+    void orderItemWrites() {
+        write(em -> {
+            CustomerOrder order = persist(order(em.find(AppUser.class, dora)));
+            persist(item(order, em.find(Product.class, pricey)));
+        });
+        assertEligible(carl, dora);
+
+        Long item = entityManager.createQuery(
+                "SELECT oi.id FROM OrderItem oi WHERE oi.customerOrder.appUser.id = :userId", Long.class)
+                .setParameter("userId", dora).getSingleResult();
+        write(em -> em.find(OrderItem.class, item).setProduct(em.find(Product.class, cheap)));
+        assertEligible(carl);
+
+        write(em -> em.find(OrderItem.class, item).setProduct(em.find(Product.class, pricey)));
+        write(em -> em.remove(em.find(OrderItem.class, item)));
+        assertEligible(carl);
+
+        write(em -> em.createQuery("SELECT oi FROM OrderItem oi WHERE oi.product.id = :productId", OrderItem.class)
+                .setParameter("productId", pricey).getResultList().forEach(em::remove));
+        assertEligible();
+    }
+
+    @Test
+    void discountWrites() {
+        Long discount = write(em -> {
+            Discount summer = new Discount();
+            summer.setCode("SUMMER_DISC");
+            summer.setProduct(em.find(Product.class, cheap));
+            em.persist(summer);
+        }, () -> entityManager.createQuery("SELECT d.id FROM Discount d", Long.class).getSingleResult());
+        assertEligible(ann, carl);
+
+        write(em -> em.find(Discount.class, discount).setProduct(em.find(Product.class, mid)));
+        assertEligible(bob, carl);
+
+        write(em -> em.find(Discount.class, discount).setCode("SUMMER"));
+        assertEligible(carl);
+
+        write(em -> em.find(Discount.class, discount).setCode("DISC10"));
+        write(em -> em.remove(em.find(Discount.class, discount)));
+        assertEligible(carl);
+    }
+
+    @Test
+    void categoryWrites() {
+        write(em -> em.find(Category.class, books).setName("Electronics"));
+        assertEligible(ann, bob, carl);
+
+        write(em -> {
+            Category other = persist(category("Garden"));
+            em.find(Product.class, mid).setCategory(other);
+        });
+        assertEligible(ann, carl);
+
+        write(em -> em.find(Category.class, books).setName("Books"));
+        assertEligible(carl);
+    }
+
+    // Changing one price moves the average, which other products' buyers can cross without a write of theirs
+    @Test
+    void priceWritesMovingTheAverage() {
+        write(em -> em.find(Product.class, mid).setPrice(100.0));
+        assertAverage(170.0 / 3);
+        assertEligible(bob, carl);
+
+        write(em -> em.find(Product.class, cheap).setPrice(200.0));
+        assertAverage(120.0);
+        assertEligible(ann);
+
+        write(em -> em.find(Product.class, cheap).setPrice(null));
+        assertAverage(80.0);
+        assertEligible(bob);
+
+        Long unsold = write(em -> persist(product("unsold", 1_000.0, null)), () -> entityManager
+                .createQuery("SELECT p.id FROM Product p WHERE p.name = 'unsold'", Long.class).getSingleResult());
+        assertAverage(1_160.0 / 3);
+        assertEligible();
+
+        write(em -> em.remove(em.find(Product.class, unsold)));
+        assertAverage(80.0);
+        assertEligible(bob);
+
+        write(em -> em.find(Product.class, mid).setPrice(30.0));
+        assertAverage(45.0);
+        assertEligible(carl);
+    }
+
+    @Test
+    void rebuildAgreesWithTheMaintainedRows() {
+        write(em -> em.find(Product.class, mid).setPrice(100.0));
+        write(em -> em.find(Category.class, books).setName("Electronics"));
+        write(em -> em.find(AppUser.class, dora).setName("SPECIAL_USER"));
+        List<Map<String, Object>> maintained = eligibilityRows();
+
+        maintainer.rebuild();
+
+        assertThat(eligibilityRows()).isEqualTo(maintained);
+        assertEligible(ann, bob, carl, dora);
+    }
+
+    // Every user's maintained row and the criteria evaluated at the current average agree with the original query
+    private void assertEligible(Long... expected) {
+        List<Long> userIds = List.of(ann, bob, carl, dora);
+        for (Long userId : userIds) {
+            assertThat(appUserRepository.findEligibleAppUserByUserId(userId)).as("user %d", userId)
+                    .isEqualTo(appUserRepository.findComplexAppUserByUserId(userId));
+        }
+        assertThat(userEligibilityRepository.findEligibleUserIds(userIds, maintainer.status().averagePrice()))
+                .containsExactlyInAnyOrder(expected);
+        assertThat(userIds.stream().filter(userId -> !appUserRepository.findComplexAppUserByUserId(userId).isEmpty()))
+                .containsExactlyInAnyOrder(expected);
+    }
+
+    private void assertAverage(double expected) {
+        assertThat(maintainer.status().averagePrice()).isCloseTo(expected, offset(1e-9));
+    }
+
+    private List<Map<String, Object>> eligibilityRows() {
+        return jdbcTemplate.queryForList("SELECT user_id, eligible FROM user_eligibility ORDER BY user_id");
+    }
+
+    private void write(Consumer<EntityManager> change) {
+        transaction.executeWithoutResult(status -> change.accept(entityManager));
+    }
+
+    private <T> T write(Consumer<EntityManager> change, Supplier<T> result) {
+        return transaction.execute(status -> {
+            change.accept(entityManager);
+            entityManager.flush();
+            return result.get();
+        });
+    }
+
+    private Long buyer(String name, Product product) {
+        AppUser user = persist(user(name));
+        persist(item(persist(order(user)), product));
+        return user.getId();
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static AppUser user(String name) {
+        AppUser user = new AppUser();
+        user.setName(name);
+        return user;
+    }
+
+    private static Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+    private static Product product(String name, Double price, Category category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setCategory(category);
+        return product;
+    }
+
+    private static CustomerOrder order(AppUser user) {
+        CustomerOrder order = new CustomerOrder();
+        order.setAppUser(user);
+        return order;
+    }
+
+    private static OrderItem item(CustomerOrder order, Product product) {
+        OrderItem item = new OrderItem();
+        item.setCustomerOrder(order);
+        item.setProduct(product);
+        item.setQuantity(1);
+        return item;
+    }
+}
@@ -0,0 +1,94 @@
+package com.test.memory.demo.ingestion;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import com.test.memory.demo.events.EntityChangeConfiguration;
+import com.test.memory.demo.rollup.RollupConfiguration;
+import com.test.memory.demo.rollup.RollupMaintainer;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * With rollups maintained, {@link OrderIngestionService} still sends a statement per batch rather
+ * than per row: the ingested orders, products and payment status are added to the rollups with a
+ * few multi-row upserts per table. Runs without the test transaction so that the rollups are
+ * applied on commit.
+ */
+@DemoDataJpaTest
+@Import({OrderIngestionService.class, EntityChangeConfiguration.class, RollupConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIngestionRollupTests {
+
+    static final int USERS = 10;
+    static final int ORDERS = 2_500;
+    static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    OrderIngestionService ingestionService;
+
+    @Autowired
+    RollupMaintainer rollupMaintainer;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        testData.books().users(USERS);
+        statistics = testData.statistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("shipment", "payment", "order_item", "customer_order", "product", "category",
+                "app_user", "order_item_rollup", "product_rollup", "payment_status_rollup")) {
+            jdbcTemplate.execute("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void rollupsAreUpsertedInFewStatements() {
+        List<OrderImport> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            List<OrderImport.Item> items = new ArrayList<>();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                items.add(new OrderImport.Item(j % 2 + 1, j + 1));
+            }
+            orders.add(new OrderImport(i % USERS + 1, items, "PAID", "T" + i));
+        }
+
+        assertThat(ingestionService.ingest(orders)).isEqualTo(ORDERS);
+
+        int rows = ORDERS * (3 + ITEMS_PER_ORDER);
+        // 2,500 order rollups are 9 upserts of 256 rows and one each of 128, 64 and 4; one for the products and status
+        int upserts = 12 + 1 + 1;
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2 * rows / 50 + 4 * 2 + upserts);
+
+        assertThat(rollupMaintainer.check().isConsistent()).isTrue();
+        assertThat(count("SELECT COUNT(*) FROM order_item_rollup WHERE item_count = 3 AND quantity_sum = 6"))
+                .isEqualTo(ORDERS);
+        assertThat(count("SELECT item_count FROM product_rollup WHERE product_id = 1")).isEqualTo(2L * ORDERS);
+        assertThat(count("SELECT payment_count FROM payment_status_rollup WHERE status = 'PAID'")).isEqualTo(ORDERS);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.test.memory.demo.ingestion;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link OrderIngestionService} inserts orders, items, payments and shipments in JDBC batches with
+ * sequence ids fetched 50 at a time, instead of one statement per row.
+ */
+@DemoDataJpaTest
+@Import(OrderIngestionService.class)
+class OrderIngestionTests {
+
+    static final int USERS = 10;
+    static final int ORDERS = 2_500;
+    static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    OrderIngestionService ingestionService;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        testData.books().users(USERS);
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void ordersAreInsertedInBatches() {
+        List<OrderImport> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            List<OrderImport.Item> items = new ArrayList<>();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                items.add(new OrderImport.Item(j % 2 + 1, j + 1));
+            }
+            orders.add(new OrderImport(i % USERS + 1, items, "PAID", "T" + i));
+        }
+
+        assertThat(ingestionService.ingest(orders)).isEqualTo(ORDERS);
+        entityManager.flush();
+
+        int rows = ORDERS * (3 + ITEMS_PER_ORDER);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(rows);
+        // One statement per batch of 50 inserts and per 50 sequence values, no user or product loads
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2 * rows / 50 + 4 * 2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        assertThat(count("SELECT COUNT(*) FROM customer_order WHERE user_id = 1")).isEqualTo(ORDERS / USERS);
+        assertThat(count("SELECT COUNT(*) FROM order_item i JOIN customer_order o ON o.id = i.order_id")).isEqualTo(ORDERS * ITEMS_PER_ORDER);
+        assertThat(count("SELECT SUM(quantity) FROM order_item WHERE product_id = 2")).isEqualTo(2L * ORDERS);
+        assertThat(count("SELECT COUNT(*) FROM payment p JOIN shipment s ON s.order_id = p.order_id")).isEqualTo(ORDERS);
+    }
+
+    @Test
+    void paymentAndShipmentAreOptional() {
+        ingestionService.ingest(List.of(new OrderImport(1, List.of(new OrderImport.Item(1, 1)), null, null)));
+        entityManager.flush();
+
+        assertThat(count("SELECT COUNT(*) FROM customer_order")).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM payment")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM shipment")).isZero();
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,159 @@
+package com.test.memory.demo.pagination;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.PaymentRepository;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.assertj.core.api.ThrowableAssertAlternative;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * The keyset paginated repository methods return every row once, in key order, and only accept
+ * the continuation tokens they issued.
+ */
+@DemoDataJpaTest
+class KeysetPaginationTests {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    AppUserRepository appUserRepository;
+
+    @Autowired
+    OrderItemRepository orderItemRepository;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'ann'), (2, 'bob'), (3, 'eve')");
+        jdbcTemplate.execute("INSERT INTO product (id, name) VALUES (1, 'novel')");
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (1, 1), (2, 1), (3, 2), (4, 2), (5, 3)");
+        jdbcTemplate.execute("INSERT INTO order_item (id, order_id, product_id, quantity) "
+                + "VALUES (1, 1, 1, 1), (2, 2, 1, 1), (3, 3, 1, 1)");
+        jdbcTemplate.execute("INSERT INTO payment (id, status, order_id) "
+                + "VALUES (1, 'COMPLETED', 1), (2, 'COMPLETED', 2), (3, 'PENDING', 3), (4, 'FAILED', 4), "
+                + "(5, 'PENDING', 5)");
+    }
+
+    @Test
+    void ascendingPagesEndWithAPartialPage() {
+        KeysetPage<Payment> first = paymentRepository.findPaymentPage(null, 2);
+        KeysetPage<Payment> second = paymentRepository.findPaymentPage(first.nextToken(), 2);
+        KeysetPage<Payment> last = paymentRepository.findPaymentPage(second.nextToken(), 2);
+
+        assertThat(first.content()).extracting(Payment::getId).containsExactly(1L, 2L);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.content()).extracting(Payment::getId).containsExactly(3L, 4L);
+        assertThat(second.hasNext()).isTrue();
+        assertThat(last.content()).extracting(Payment::getId).containsExactly(5L);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    // The extra row fetched tells the last full page apart, no empty page follows it
+    @Test
+    void pageSizeDividingTheRowsEndsOnAFullPage() {
+        KeysetPage<AppUser> first = appUserRepository.findAppUserPage(null, 1);
+        KeysetPage<AppUser> second = appUserRepository.findAppUserPage(first.nextToken(), 1);
+        KeysetPage<AppUser> last = appUserRepository.findAppUserPage(second.nextToken(), 1);
+
+        assertThat(first.content()).extracting(AppUser::getId).containsExactly(1L);
+        assertThat(second.content()).extracting(AppUser::getId).containsExactly(2L);
+        assertThat(last.content()).extracting(AppUser::getId).containsExactly(3L);
+        assertThat(last.hasNext()).isFalse();
+
+        KeysetPage<OrderItem> all = orderItemRepository.findOrderItemPage(null, 3);
+        assertThat(all.content()).extracting(OrderItem::getId).containsExactly(1L, 2L, 3L);
+        assertThat(all.hasNext()).isFalse();
+    }
+
+    @Test
+    void firstPageOfNoRowsIsTheLast() {
+        jdbcTemplate.execute("DELETE FROM payment");
+
+        KeysetPage<Payment> page = paymentRepository.findPaymentPage(null, 10);
+
+        assertThat(page.content()).isEmpty();
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void descendingPagesStartWithTheNewest() {
+        KeysetPage<Payment> first = paymentRepository.findLatestPaymentPage(null, 2);
+        KeysetPage<Payment> second = paymentRepository.findLatestPaymentPage(first.nextToken(), 2);
+        KeysetPage<Payment> last = paymentRepository.findLatestPaymentPage(second.nextToken(), 2);
+
+        assertThat(first.content()).extracting(Payment::getId).containsExactly(5L, 4L);
+        assertThat(second.content()).extracting(Payment::getId).containsExactly(3L, 2L);
+        assertThat(last.content()).extracting(Payment::getId).containsExactly(1L);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void tokenOfTheOtherDirectionIsRejected() {
+        String ascending = paymentRepository.findPaymentPage(null, 2).nextToken();
+        String descending = paymentRepository.findLatestPaymentPage(null, 2).nextToken();
+
+        rejected(() -> paymentRepository.findLatestPaymentPage(ascending, 2))
+                .withMessageContaining("does not match this query");
+        rejected(() -> paymentRepository.findPaymentPage(descending, 2))
+                .withMessageContaining("does not match this query");
+    }
+
+    @Test
+    void tokenOfAnotherQueryIsRejected() {
+        String payments = paymentRepository.findPaymentPage(null, 1).nextToken();
+        String users = appUserRepository.findAppUserPage(null, 1).nextToken();
+
+        rejected(() -> appUserRepository.findAppUserPage(payments, 1))
+                .withMessageContaining("does not match this query");
+        rejected(() -> orderItemRepository.findOrderItemPage(payments, 1))
+                .withMessageContaining("does not match this query");
+        rejected(() -> paymentRepository.findPaymentPage(users, 1))
+                .withMessageContaining("does not match this query");
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        rejected(() -> paymentRepository.findPaymentPage("not a token!", 2))
+                .withMessageContaining("Invalid continuation token");
+        rejected(() -> paymentRepository.findPaymentPage(encode("2"), 2))
+                .withMessageContaining("does not match this query");
+        rejected(() -> paymentRepository.findPaymentPage(encode("Payment:a:two"), 2))
+                .withMessageContaining("Invalid continuation token");
+        rejected(() -> paymentRepository.findPaymentPage("", 2))
+                .withMessageContaining("does not match this query");
+    }
+
+    @Test
+    void pageSizeOutOfRangeIsRejected() {
+        rejected(() -> paymentRepository.findPaymentPage(null, 0));
+        rejected(() -> paymentRepository.findPaymentPage(null, KeysetPagination.MAX_PAGE_SIZE + 1));
+    }
+
+    // The repository proxy translates the IllegalArgumentException of KeysetPagination
+    private static ThrowableAssertAlternative<InvalidDataAccessApiUsageException> rejected(ThrowingCallable call) {
+        return assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(call)
+                .withRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encode(String token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
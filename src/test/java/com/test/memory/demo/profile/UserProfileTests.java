@@ -0,0 +1,108 @@
+package com.test.memory.demo.profile;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.async.AsyncConfiguration;
+import com.test.memory.demo.async.AsyncQueryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link UserProfileService} merges its concurrent queries into one profile and gives up at its
+ * deadline. Runs without the test transaction, the queries cannot see uncommitted rows.
+ */
+@DemoDataJpaTest(properties = "demo.async.max-concurrency=2")
+@Import(AsyncConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserProfileTests {
+
+    @Autowired
+    UserProfileService userProfileService;
+
+    @Autowired
+    AsyncQueryExecutor async;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'Ann'), (2, 'Bob')");
+        jdbcTemplate.execute("INSERT INTO product (id, name) VALUES (1, 'novel'), (2, 'atlas')");
+        jdbcTemplate.execute("INSERT INTO address (id, street, city, user_id) VALUES (1, 'Main Street', 'Paris', 1), (2, 'High Street', 'Leeds', 2)");
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (1, 1), (2, 1), (3, 2)");
+        jdbcTemplate.execute("INSERT INTO order_item (id, order_id, product_id, quantity) VALUES (1, 1, 1, 2), (2, 1, 2, NULL), (3, 3, 1, 1)");
+        jdbcTemplate.execute("INSERT INTO review (id, comment, rating, user_id, product_id) VALUES (1, 'good', 4, 1, 1), (2, 'meh', 2, 2, 2)");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("review", "order_item", "customer_order", "address", "product", "app_user")) {
+            jdbcTemplate.execute("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void profileMergesQueries() {
+        UserProfile profile = userProfileService.findProfile(1).orElseThrow();
+
+        assertThat(profile.name()).isEqualTo("Ann");
+        assertThat(profile.addresses()).containsExactly(new UserProfile.Address(1, "Main Street", "Paris"));
+        assertThat(profile.orders()).containsExactlyInAnyOrder(
+                new UserProfile.Order(1, List.of(new UserProfile.Item(1, 1L, 2), new UserProfile.Item(2, 2L, null))),
+                new UserProfile.Order(2, List.of()));
+        assertThat(profile.reviews()).containsExactly(new UserProfile.Review(1, 1L, 4, "good"));
+    }
+
+    @Test
+    void unknownUserHasNoProfile() {
+        assertThat(userProfileService.findProfile(99)).isEmpty();
+    }
+
+    @Test
+    void profileNotLoadedWithinDeadlineFails() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> holders = IntStream.range(0, 2)
+                .mapToObj(i -> async.supply(() -> {
+                    started.countDown();
+                    return await(release);
+                }))
+                .toList();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThatThrownBy(() -> userProfileService.findProfile(1, Duration.ofMillis(100)))
+                    .isInstanceOf(QueryTimeoutException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(holders).allSatisfy(holder -> assertThat(holder.join()).isTrue());
+        assertThat(userProfileService.findProfile(2)).hasValueSatisfying(profile ->
+                assertThat(profile.orders()).containsExactly(new UserProfile.Order(3, List.of(new UserProfile.Item(3, 1L, 1)))));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.test.memory.demo.query;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.FetchProfileNames;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.CustomerOrderRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements needed to load {@value #USERS} users with their orders and order items, per fetch
+ * strategy. Payment and shipment are lazy inverse one-to-ones and only fetched by the entity graphs.
+ */
+@DemoDataJpaTest
+@Import(FetchProfileTemplate.class)
+class FetchProfileTests {
+
+    static final int USERS = 1_000;
+    static final int ORDERS_PER_USER = 2;
+    static final int ITEMS_PER_ORDER = 2;
+    static final int PRODUCTS = 10;
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    AppUserRepository appUserRepository;
+
+    @Autowired
+    CustomerOrderRepository customerOrderRepository;
+
+    @Autowired
+    FetchProfileTemplate fetchProfiles;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        testData.insert("INSERT INTO category (id, name) VALUES (?, ?)", 1, i -> new Object[]{i, "Electronics"});
+        testData.insert("INSERT INTO product (id, name, price, category_id) VALUES (?, ?, ?, ?)", PRODUCTS,
+                i -> new Object[]{i, "product " + i, 10.0 * i, 1});
+        testData.insert("INSERT INTO app_user (id, name) VALUES (?, ?)", USERS, i -> new Object[]{i, "user " + i});
+        testData.insert("INSERT INTO address (id, street, city, user_id) VALUES (?, ?, ?, ?)", USERS,
+                i -> new Object[]{i, "street " + i, "Paris", i});
+        testData.insert("INSERT INTO review (id, comment, rating, user_id, product_id) VALUES (?, ?, ?, ?, ?)", USERS,
+                i -> new Object[]{i, "ok", 4, i, i % PRODUCTS + 1});
+        int orders = USERS * ORDERS_PER_USER;
+        testData.insert("INSERT INTO customer_order (id, user_id) VALUES (?, ?)", orders,
+                i -> new Object[]{i, (i - 1) / ORDERS_PER_USER + 1});
+        testData.insert("INSERT INTO payment (id, status, order_id) VALUES (?, ?, ?)", orders, i -> new Object[]{i, "PAID", i});
+        testData.insert("INSERT INTO shipment (id, tracking_number, order_id) VALUES (?, ?, ?)", orders,
+                i -> new Object[]{i, "T" + i, i});
+        testData.insert("INSERT INTO order_item (id, order_id, product_id, quantity) VALUES (?, ?, ?, ?)", orders * ITEMS_PER_ORDER,
+                i -> new Object[]{i, (i - 1) / ITEMS_PER_ORDER + 1, i % PRODUCTS + 1, 1});
+        entityManager.clear();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void batchFetchingWithoutProfile() {
+        assertThat(traverseOrdersAndItems(appUserRepository::findAll)).isEqualTo(USERS * ORDERS_PER_USER * ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(62);
+    }
+
+    @Test
+    void userOrdersItemsProfile() {
+        int items = fetchProfiles.execute(() -> traverseOrdersAndItems(appUserRepository::findAll),
+                FetchProfileNames.USER_ORDERS_ITEMS);
+
+        assertThat(items).isEqualTo(USERS * ORDERS_PER_USER * ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void userOrdersProfile() {
+        int orders = fetchProfiles.execute(() -> appUserRepository.findAll().stream()
+                .mapToInt(user -> user.getOrders().size()).sum(), FetchProfileNames.USER_ORDERS);
+
+        assertThat(orders).isEqualTo(USERS * ORDERS_PER_USER);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void userDetailsProfile() {
+        int rows = fetchProfiles.execute(() -> appUserRepository.findAll().stream()
+                .mapToInt(user -> user.getOrders().size() + user.getAddresses().size() + user.getReviews().size())
+                .sum(), FetchProfileNames.USER_DETAILS);
+
+        assertThat(rows).isEqualTo(USERS * (ORDERS_PER_USER + 2));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void orderItemsProfile() {
+        int items = fetchProfiles.execute(() -> customerOrderRepository.findAllWithPaymentAndShipment().stream()
+                .peek(this::assertPaymentAndShipment)
+                .mapToInt(order -> order.getOrderItems().size()).sum(), FetchProfileNames.ORDER_ITEMS);
+
+        assertThat(items).isEqualTo(USERS * ORDERS_PER_USER * ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void ordersEntityGraph() {
+        int orders = appUserRepository.findUsersWithOrdersFetched().stream()
+                .flatMap(user -> user.getOrders().stream())
+                .peek(this::assertPaymentAndShipment)
+                .mapToInt(order -> 1).sum();
+
+        assertThat(orders).isEqualTo(USERS * ORDERS_PER_USER);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+    }
+
+    private int traverseOrdersAndItems(Supplier<List<AppUser>> query) {
+        int items = 0;
+        for (AppUser user : query.get()) {
+            for (CustomerOrder order : user.getOrders()) {
+                for (OrderItem item : order.getOrderItems()) {
+                    assertThat(item.getProduct().getName()).isNotNull();
+                    items++;
+                }
+            }
+        }
+        return items;
+    }
+
+    private void assertPaymentAndShipment(CustomerOrder order) {
+        assertThat(order.getPayment().getStatus()).isEqualTo("PAID");
+        assertThat(order.getShipment().getTrackingNumber()).isNotNull();
+    }
+}
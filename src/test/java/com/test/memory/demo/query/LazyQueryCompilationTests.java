@@ -0,0 +1,93 @@
+package com.test.memory.demo.query;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.Payment;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Query methods of a {@link LazyQueries} repository are compiled on their first call, not when the
+ * repository is created: creating one with an invalid query succeeds, and the underlying lookup
+ * strategy only resolves a method once it is invoked.
+ */
+@DemoDataJpaTest
+@Import(LazyQueryCompilation.class)
+class LazyQueryCompilationTests {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    LazyQueryCompilation lazyQueryCompilation;
+
+    List<String> compiled = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO payment (id, status) VALUES (1, 'PAID'), (2, 'PENDING')");
+    }
+
+    @Test
+    void queriesAreCompiledOnFirstCall() {
+        LazyPayments payments = repository(LazyPayments.class, lazyQueryCompilation);
+
+        assertThat(compiled).isEmpty();
+
+        assertThat(payments.findStatuses()).containsExactlyInAnyOrder("PAID", "PENDING");
+        assertThat(payments.findStatuses()).hasSize(2);
+        assertThat(compiled).containsExactly("findStatuses");
+
+        assertThatThrownBy(payments::findByMissingAttribute).isInstanceOf(RuntimeException.class);
+        assertThat(compiled).containsExactly("findStatuses", "findByMissingAttribute");
+    }
+
+    @Test
+    void otherRepositoriesAreCompiledWhenCreated() {
+        assertThatThrownBy(() -> repository(EagerPayments.class, lazyQueryCompilation))
+                .hasStackTraceContaining("missingAttribute");
+        assertThat(compiled).contains("findByMissingAttribute");
+    }
+
+    // The counting decorator wraps the stock strategy, lazy compilation wraps both
+    private <T> T repository(Class<T> repositoryInterface, QueryLookupStrategyDecorator lazy) {
+        QueryLookupStrategyDecorator counting = (delegate, em) -> (method, metadata, factory, namedQueries) -> {
+            compiled.add(method.getName());
+            return delegate.resolveQuery(method, metadata, factory, namedQueries);
+        };
+        return new DecoratingJpaRepositoryFactory(entityManager, List.of(counting, lazy)).getRepository(repositoryInterface);
+    }
+
+    @LazyQueries
+    interface LazyPayments extends Repository<Payment, Long> {
+
+        @Query("SELECT p.status FROM Payment p")
+        List<String> findStatuses();
+
+        @Query("SELECT p FROM Payment p WHERE p.missingAttribute = 1")
+        List<Payment> findByMissingAttribute();
+    }
+
+    interface EagerPayments extends Repository<Payment, Long> {
+
+        @Query("SELECT p.status FROM Payment p")
+        List<String> findStatuses();
+
+        @Query("SELECT p FROM Payment p WHERE p.missingAttribute = 1")
+        List<Payment> findByMissingAttribute();
+    }
+}
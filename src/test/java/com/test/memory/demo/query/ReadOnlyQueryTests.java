@@ -0,0 +1,77 @@
+package com.test.memory.demo.query;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.Address;
+import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.repositories.AddressRepository;
+import com.test.memory.demo.repositories.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Entities returned by a {@code @ReadOnlyQueries} repository are read-only inside a read-write
+ * transaction, other repositories are unaffected.
+ */
+@DemoDataJpaTest
+@Import(ReadOnlyQueryExecution.class)
+class ReadOnlyQueryTests {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    Session session;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'ann')");
+        jdbcTemplate.execute("INSERT INTO address (id, street, city, user_id) VALUES (1, 's1', 'Paris', 1)");
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (1, 1), (2, 1)");
+        jdbcTemplate.execute("INSERT INTO payment (id, status, order_id) VALUES (1, 'PENDING', 1), (2, 'PENDING', 2)");
+        session = entityManager.unwrap(Session.class);
+        session.clear();
+    }
+
+    @Test
+    void paymentsAreLoadedReadOnly() {
+        List<Payment> payments = paymentRepository.findPaymentsByStatusNative("PENDING");
+
+        assertThat(payments).hasSize(2).allSatisfy(payment -> assertThat(session.isReadOnly(payment)).isTrue());
+        assertThat(session.isDefaultReadOnly()).isFalse();
+
+        payments.forEach(payment -> payment.setStatus("COMPLETED"));
+        session.flush();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment WHERE status = 'PENDING'", Long.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void defaultMethodResultsAreLoadedReadOnly() {
+        assertThat(paymentRepository.findPaymentPage(null, 10).content())
+                .allSatisfy(payment -> assertThat(session.isReadOnly(payment)).isTrue());
+    }
+
+    @Test
+    void otherRepositoriesAreWritable() {
+        List<Address> addresses = addressRepository.findAddressesByUserId(1L);
+
+        assertThat(addresses).singleElement().satisfies(address -> assertThat(session.isReadOnly(address)).isFalse());
+    }
+}
@@ -0,0 +1,77 @@
+package com.test.memory.demo.query.advisor;
+
+import com.test.memory.demo.query.aot.OfflineSessionFactory;
+import com.test.memory.demo.query.aot.QueryPlanCompiler;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The indexes recommended for the repository queries are in place in
+ * {@code db/recommended-indexes.sql}, the plain B-trees included, and the {@code @Index} output
+ * warns about the locks {@code ddl-auto} would take building them.
+ */
+class IndexAdvisorTests {
+
+    static SessionFactoryImplementor sessionFactory;
+    static List<IndexRecommendation> recommendations;
+
+    @BeforeAll
+    static void advise() {
+        Metadata metadata = OfflineSessionFactory.metadata("org.hibernate.dialect.PostgreSQLDialect");
+        sessionFactory = metadata.buildSessionFactory().unwrap(SessionFactoryImplementor.class);
+        // Leave out the repositories that tests declare as nested interfaces, the script only serves the application's
+        List<Class<?>> repositories = QueryPlanCompiler.repositories().stream()
+                .filter(repository -> !repository.isMemberClass())
+                .toList();
+        recommendations = new IndexAdvisor(metadata, sessionFactory).advise(repositories);
+    }
+
+    @AfterAll
+    static void close() {
+        sessionFactory.close();
+    }
+
+    // Not declared with @Index, which ddl-auto would build with a write-blocking CREATE INDEX on startup
+    @Test
+    void plainIndexesAreInTheMigration() {
+        assertThat(recommendations).extracting(IndexRecommendation::toSql).contains(
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customer_order_user_id ON customer_order (user_id);",
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_item_order_id_quantity ON order_item (order_id, quantity);",
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_status_order_id ON payment (status, order_id);",
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_review_product_id_rating ON review (product_id, rating);");
+    }
+
+    @Test
+    void entityIndexesWarnAboutStartupLocks() {
+        Metadata metadata = OfflineSessionFactory.metadata("org.hibernate.dialect.PostgreSQLDialect");
+        String annotations = new IndexAdvisor(metadata, sessionFactory).entityIndexes(recommendations);
+
+        assertThat(annotations).startsWith("// ddl-auto builds @Index with a plain CREATE INDEX, which blocks writes")
+                .contains("@Index(name = \"idx_customer_order_user_id\", columnList = \"user_id\")");
+    }
+
+    @Test
+    void likeAndCaseInsensitiveLookupsNeedTheMigration() {
+        assertThat(recommendations).extracting(IndexRecommendation::toSql).contains(
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_address_city_trgm ON address USING gin (city gin_trgm_ops);",
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_app_user_name_pattern ON app_user (name text_pattern_ops);",
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_upper_status ON payment ((upper(status)));",
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_lower_status ON payment ((lower(status)));");
+    }
+
+    @Test
+    void migrationScriptIsUpToDate() throws IOException {
+        assertThat(IndexAdvisor.migrationScript(recommendations))
+                .isEqualTo(new ClassPathResource("db/recommended-indexes.sql").getContentAsString(StandardCharsets.UTF_8));
+    }
+}
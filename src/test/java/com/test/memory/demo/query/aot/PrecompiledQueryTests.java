@@ -0,0 +1,157 @@
+package com.test.memory.demo.query.aot;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.query.DecoratingJpaRepositoryFactory;
+import com.test.memory.demo.query.QueryLookupStrategyDecorator;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Queries served from the plans of {@link QueryPlanCompiler} return what the same methods return
+ * through Spring Data's JPQL path. The plans are compiled here the way the
+ * {@code precompile-queries} profile compiles them, for the H2 dialect the test runs on.
+ */
+@DemoDataJpaTest
+class PrecompiledQueryTests {
+
+    static SessionFactoryImplementor offlineSessionFactory;
+    static List<PrecompiledQuery> plans;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    // Methods Spring Data resolved because there was no plan for them
+    List<String> notPrecompiled = new ArrayList<>();
+
+    @BeforeAll
+    static void compile() {
+        offlineSessionFactory = OfflineSessionFactory.build(H2Dialect.class.getName());
+        // The scan also finds the repositories nested in tests, keep the application's and this one's
+        plans = new QueryPlanCompiler(offlineSessionFactory).compileAll(Stream.concat(
+                QueryPlanCompiler.repositories().stream().filter(repository -> repository.getEnclosingClass() == null),
+                Stream.of(ItemQueries.class)).toList());
+    }
+
+    @AfterAll
+    static void close() {
+        offlineSessionFactory.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'Ann'), (2, 'Joanna'), (3, 'Bob')");
+        jdbcTemplate.execute("INSERT INTO product (id, name) VALUES (1, 'blue pen'), (2, 'red pen'), (3, 'atlas')");
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (1, 1), (2, 1), (3, 2)");
+        jdbcTemplate.execute("INSERT INTO order_item (id, order_id, product_id, quantity) "
+                + "VALUES (1, 1, 1, 2), (2, 1, 2, NULL), (3, 1, 3, 5), (4, 3, 1, 1)");
+    }
+
+    @Test
+    void plansAreCompiledForNamedParametersOnly() {
+        assertThat(plans).extracting(PrecompiledQuery::method)
+                .contains("findByOrderId", "findByProductNameLike", "countByOrderId", "sumQuantitiesByOrderId",
+                        "findByNameContains", "sumIdsByOrderId", "findMaxQuantity")
+                .doesNotContain("findByQuantityAbove", "findByProductIds");
+    }
+
+    @Test
+    void entityResultsMatchJpql() {
+        OrderItemRepository precompiled = precompiled(OrderItemRepository.class);
+        OrderItemRepository jpql = jpql(OrderItemRepository.class);
+
+        assertThat(precompiled.findByOrderId(1L)).extracting(OrderItem::getId)
+                .containsExactlyInAnyOrderElementsOf(ids(jpql.findByOrderId(1L)))
+                .containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(precompiled.findByOrderId(2L)).isEmpty();
+        assertThat(precompiled.findByProductNameLike("pen")).extracting(OrderItem::getId)
+                .containsExactlyInAnyOrderElementsOf(ids(jpql.findByProductNameLike("pen")))
+                .containsExactlyInAnyOrder(1L, 2L, 4L);
+        assertThat(precompiled(AppUserRepository.class).findByNameContains("nn")).extracting(AppUser::getId)
+                .containsExactlyInAnyOrderElementsOf(jpql(AppUserRepository.class).findByNameContains("nn").stream()
+                        .map(AppUser::getId).toList())
+                .containsExactlyInAnyOrder(1L, 2L);
+        assertThat(notPrecompiled).doesNotContain("findByOrderId", "findByProductNameLike", "findByNameContains");
+    }
+
+    @Test
+    void scalarResultsAreConvertedToTheDeclaredType() {
+        OrderItemRepository precompiled = precompiled(OrderItemRepository.class);
+        OrderItemRepository jpql = jpql(OrderItemRepository.class);
+        ItemQueries precompiledItems = precompiled(ItemQueries.class);
+        ItemQueries jpqlItems = jpql(ItemQueries.class);
+
+        assertThat(precompiled.countByOrderId(1L)).isEqualTo(jpql.countByOrderId(1L)).isEqualTo(3L);
+        assertThat(precompiled.sumQuantitiesByOrderId(1L)).isEqualTo(jpql.sumQuantitiesByOrderId(1L)).isEqualTo(7L);
+        assertThat(precompiled.sumQuantitiesByOrderId(2L)).isEqualTo(jpql.sumQuantitiesByOrderId(2L)).isNull();
+        // SUM over a BIGINT column comes back from H2 as a DECIMAL
+        assertThat(precompiledItems.sumIdsByOrderId(1L)).isEqualTo(jpqlItems.sumIdsByOrderId(1L)).isEqualTo(6L);
+        assertThat(precompiledItems.findMaxQuantity()).isEqualTo(jpqlItems.findMaxQuantity()).isEqualTo(5);
+        assertThat(notPrecompiled).doesNotContain("countByOrderId", "sumQuantitiesByOrderId",
+                "sumIdsByOrderId", "findMaxQuantity");
+    }
+
+    @Test
+    void positionalParametersFallBackToJpql() {
+        ItemQueries precompiled = precompiled(ItemQueries.class);
+
+        assertThat(notPrecompiled).containsExactly("findByQuantityAbove");
+        assertThat(precompiled.findByQuantityAbove(1)).extracting(OrderItem::getId)
+                .containsExactlyInAnyOrderElementsOf(ids(jpql(ItemQueries.class).findByQuantityAbove(1)))
+                .containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    // The precompiled lookup wraps a recorder of the methods that reach the stock strategy
+    private <T> T precompiled(Class<T> repositoryInterface) {
+        QueryLookupStrategyDecorator recording = (delegate, em) -> (method, metadata, factory, namedQueries) -> {
+            notPrecompiled.add(method.getName());
+            return delegate.resolveQuery(method, metadata, factory, namedQueries);
+        };
+        PrecompiledQueryLookup lookup = new PrecompiledQueryLookup(
+                new PrecompiledQueries(H2Dialect.class.getName(), plans));
+        return new DecoratingJpaRepositoryFactory(entityManager, List.of(recording, lookup))
+                .getRepository(repositoryInterface);
+    }
+
+    private <T> T jpql(Class<T> repositoryInterface) {
+        return new DecoratingJpaRepositoryFactory(entityManager, List.of()).getRepository(repositoryInterface);
+    }
+
+    private static List<Long> ids(List<OrderItem> items) {
+        return items.stream().map(OrderItem::getId).toList();
+    }
+
+    interface ItemQueries extends Repository<OrderItem, Long> {
+
+        @Query("SELECT SUM(oi.id) FROM OrderItem oi WHERE oi.customerOrder.id = :orderId")
+        Long sumIdsByOrderId(@Param("orderId") Long orderId);
+
+        @Query("SELECT MAX(oi.quantity) FROM OrderItem oi")
+        Integer findMaxQuantity();
+
+        @Query("SELECT oi FROM OrderItem oi WHERE oi.quantity > ?1")
+        List<OrderItem> findByQuantityAbove(Integer quantity);
+    }
+}
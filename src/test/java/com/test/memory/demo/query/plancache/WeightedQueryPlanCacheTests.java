@@ -0,0 +1,91 @@
+package com.test.memory.demo.query.plancache;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The {@link WeightedQueryInterpretationCache} replaces Hibernate's interpretation cache, keeps
+ * the estimated size of its plans under {@code demo.query.plan-cache.max-size}, and evicted
+ * queries are compiled again when they run.
+ */
+@DemoDataJpaTest(properties = {
+        "demo.query.plan-cache.enabled=true",
+        "demo.query.plan-cache.max-size=" + WeightedQueryPlanCacheTests.MAX_SIZE + "B",
+        "demo.query.plan-cache.retained-ratio=1.0"
+})
+@Import(QueryPlanCacheConfiguration.class)
+// The installer is a BeanPostProcessor, created before the fallback placeholder resolver exists
+@ImportAutoConfiguration(PropertyPlaceholderAutoConfiguration.class)
+class WeightedQueryPlanCacheTests {
+
+    static final long MAX_SIZE = 256 * 1024;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    WeightedQueryInterpretationCache cache;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO payment (id, status) VALUES (1, 'PAID'), (2, 'PENDING')");
+    }
+
+    @Test
+    void cacheIsInstalled() {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+
+        assertThat(sessionFactory.getQueryEngine().getInterpretationCache()).isSameAs(cache);
+        long misses = totalMisses();
+        assertThat(statusOf(1)).isEqualTo("PAID");
+        assertThat(totalMisses()).isGreaterThan(misses);
+        assertThat(cache.getNumberOfCachedHqlInterpretations()).isPositive();
+    }
+
+    @Test
+    void plansAreEvictedByWeightAndRecompiled() {
+        IntStream.rangeClosed(1, 500).forEach(i -> statusOf(i % 2 + 1, i));
+        cache.cache().cleanUp();
+
+        assertThat(cache.weightedSize()).isPositive().isLessThanOrEqualTo(MAX_SIZE);
+        assertThat(cache.cache().estimatedSize()).isLessThan(500);
+        assertThat(cache.methodStats().values().stream().mapToLong(WeightedQueryInterpretationCache.MethodStats::evictions)
+                .sum()).isPositive();
+
+        long misses = totalMisses();
+        IntStream.rangeClosed(1, 500).forEach(i -> assertThat(statusOf(i % 2 + 1, i)).isEqualTo(i % 2 == 0 ? "PAID" : "PENDING"));
+        assertThat(totalMisses()).isGreaterThan(misses);
+    }
+
+    private String statusOf(long id) {
+        return statusOf(id, 0);
+    }
+
+    // Every variant is a distinct query string, so a distinct cache entry
+    private String statusOf(long id, int variant) {
+        return entityManager.createQuery("SELECT p.status FROM Payment p WHERE p.id = :id AND " + variant + " = "
+                        + variant, String.class)
+                .setParameter("id", id)
+                .getSingleResult();
+    }
+
+    private long totalMisses() {
+        return cache.methodStats().values().stream().mapToLong(WeightedQueryInterpretationCache.MethodStats::misses).sum();
+    }
+}
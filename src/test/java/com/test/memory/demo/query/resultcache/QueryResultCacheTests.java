@@ -0,0 +1,171 @@
+package com.test.memory.demo.query.resultcache;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import com.test.memory.demo.entities.Address;
+import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.entities.Product;
+import com.test.memory.demo.entities.Review;
+import com.test.memory.demo.events.EntityChangeConfiguration;
+import com.test.memory.demo.repositories.AddressRepository;
+import com.test.memory.demo.repositories.PaymentRepository;
+import com.test.memory.demo.repositories.ProductRepository;
+import com.test.memory.demo.repositories.ReviewRepository;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@code @CachedQuery} methods are served from the result cache until a write to one of their
+ * entities commits. Runs without the test transaction so that every step commits.
+ */
+@DemoDataJpaTest
+@Import({EntityChangeConfiguration.class, QueryResultCacheConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryResultCacheTests {
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    ReviewRepository reviewRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    TransactionTemplate transaction;
+    Statistics statistics;
+    long productId;
+
+    @BeforeEach
+    void seed() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            payment("PAID");
+            payment("PENDING");
+            address("Paris");
+            address("Paris");
+            address("Rome");
+            Product product = new Product();
+            product.setName("novel");
+            productRepository.save(product);
+            productId = product.getId();
+            review(product, 5);
+            review(product, 2);
+        });
+        statistics = testData.statistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transaction.executeWithoutResult(status -> {
+            paymentRepository.deleteAll();
+            addressRepository.deleteAll();
+            reviewRepository.deleteAll();
+            productRepository.deleteAll();
+        });
+    }
+
+    @Test
+    void countIsCachedUntilPaymentWriteCommits() {
+        assertThat(paymentRepository.countPaymentsNative()).isEqualTo(2);
+        assertThat(paymentRepository.countPaymentsNative()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        transaction.executeWithoutResult(status -> payment("FAILED"));
+
+        assertThat(paymentRepository.countPaymentsNative()).isEqualTo(3);
+        assertThat(paymentRepository.findDistinctStatusesNative()).containsExactlyInAnyOrder("PAID", "PENDING", "FAILED");
+    }
+
+    @Test
+    void writingTransactionBypassesCache() {
+        assertThat(paymentRepository.countPaymentsNative()).isEqualTo(2);
+
+        transaction.executeWithoutResult(status -> {
+            payment("FAILED");
+            assertThat(paymentRepository.countPaymentsNative()).isEqualTo(3);
+            status.setRollbackOnly();
+        });
+
+        assertThat(paymentRepository.countPaymentsNative()).isEqualTo(2);
+    }
+
+    @Test
+    void unrelatedWritesKeepCachedRows() {
+        List<Object[]> cities = addressRepository.countAddressesByCity();
+        assertThat(cities).hasSize(2);
+
+        transaction.executeWithoutResult(status -> payment("FAILED"));
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(addressRepository.countAddressesByCity()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(cities);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+
+        transaction.executeWithoutResult(status -> address("Oslo"));
+        assertThat(addressRepository.countAddressesByCity()).hasSize(3);
+    }
+
+    @Test
+    void entityResultsAreReloadedPerParameters() {
+        assertThat(ratings(4)).containsExactly(5);
+        assertThat(ratings(1)).containsExactlyInAnyOrder(5, 2);
+        assertThat(ratings(4)).containsExactly(5);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+
+        transaction.executeWithoutResult(status -> {
+            Review review = reviewRepository.findByProductAndMinRating(productId, 1).stream()
+                    .filter(candidate -> candidate.getRating() == 2).findFirst().orElseThrow();
+            review.setRating(4);
+        });
+
+        assertThat(ratings(4)).containsExactlyInAnyOrder(5, 4);
+    }
+
+    private List<Integer> ratings(int minRating) {
+        return transaction.execute(status -> reviewRepository.findByProductAndMinRating(productId, minRating).stream()
+                .map(Review::getRating).toList());
+    }
+
+    private void payment(String status) {
+        Payment payment = new Payment();
+        payment.setStatus(status);
+        paymentRepository.save(payment);
+    }
+
+    private void address(String city) {
+        Address address = new Address();
+        address.setStreet("street");
+        address.setCity(city);
+        addressRepository.save(address);
+    }
+
+    private void review(Product product, int rating) {
+        Review review = new Review();
+        review.setComment("ok");
+        review.setRating(rating);
+        review.setProduct(product);
+        reviewRepository.save(review);
+    }
+}
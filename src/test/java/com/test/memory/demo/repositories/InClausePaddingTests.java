@@ -0,0 +1,81 @@
+package com.test.memory.demo.repositories;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Payment;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * IN lists are padded to the next power of two, so list lengths 1 to 16 give five SQL strings per
+ * query, with the same results as unpadded lists.
+ */
+@DemoDataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.test.memory.demo.repositories.InClausePaddingTests$RecordingInspector")
+class InClausePaddingTests {
+
+    static final List<String> STATUSES = IntStream.rangeClosed(1, 16).mapToObj(i -> "S" + i).toList();
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    OrderItemRepository orderItemRepository;
+
+    @BeforeEach
+    void seed() {
+        for (int i = 1; i <= 16; i++) {
+            jdbcTemplate.update("INSERT INTO product (id, name) VALUES (?, ?)", i, "product " + i);
+            jdbcTemplate.update("INSERT INTO customer_order (id) VALUES (?)", i);
+            jdbcTemplate.update("INSERT INTO order_item (id, order_id, product_id, quantity) VALUES (?, ?, ?, 1)", i, i, i);
+            jdbcTemplate.update("INSERT INTO payment (id, status, order_id) VALUES (?, ?, ?)", i, STATUSES.get(i - 1), i);
+        }
+        RecordingInspector.SQL.clear();
+    }
+
+    @Test
+    void listLengthsShareSqlStrings() {
+        for (int size = 1; size <= 16; size++) {
+            List<String> statuses = STATUSES.subList(0, size);
+            List<Long> ids = LongStream.rangeClosed(1, size).boxed().toList();
+
+            assertThat(paymentRepository.findPaymentsByStatusesNative(statuses)).hasSize(size);
+            assertThat(paymentRepository.findPaymentsExcludingStatusesNative(statuses)).hasSize(16 - size);
+            assertThat(paymentRepository.findPaymentsByIdListNative(ids)).extracting(Payment::getId)
+                    .containsExactlyInAnyOrderElementsOf(ids);
+            assertThat(orderItemRepository.findByProductIds(ids)).extracting(OrderItem::getId)
+                    .containsExactlyInAnyOrderElementsOf(ids);
+            assertThat(orderItemRepository.findByOrderIds(ids)).hasSize(size);
+        }
+
+        // Five queries times five lengths (1, 2, 4, 8, 16), instead of 16 lengths each unpadded; the
+        // payments' orders are loaded by other statements
+        assertThat(RecordingInspector.SQL).filteredOn(sql -> sql.matches("(?i).* from (payment|order_item) .*"))
+                .hasSize(5 * 5);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final Set<String> SQL = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.test.memory.demo.repositories;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.OrderItem;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements needed to list {@value #ORDERS} orders when their payment, shipment and the to-one
+ * links of their items are LAZY (requires the build-time bytecode enhancement of the entities).
+ */
+@DemoDataJpaTest
+class LazyToOneLoadingTests {
+
+    static final int USERS = 100;
+    static final int ORDERS = 10_000;
+    static final int BATCH_SIZE = 50;
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    CustomerOrderRepository customerOrderRepository;
+
+    @Autowired
+    OrderItemRepository orderItemRepository;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        testData.insert("INSERT INTO category (id, name) VALUES (?, ?)", 1, i -> new Object[]{i, "Electronics"});
+        testData.insert("INSERT INTO product (id, name, price, category_id) VALUES (?, ?, ?, ?)", 1,
+                i -> new Object[]{i, "product " + i, 10.0, 1});
+        testData.insert("INSERT INTO app_user (id, name) VALUES (?, ?)", USERS, i -> new Object[]{i, "user " + i});
+        testData.insert("INSERT INTO customer_order (id, user_id) VALUES (?, ?)", ORDERS, i -> new Object[]{i, i % USERS + 1});
+        testData.insert("INSERT INTO payment (id, status, order_id) VALUES (?, ?, ?)", ORDERS, i -> new Object[]{i, "PAID", i});
+        testData.insert("INSERT INTO shipment (id, tracking_number, order_id) VALUES (?, ?, ?)", ORDERS,
+                i -> new Object[]{i, "T" + i, i});
+        testData.insert("INSERT INTO order_item (id, order_id, product_id, quantity) VALUES (?, ?, ?, ?)", ORDERS,
+                i -> new Object[]{i, i, 1, 1});
+        entityManager.clear();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void listingOrdersSkipsPaymentAndShipment() {
+        List<CustomerOrder> orders = customerOrderRepository.findAll();
+
+        assertThat(orders).hasSize(ORDERS);
+        assertThat(orders).allSatisfy(order -> assertThat(order.getId()).isNotNull());
+        // One select for the orders, the (still eager) users are batch fetched
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1 + USERS / BATCH_SIZE);
+    }
+
+    @Test
+    void listingOrderItemsSkipsOrderAndProduct() {
+        List<OrderItem> items = orderItemRepository.findAll();
+
+        assertThat(items).hasSize(ORDERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void paymentAndShipmentLoadOnAccess() {
+        CustomerOrder order = customerOrderRepository.findById(1L).orElseThrow();
+        long afterOrder = statistics.getPrepareStatementCount();
+
+        assertThat(order.getPayment().getStatus()).isEqualTo("PAID");
+        assertThat(order.getShipment().getTrackingNumber()).isEqualTo("T1");
+        assertThat(statistics.getPrepareStatementCount()).isGreaterThan(afterOrder);
+    }
+}
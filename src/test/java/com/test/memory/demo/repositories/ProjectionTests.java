@@ -0,0 +1,114 @@
+package com.test.memory.demo.repositories;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import com.test.memory.demo.projections.CityAddressCount;
+import com.test.memory.demo.projections.PaymentCompletion;
+import com.test.memory.demo.projections.PaymentStatusCount;
+import com.test.memory.demo.projections.ProductDiscountCount;
+import com.test.memory.demo.projections.ProductItemCount;
+import com.test.memory.demo.projections.UserOrderCount;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Typed projections return the same rows as their {@code Object[]} counterparts without loading
+ * any entity into the persistence context.
+ */
+@DemoDataJpaTest
+class ProjectionTests {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    AppUserRepository appUserRepository;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    DiscountRepository discountRepository;
+
+    @Autowired
+    OrderItemRepository orderItemRepository;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        testData.books();
+        jdbcTemplate.execute("INSERT INTO discount (id, code, percentage, product_id) VALUES (1, 'A', 5.0, 1), (2, 'B', 10.0, 1), (3, 'C', 5.0, 2)");
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'ann'), (2, 'bob')");
+        jdbcTemplate.execute("INSERT INTO address (id, street, city, user_id) VALUES (1, 's1', 'Paris', 1), (2, 's2', 'Paris', 2), (3, 's3', 'Rome', 2)");
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (1, 1), (2, 1)");
+        jdbcTemplate.execute("INSERT INTO order_item (id, order_id, product_id, quantity) VALUES (1, 1, 1, 1), (2, 1, 2, 1), (3, 2, 1, 3)");
+        jdbcTemplate.execute("INSERT INTO payment (id, status, order_id) VALUES (1, 'COMPLETED', 1), (2, 'PENDING', 2)");
+        entityManager.clear();
+        statistics = testData.statistics();
+    }
+
+    @AfterEach
+    void nothingManaged() {
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void userOrderCounts() {
+        assertThat(appUserRepository.findUserOrderCounts())
+                .containsExactlyInAnyOrder(new UserOrderCount(1L, "ann", 2), new UserOrderCount(2L, "bob", 0));
+    }
+
+    @Test
+    void cityAddressCounts() {
+        assertThat(addressRepository.findCityAddressCounts())
+                .containsExactlyInAnyOrder(new CityAddressCount("Paris", 2), new CityAddressCount("Rome", 1));
+    }
+
+    @Test
+    void productDiscountCounts() {
+        assertThat(discountRepository.findProductDiscountCounts())
+                .containsExactlyInAnyOrder(new ProductDiscountCount("novel", 2), new ProductDiscountCount("atlas", 1));
+    }
+
+    @Test
+    void productItemCounts() {
+        assertThat(orderItemRepository.findProductItemCounts())
+                .containsExactlyInAnyOrder(new ProductItemCount(1L, 2), new ProductItemCount(2L, 1));
+    }
+
+    @Test
+    void paymentStatusCounts() {
+        assertThat(paymentRepository.findPaymentStatusCountsNative())
+                .extracting(PaymentStatusCount::getStatus, PaymentStatusCount::getTotal)
+                .containsExactlyInAnyOrder(tuple("COMPLETED", 1L), tuple("PENDING", 1L));
+        assertThat(paymentRepository.findPaymentStatusCountsAboveNative(1)).isEmpty();
+    }
+
+    @Test
+    void paymentCompletions() {
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (3, 2)");
+        jdbcTemplate.execute("INSERT INTO payment (id, status, order_id) VALUES (3, NULL, 3)");
+
+        assertThat(paymentRepository.findPaymentCompletionsNative())
+                .extracting(PaymentCompletion::getId, PaymentCompletion::isCompleted)
+                .containsExactlyInAnyOrder(tuple(1L, true), tuple(2L, false), tuple(3L, false));
+    }
+}
@@ -0,0 +1,152 @@
+package com.test.memory.demo.repositories;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import com.test.memory.demo.entities.Category;
+import com.test.memory.demo.entities.Discount;
+import com.test.memory.demo.entities.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Category, Product and Discount are served from the second-level cache across transactions, and
+ * writes through their repositories are visible in the next transaction. Runs without the test
+ * transaction so that every step commits.
+ */
+@DemoDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CategoryAbcRepository categoryRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    DiscountRepository discountRepository;
+
+    TransactionTemplate transaction;
+    Statistics statistics;
+    long categoryId;
+    long productId;
+
+    @BeforeEach
+    void seed() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Category category = new Category();
+            category.setName("Books");
+            categoryRepository.save(category);
+            Product product = new Product();
+            product.setName("novel");
+            product.setPrice(10.0);
+            product.setCategory(category);
+            productRepository.save(product);
+            Discount discount = new Discount();
+            discount.setCode("WELCOME");
+            discount.setPercentage(5.0);
+            discount.setProduct(product);
+            discountRepository.save(discount);
+            categoryId = category.getId();
+            productId = product.getId();
+        });
+        entityManagerFactory.getCache().evictAll();
+        statistics = testData.statistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("DELETE FROM discount");
+        jdbcTemplate.execute("DELETE FROM product");
+        jdbcTemplate.execute("DELETE FROM category");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void productIsLoadedOnce() {
+        transaction.executeWithoutResult(status -> productRepository.findById(productId).orElseThrow());
+        long statements = statistics.getPrepareStatementCount();
+
+        Product product = transaction.execute(status -> productRepository.findById(productId).orElseThrow());
+
+        assertThat(product.getName()).isEqualTo("novel");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getDomainDataRegionStatistics("product").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void categoryProductsAreLoadedOnce() {
+        productNames();
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(productNames()).containsExactly("novel");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    void productUpdateIsVisibleAfterCommit() {
+        transaction.executeWithoutResult(status -> productRepository.findById(productId).orElseThrow());
+
+        transaction.executeWithoutResult(status -> {
+            Product product = productRepository.findById(productId).orElseThrow();
+            product.setPrice(12.5);
+            productRepository.save(product);
+        });
+
+        Double price = transaction.execute(status -> productRepository.findById(productId).orElseThrow().getPrice());
+        assertThat(price).isEqualTo(12.5);
+    }
+
+    @Test
+    void discountWritesEvictProductDiscounts() {
+        assertThat(discountCodes()).containsExactly("WELCOME");
+
+        long summerId = transaction.execute(status -> {
+            Discount discount = new Discount();
+            discount.setCode("SUMMER");
+            discount.setPercentage(10.0);
+            discount.setProduct(productRepository.findById(productId).orElseThrow());
+            return discountRepository.save(discount).getId();
+        });
+        assertThat(discountCodes()).containsExactlyInAnyOrder("WELCOME", "SUMMER");
+
+        transaction.executeWithoutResult(status -> discountRepository.deleteById(summerId));
+        assertThat(discountCodes()).containsExactly("WELCOME");
+    }
+
+    private List<String> productNames() {
+        return transaction.execute(status -> categoryRepository.findById(categoryId).orElseThrow().getProducts()
+                .stream().map(Product::getName).toList());
+    }
+
+    private List<String> discountCodes() {
+        return transaction.execute(status -> productRepository.findById(productId).orElseThrow().getDiscounts()
+                .stream().map(Discount::getCode).toList());
+    }
+}
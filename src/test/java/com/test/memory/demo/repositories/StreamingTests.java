@@ -0,0 +1,140 @@
+package com.test.memory.demo.repositories;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.TestData;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.export.PaymentExportService;
+import com.test.memory.demo.projections.OrderItemRow;
+import com.test.memory.demo.projections.PaymentExportRow;
+import com.test.memory.demo.projections.PaymentOrderRow;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.SessionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.StringWriter;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The {@code stream*} repository methods return the same rows as their list counterparts, as
+ * projections that leave the persistence context empty, and {@link PaymentExportService} writes every payment as CSV from a projection, without loading a
+ * payment, order or user entity.
+ */
+@DemoDataJpaTest
+@Import(PaymentExportService.class)
+class StreamingTests {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TestData testData;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    OrderItemRepository orderItemRepository;
+
+    @Autowired
+    PaymentExportService paymentExportService;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'ann')");
+        jdbcTemplate.execute("INSERT INTO product (id, name) VALUES (1, 'novel')");
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (1, 1), (2, 1)");
+        jdbcTemplate.execute("INSERT INTO order_item (id, order_id, product_id, quantity) "
+                + "VALUES (1, 1, 1, 1), (2, 1, 1, 2), (3, 2, 1, 4), (4, 2, 1, NULL)");
+        jdbcTemplate.execute("INSERT INTO payment (id, status, order_id) "
+                + "VALUES (1, 'COMPLETED', 1), (2, 'FAILED, \"card\"', 2), (3, NULL, NULL)");
+        entityManager.clear();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void exportWritesEveryPaymentWithoutLoadingEntities() {
+        StringWriter csv = new StringWriter();
+
+        assertThat(paymentExportService.exportPayments(csv)).isEqualTo(3);
+
+        assertThat(csv.toString().lines()).first().isEqualTo("id,status,order_id");
+        assertThat(csv.toString().lines().skip(1)).containsExactlyInAnyOrder(
+                "1,COMPLETED,1",
+                "2,\"FAILED, \"\"card\"\"\",2",
+                "3,,");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void exportOfNoPaymentsWritesTheHeader() {
+        jdbcTemplate.execute("DELETE FROM payment");
+        StringWriter csv = new StringWriter();
+
+        assertThat(paymentExportService.exportPayments(csv)).isZero();
+        assertThat(csv).hasToString("id,status,order_id\n");
+    }
+
+    @Test
+    void paymentStreams() {
+        try (Stream<PaymentExportRow> payments = paymentRepository.streamAllPaymentsNative()) {
+            assertThat(payments.map(payment -> payment.getId() + ":" + payment.getOrderId()))
+                    .containsExactlyInAnyOrder("1:1", "2:2", "3:null");
+        }
+        try (Stream<PaymentOrderRow> payments = paymentRepository.streamPaymentsWithOrderDetailsNative()) {
+            assertThat(payments.map(payment -> payment.getId() + ":" + payment.getUserId()))
+                    .containsExactlyInAnyOrder("1:1", "2:1");
+        }
+    }
+
+    @Test
+    void orderItemStreams() {
+        try (Stream<OrderItemRow> items = orderItemRepository.streamByEvenQuantity()) {
+            assertThat(items).containsExactlyInAnyOrder(new OrderItemRow(2L, 1L, 1L, 2), new OrderItemRow(3L, 2L, 1L, 4));
+        }
+        try (Stream<OrderItemRow> items = orderItemRepository.streamByQuantityNotEqual(2)) {
+            assertThat(items.map(OrderItemRow::id)).containsExactlyInAnyOrderElementsOf(
+                    orderItemRepository.findByQuantityNotEqual(2).stream().map(OrderItem::getId).toList())
+                    .containsExactlyInAnyOrder(1L, 3L);
+        }
+    }
+
+    // The streams hold no entity: however many rows pass, the persistence context stays empty and nothing is loaded
+    @Test
+    void streamsLeaveThePersistenceContextEmpty() {
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) SELECT x, 1 FROM SYSTEM_RANGE(3, 2002)");
+        jdbcTemplate.execute("INSERT INTO payment (id, status, order_id) SELECT x + 1, 'PAID', x FROM SYSTEM_RANGE(3, 2002)");
+        jdbcTemplate.execute("INSERT INTO order_item (id, order_id, product_id, quantity) "
+                + "SELECT x + 2, x, 1, 2 FROM SYSTEM_RANGE(3, 2002)");
+        SessionStatistics session = entityManager.unwrap(Session.class).getStatistics();
+
+        try (Stream<PaymentExportRow> payments = paymentRepository.streamAllPaymentsNative()) {
+            assertThat(payments.count()).isEqualTo(2_003);
+        }
+        try (Stream<PaymentOrderRow> payments = paymentRepository.streamPaymentsWithOrderDetailsNative()) {
+            assertThat(payments.count()).isEqualTo(2_002);
+        }
+        try (Stream<OrderItemRow> items = orderItemRepository.streamByEvenQuantity()) {
+            assertThat(items.count()).isEqualTo(2_002);
+        }
+        try (Stream<OrderItemRow> items = orderItemRepository.streamByQuantityNotEqual(4)) {
+            assertThat(items.count()).isEqualTo(2_002);
+        }
+
+        assertThat(session.getEntityCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -0,0 +1,224 @@
+package com.test.memory.demo.rollup;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.CustomerOrder;
+import com.test.memory.demo.entities.Discount;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.entities.Product;
+import com.test.memory.demo.entities.Review;
+import com.test.memory.demo.events.EntityChangeConfiguration;
+import com.test.memory.demo.repositories.DiscountRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The {@code ...FromRollup} methods return what the aggregate queries they replace return, as
+ * order items, reviews and payments are written. Runs without the test transaction so that every
+ * step commits.
+ */
+@DemoDataJpaTest
+@Import({EntityChangeConfiguration.class, RollupConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RollupTests {
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    RollupMaintainer rollupMaintainer;
+
+    @Autowired
+    OrderItemRepository orderItemRepository;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    DiscountRepository discountRepository;
+
+    TransactionTemplate transaction;
+    Long orderId;
+    Long otherOrderId;
+    Long productId;
+    Long otherProductId;
+
+    @BeforeEach
+    void seed() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            CustomerOrder order = persist(new CustomerOrder());
+            CustomerOrder otherOrder = persist(new CustomerOrder());
+            Product product = product("novel");
+            Product otherProduct = product("atlas");
+            item(order, product, 2);
+            item(order, product, 3);
+            item(order, otherProduct, null);
+            item(otherOrder, otherProduct, 1);
+            review(product, 5);
+            review(product, 4);
+            review(otherProduct, 2);
+            review(otherProduct, null);
+            discount(product);
+            discount(otherProduct);
+            payment("PAID");
+            payment("PAID");
+            payment("PENDING");
+            orderId = order.getId();
+            otherOrderId = otherOrder.getId();
+            productId = product.getId();
+            otherProductId = otherProduct.getId();
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transaction.executeWithoutResult(status -> {
+            for (Class<?> type : List.of(OrderItem.class, Review.class, Discount.class, Payment.class, Product.class,
+                    CustomerOrder.class)) {
+                entityManager.createQuery("SELECT e FROM " + type.getSimpleName() + " e", type).getResultList()
+                        .forEach(entityManager::remove);
+            }
+        });
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_item_rollup", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_rollup", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment_status_rollup", Long.class)).isZero();
+    }
+
+    @Test
+    void rollupsMatchAggregates() {
+        assertThat(orderItemRepository.countByOrderIdFromRollup(orderId)).isEqualTo(3);
+        assertThat(orderItemRepository.sumQuantitiesByOrderIdFromRollup(orderId)).isEqualTo(5);
+        assertMatchesAggregates();
+    }
+
+    @Test
+    void updatesAndDeletesMoveCounters() {
+        transaction.executeWithoutResult(status -> {
+            List<OrderItem> items = orderItemRepository.findByOrderIds(List.of(orderId));
+            items.stream().filter(item -> Integer.valueOf(2).equals(item.getQuantity())).forEach(item -> {
+                item.setQuantity(7);
+                item.setProduct(entityManager.find(Product.class, otherProductId));
+            });
+            items.stream().filter(item -> Integer.valueOf(3).equals(item.getQuantity())).forEach(entityManager::remove);
+            entityManager.createQuery("SELECT oi FROM OrderItem oi WHERE oi.customerOrder.id = :orderId", OrderItem.class)
+                    .setParameter("orderId", otherOrderId).getResultList().forEach(entityManager::remove);
+            entityManager.createQuery("SELECT p FROM Payment p WHERE p.status = 'PENDING'", Payment.class)
+                    .getResultList().forEach(payment -> payment.setStatus("PAID"));
+            entityManager.createQuery("SELECT r FROM Review r WHERE r.rating = 4", Review.class)
+                    .getResultList().forEach(review -> review.setRating(1));
+        });
+
+        assertThat(orderItemRepository.countByOrderIdFromRollup(orderId)).isEqualTo(2);
+        assertThat(orderItemRepository.sumQuantitiesByOrderIdFromRollup(orderId)).isEqualTo(7);
+        assertThat(orderItemRepository.countByOrderIdFromRollup(otherOrderId)).isZero();
+        assertThat(orderItemRepository.sumQuantitiesByOrderIdFromRollup(otherOrderId)).isNull();
+        assertThat(paymentRepository.groupPaymentsByStatusFromRollup())
+                .containsExactly(new Object[]{"PAID", 3L});
+        assertMatchesAggregates();
+        assertThat(rollupMaintainer.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    void rolledBackWritesLeaveRollupsUnchanged() {
+        transaction.executeWithoutResult(status -> {
+            payment("FAILED");
+            item(entityManager.find(CustomerOrder.class, orderId), entityManager.find(Product.class, productId), 4);
+            status.setRollbackOnly();
+        });
+
+        assertThat(orderItemRepository.countByOrderIdFromRollup(orderId)).isEqualTo(3);
+        assertMatchesAggregates();
+    }
+
+    @Test
+    void checkFindsBypassingWritesAndRebuildRepairs() {
+        jdbcTemplate.update("INSERT INTO payment (id, status) VALUES (-1, 'REFUNDED')");
+        jdbcTemplate.update("UPDATE order_item SET quantity = 10 WHERE quantity = 3");
+
+        assertThat(rollupMaintainer.check()).isEqualTo(new RollupCheck(1, 0, 1));
+
+        rollupMaintainer.rebuild();
+
+        assertThat(rollupMaintainer.check().isConsistent()).isTrue();
+        assertThat(orderItemRepository.sumQuantitiesByOrderIdFromRollup(orderId)).isEqualTo(12);
+        assertMatchesAggregates();
+    }
+
+    private void assertMatchesAggregates() {
+        for (Long id : List.of(orderId, otherOrderId)) {
+            assertThat(orderItemRepository.countByOrderIdFromRollup(id)).isEqualTo(orderItemRepository.countByOrderId(id));
+            assertThat(orderItemRepository.sumQuantitiesByOrderIdFromRollup(id))
+                    .isEqualTo(orderItemRepository.sumQuantitiesByOrderId(id));
+        }
+        assertThat(orderItemRepository.groupByProductIdCountFromRollup())
+                .containsExactlyInAnyOrderElementsOf(orderItemRepository.groupByProductIdCount());
+        assertThat(paymentRepository.groupPaymentsByStatusFromRollup())
+                .containsExactlyInAnyOrderElementsOf(paymentRepository.groupPaymentsByStatusNative());
+        assertThat(paymentRepository.findPaymentStatusCountsFromRollup(1))
+                .containsExactlyInAnyOrderElementsOf(paymentRepository.findPaymentStatusCountsUsingCTE(1));
+        assertThat(discountRepository.findDiscountsByProductAvgReviewRatingFromRollup(3.0)).extracting(Discount::getId)
+                .containsExactlyInAnyOrderElementsOf(discountRepository.findDiscountsByProductAvgReviewRating(3.0).stream()
+                        .map(Discount::getId).toList());
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        return persist(product);
+    }
+
+    private void item(CustomerOrder order, Product product, Integer quantity) {
+        OrderItem item = new OrderItem();
+        item.setCustomerOrder(order);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        persist(item);
+    }
+
+    private void review(Product product, Integer rating) {
+        Review review = new Review();
+        review.setProduct(product);
+        review.setRating(rating);
+        persist(review);
+    }
+
+    private void discount(Product product) {
+        Discount discount = new Discount();
+        discount.setCode(product.getName());
+        discount.setProduct(product);
+        persist(discount);
+    }
+
+    private void payment(String status) {
+        Payment payment = new Payment();
+        payment.setStatus(status);
+        persist(payment);
+    }
+}
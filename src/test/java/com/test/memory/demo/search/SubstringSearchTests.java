@@ -0,0 +1,95 @@
+package com.test.memory.demo.search;
+
+import com.test.memory.demo.DemoDataJpaTest;
+import com.test.memory.demo.entities.Address;
+import com.test.memory.demo.entities.AppUser;
+import com.test.memory.demo.entities.Discount;
+import com.test.memory.demo.entities.OrderItem;
+import com.test.memory.demo.entities.Payment;
+import com.test.memory.demo.repositories.AddressRepository;
+import com.test.memory.demo.repositories.AppUserRepository;
+import com.test.memory.demo.repositories.DiscountRepository;
+import com.test.memory.demo.repositories.OrderItemRepository;
+import com.test.memory.demo.repositories.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The {@code search*} repository methods match the text anywhere, ignoring case, with LIKE
+ * wildcards in the text matched literally.
+ */
+@DemoDataJpaTest
+class SubstringSearchTests {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    AppUserRepository appUserRepository;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    DiscountRepository discountRepository;
+
+    @Autowired
+    OrderItemRepository orderItemRepository;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO category (id, name) VALUES (1, 'Books')");
+        jdbcTemplate.execute("INSERT INTO product (id, name, price, category_id) VALUES (1, 'Paperback Novel', 10.0, 1), (2, 'atlas', 30.0, 1)");
+        jdbcTemplate.execute("INSERT INTO discount (id, code, percentage, product_id) VALUES (1, 'SUMMER10', 10.0, 1), (2, 'WINTER', 5.0, 2)");
+        jdbcTemplate.execute("INSERT INTO app_user (id, name) VALUES (1, 'Ann Smith'), (2, 'JOANNA'), (3, 'bob'), (4, '100%_pure')");
+        jdbcTemplate.execute("INSERT INTO address (id, street, city, user_id) VALUES (1, 'Main Street', 'Paris', 1), (2, 'Rue de Paris', 'Lyon', 2)");
+        jdbcTemplate.execute("INSERT INTO customer_order (id, user_id) VALUES (1, 1), (2, 3)");
+        jdbcTemplate.execute("INSERT INTO order_item (id, order_id, product_id, quantity) VALUES (1, 1, 1, 1), (2, 2, 2, 1)");
+        jdbcTemplate.execute("INSERT INTO payment (id, status, order_id) VALUES (1, 'PAID', 1), (2, 'PAID', 2)");
+        entityManager.clear();
+    }
+
+    @Test
+    void usersMatchIgnoringCase() {
+        assertThat(appUserRepository.searchByName("ann", 10)).extracting(AppUser::getName)
+                .containsExactlyInAnyOrder("Ann Smith", "JOANNA");
+        assertThat(appUserRepository.searchByName("ann", 1)).hasSize(1);
+    }
+
+    @Test
+    void wildcardsMatchLiterally() {
+        assertThat(appUserRepository.searchByName("0%_", 10)).extracting(AppUser::getName).containsExactly("100%_pure");
+        assertThat(appUserRepository.searchByName("a_n", 10)).isEmpty();
+    }
+
+    @Test
+    void otherSearches() {
+        assertThat(addressRepository.searchByCity("PAR", 10)).extracting(Address::getId).containsExactly(1L);
+        assertThat(addressRepository.searchByStreet("paris", 10)).extracting(Address::getId).containsExactly(2L);
+        assertThat(discountRepository.searchByCode("mer", 10)).extracting(Discount::getId).containsExactly(1L);
+        assertThat(orderItemRepository.searchByProductName("novel", 10)).extracting(OrderItem::getId).containsExactly(1L);
+        assertThat(paymentRepository.searchByUserName("smith", 10)).extracting(Payment::getId).containsExactly(1L);
+    }
+
+    @Test
+    void textTooShortForTrigramsIsRejected() {
+        assertThatThrownBy(() -> appUserRepository.searchByName("an", 10))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("at least " + SubstringSearch.MIN_LENGTH + " characters");
+        assertThatThrownBy(() -> paymentRepository.searchByUserName("smith", SubstringSearch.MAX_RESULTS + 1))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+}